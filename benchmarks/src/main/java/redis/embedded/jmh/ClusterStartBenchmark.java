@@ -0,0 +1,63 @@
+package redis.embedded.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.embedded.RedisCluster;
+import redis.embedded.RedisClusterBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building and starting a sentinel cluster until every replica is in sync and discovered, for a range of sizes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ClusterStartBenchmark {
+    
+    @Param({"1", "3"})
+    public int sentinels;
+    
+    @Param({"1", "2"})
+    public int groups;
+    
+    @Param({"1", "3"})
+    public int replicas;
+    
+    private RedisCluster cluster;
+    
+    @Benchmark
+    public RedisCluster buildAndStart() {
+        final RedisClusterBuilder builder = RedisCluster.builder()
+                .ephemeral()
+                .sentinelCount(sentinels)
+                .quorumSize(sentinels / 2 + 1);
+        for (int group = 0; group < groups; group++) {
+            builder.replicationGroup("master" + group, replicas);
+        }
+        cluster = builder.build();
+        cluster.start();
+        return cluster;
+    }
+    
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (cluster != null) {
+            cluster.stop();
+            cluster = null;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package redis.embedded.jmh;
+
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.embedded.RedisExecProvider;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Resolving the redis executable, by extracting it into an empty data directory ({@code cold}) and through
+ * {@link RedisExecProvider#getShared()} once an earlier call extracted it already ({@code cached}). {@code get()}
+ * extracts on every call, so it has no cached path to measure.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 50)
+@Fork(1)
+public class ExecProviderBenchmark {
+    
+    @State(Scope.Thread)
+    public static class EmptyDataDirectory {
+        File directory;
+        RedisExecProvider provider;
+        
+        @Setup(Level.Iteration)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("embedded-redis-jmh").toFile();
+            provider = RedisExecProvider.defaultProvider().setDataDirectory(directory.getAbsolutePath());
+        }
+        
+        @TearDown(Level.Iteration)
+        public void tearDown() throws IOException {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class PopulatedDataDirectory {
+        File directory;
+        RedisExecProvider provider;
+        
+        @Setup(Level.Trial)
+        public void setUp() throws IOException {
+            directory = Files.createTempDirectory("embedded-redis-jmh").toFile();
+            provider = RedisExecProvider.defaultProvider().setDataDirectory(directory.getAbsolutePath());
+            provider.getShared();
+        }
+        
+        @TearDown(Level.Trial)
+        public void tearDown() throws IOException {
+            FileUtils.deleteDirectory(directory);
+        }
+    }
+    
+    @Benchmark
+    public File cold(EmptyDataDirectory state) throws IOException {
+        return state.provider.get();
+    }
+    
+    @Benchmark
+    public File cached(PopulatedDataDirectory state) throws IOException {
+        return state.provider.getShared();
+    }
+}
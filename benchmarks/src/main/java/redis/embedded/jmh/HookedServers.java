@@ -0,0 +1,29 @@
+package redis.embedded.jmh;
+
+import redis.embedded.RedisServer;
+import redis.embedded.ports.EphemeralPortProvider;
+
+import java.io.IOException;
+
+/**
+ * Child process of {@link ShutdownHookBenchmark}: starts the requested number of servers, prints {@code READY} and
+ * exits through the shutdown hooks as soon as a line arrives on stdin.
+ */
+public final class HookedServers {
+    static final String READY = "READY";
+    
+    private HookedServers() {
+    }
+    
+    public static void main(String[] args) throws IOException {
+        final int servers = Integer.parseInt(args[0]);
+        final EphemeralPortProvider ports = new EphemeralPortProvider();
+        for (int i = 0; i < servers; i++) {
+            RedisServer.builder().port(ports.next()).build().start();
+        }
+        System.out.println(READY);
+        System.out.flush();
+        System.in.read();
+        System.exit(0);
+    }
+}
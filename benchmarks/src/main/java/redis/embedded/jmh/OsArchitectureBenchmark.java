@@ -0,0 +1,28 @@
+package redis.embedded.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.embedded.util.OsArchitecture;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Detection runs on every {@code RedisExecProvider.get()}, which may spawn {@code uname} on unix.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OsArchitectureBenchmark {
+    
+    @Benchmark
+    public OsArchitecture detect() {
+        return OsArchitecture.detect();
+    }
+}
@@ -0,0 +1,97 @@
+package redis.embedded.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import redis.embedded.PortProvider;
+import redis.embedded.ports.EphemeralPortProvider;
+import redis.embedded.ports.LeasedPortProvider;
+import redis.embedded.ports.ReservingPortProvider;
+import redis.embedded.ports.SequencePortProvider;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ports handed out by one provider shared by several threads. Providers that bind or lock run out of ports eventually,
+ * so every iteration gets a fresh provider and hands out a fixed number of ports per thread.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Threads(4)
+@Fork(1)
+public class PortProviderBenchmark {
+    private static final int PORTS_PER_INVOCATION = 1000;
+    private static final int FIRST_PORT = 20000;
+    private static final int LAST_PORT = 65535;
+    
+    @Param({"sequence", "ephemeral", "reserving", "leased"})
+    public String provider;
+    
+    private PortProvider ports;
+    private Path leaseDirectory;
+    
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        switch (provider) {
+            case "sequence":
+                ports = new SequencePortProvider(FIRST_PORT);
+                break;
+            case "ephemeral":
+                ports = new EphemeralPortProvider();
+                break;
+            case "reserving":
+                ports = new ReservingPortProvider(FIRST_PORT, LAST_PORT);
+                break;
+            case "leased":
+                // a private lease table, so leases of other JVMs on the host do not skew the result
+                leaseDirectory = Files.createTempDirectory("embedded-redis-jmh-leases");
+                ports = new LeasedPortProvider(leaseDirectory, FIRST_PORT, LAST_PORT);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown port provider " + provider);
+        }
+    }
+    
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        if (ports instanceof Closeable) {
+            ((Closeable) ports).close();
+        }
+        if (leaseDirectory != null) {
+            Files.deleteIfExists(leaseDirectory.resolve("leases"));
+            Files.deleteIfExists(leaseDirectory);
+            leaseDirectory = null;
+        }
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(PORTS_PER_INVOCATION)
+    public void next(Blackhole blackhole) {
+        for (int i = 0; i < PORTS_PER_INVOCATION; i++) {
+            final int port = ports.next();
+            // what a starting server does right before it binds the port
+            ports.release(port);
+            blackhole.consume(port);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package redis.embedded.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import redis.embedded.RedisServer;
+import redis.embedded.ports.EphemeralPortProvider;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Start and stop latency of a single server. Every measurement is one cold operation on a fresh instance.
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 20)
+@Fork(1)
+public class ServerLifecycleBenchmark {
+    
+    @State(Scope.Thread)
+    public static class StoppedServer {
+        RedisServer server;
+        
+        @Setup(Level.Iteration)
+        public void setUp() {
+            server = RedisServer.builder().port(new EphemeralPortProvider().next()).build();
+        }
+        
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            server.stop();
+        }
+    }
+    
+    @State(Scope.Thread)
+    public static class RunningServer {
+        RedisServer server;
+        
+        @Setup(Level.Iteration)
+        public void setUp() {
+            server = RedisServer.builder().port(new EphemeralPortProvider().next()).build();
+            server.start();
+        }
+        
+        @TearDown(Level.Iteration)
+        public void tearDown() {
+            server.stop();
+        }
+    }
+    
+    @Benchmark
+    public RedisServer start(StoppedServer state) {
+        state.server.start();
+        return state.server;
+    }
+    
+    @Benchmark
+    public RedisServer stop(RunningServer state) {
+        state.server.stop();
+        return state.server;
+    }
+    
+    @Benchmark
+    public RedisServer startAndStop(StoppedServer state) {
+        state.server.start();
+        state.server.stop();
+        return state.server;
+    }
+}
@@ -0,0 +1,75 @@
+package redis.embedded.jmh;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from asking a JVM to exit until it is gone, with a number of servers left running for the shutdown hooks to
+ * stop. The run without servers is the cost of the JVM exit alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ShutdownHookBenchmark {
+    
+    @Param({"0", "1", "4"})
+    public int servers;
+    
+    private Process child;
+    private OutputStream childInput;
+    
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        final String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+        child = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                HookedServers.class.getName(), Integer.toString(servers))
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+        childInput = child.getOutputStream();
+        final BufferedReader output = new BufferedReader(
+                new InputStreamReader(child.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = output.readLine()) != null && !HookedServers.READY.equals(line)) {
+            // skip whatever the servers log before they are all up
+        }
+        if (line == null) {
+            throw new IllegalStateException("Child JVM exited with " + child.exitValue() + " before it was ready");
+        }
+    }
+    
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (child.isAlive()) {
+            child.destroyForcibly();
+        }
+    }
+    
+    @Benchmark
+    public int exit() throws IOException, InterruptedException {
+        childInput.write('\n');
+        childInput.flush();
+        return child.waitFor();
+    }
+}
@@ -65,7 +65,7 @@ if command -pv docker buildx 2>/dev/null; then
       -v "$(pwd)/":/mnt \
       --user "$(id -u):$(id -g)" \
       "redis-server-builder-${arch}" \
-      sh -c "cp /build/redis-server-${REDIS_VERSION}-linux-${arch} /mnt"
+      sh -c "cp /build/redis-server-${REDIS_VERSION}-linux-${arch} /build/redis-benchmark-${REDIS_VERSION}-linux-${arch} /mnt"
 
     ((all_linux+=1))
 
@@ -104,6 +104,7 @@ if [[ "$(uname -s)" == "Darwin" ]]; then
       make distclean
       arch -arm64e make -j3 BUILD_TLS=yes OPENSSL_PREFIX="$OPENSSL_TEMP/arm64e"
       mv src/redis-server "../redis-server-${REDIS_VERSION}-darwin-arm64"
+      mv src/redis-benchmark "../redis-benchmark-${REDIS_VERSION}-darwin-arm64"
     else
       echo "*** WARNING: openssl@1.1 not found for darwin-arm64e; skipping build"
     fi
@@ -120,6 +121,7 @@ if [[ "$(uname -s)" == "Darwin" ]]; then
       arch -x86_64 make -j3 BUILD_TLS=yes OPENSSL_PREFIX="$OPENSSL_TEMP/x86_64"
       # x86_64 and amd64 are effectively synonymous; we use amd64 here to match the naming scheme used by Docker builds
       mv src/redis-server "../redis-server-${REDIS_VERSION}-darwin-amd64"
+      mv src/redis-benchmark "../redis-benchmark-${REDIS_VERSION}-darwin-amd64"
     else
         echo "*** WARNING: openssl@1.1 not found for darwin-x86_64; skipping build"
     fi
@@ -133,7 +135,7 @@ else
   echo "*** WARNING: Cannot build for macos/darwin on a $(uname -s) host"
 fi
 
-ls -l redis-server-*
+ls -l redis-server-* redis-benchmark-*
 
 echo "*** Moving built binaries to ../resources; you need to handle the rest yourself"
-mv redis-server-* ../resources/
+mv redis-server-* redis-benchmark-* ../resources/
@@ -1,37 +1,62 @@
 package redis.embedded;
 
 import cn.hutool.core.date.StopWatch;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.exceptions.RedisCommandException;
+import redis.embedded.util.OS;
+import redis.embedded.util.OSDetector;
 
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.net.InetAddress;
-import java.net.InetSocketAddress;
-import java.net.Socket;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 abstract class AbstractRedisInstance
         implements Redis {
     private static final Logger LOG = LoggerFactory.getLogger(AbstractRedisInstance.class);
     
-    private final int port;
+    private static final int MAX_PORT_CONFLICT_RETRIES = 3;
+    private static final Duration RESTART_TIMEOUT = Duration.ofMinutes(1);
+    private static final ScheduledExecutorService RESUMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread thread = new Thread(r, "RedisInstanceResumer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private volatile int port;
     private final int tlsPort;
+    private final PortProvider portProvider;
+    private volatile boolean portPinned = false;
     protected List<String> args = Collections.emptyList();
+    private List<String> argsBeforeTmpfs;
     private volatile boolean active = false;
+    private volatile boolean paused = false;
+    private boolean exitHookInstalled = false;
+    private ScheduledFuture<?> autoResume;
     private Process redisProcess;
     private ExecutorService executor;
     
     protected AbstractRedisInstance(int port, int tlsPort) {
+        this(port, tlsPort, null);
+    }
+    
+    protected AbstractRedisInstance(int port, int tlsPort, PortProvider portProvider) {
         this.port = port;
         this.tlsPort = tlsPort;
+        this.portProvider = portProvider;
     }
     
     protected AbstractRedisInstance(int port) {
@@ -42,18 +67,113 @@ abstract class AbstractRedisInstance
         return active;
     }
     
+    PortProvider portProvider() {
+        return portProvider;
+    }
+    
+    /**
+     * Keeps the instance on its port when it is taken at start, for instances other ones were configured to reach.
+     */
+    void pinPort() {
+        portPinned = true;
+    }
+    
+    /**
+     * @return the directory relative file names of the configuration resolve against
+     */
+    File dataDirectory() {
+        final int index = args.indexOf("--dir");
+        return index >= 0 ? new File(args.get(index + 1)) : new File(args.getFirst()).getParentFile();
+    }
+    
     public synchronized void start() throws EmbeddedRedisException {
         if (active) {
             throw new EmbeddedRedisException("This redis server instance is already running...");
         }
+        installExitHook();
+        launch(true);
+    }
+    
+    /**
+     * Starts the stopped instance as a replica of the server on {@code masterPort}, the way sentinels would turn a
+     * failed master into one once it is back.
+     */
+    synchronized void startAsReplicaOf(int masterPort) throws EmbeddedRedisException {
+        args = new ArrayList<>(args);
+        for (String name : List.of("--slaveof", "--replicaof")) {
+            final int index = args.indexOf(name);
+            if (index >= 0) {
+                args.subList(index, index + 3).clear();
+            }
+        }
+        args.addAll(List.of("--slaveof", "localhost", Integer.toString(masterPort)));
+        start();
+    }
+    
+    /**
+     * Restarts the instance on the same port and returns how long it took until it answered again.
+     */
+    public synchronized Duration restart(RestartMode mode) throws EmbeddedRedisException {
+        return restart(mode, () -> {
+        });
+    }
+    
+    /**
+     * @param whileStopped runs after the process stopped and before the new one starts, unless the process survives
+     */
+    synchronized Duration restart(RestartMode mode, Runnable whileStopped) {
+        if (!active) {
+            throw new EmbeddedRedisException("Can not restart a redis instance that is not running");
+        }
+        if (mode != RestartMode.HARD && this instanceof RedisSentinel) {
+            throw new EmbeddedRedisException(mode + " restart is only supported for redis servers");
+        }
+        resume();
+        final long start = System.nanoTime();
+        switch (mode) {
+            case DEBUG_RELOAD:
+                debugReload();
+                break;
+            case GRACEFUL:
+                shutdownToTmpfs();
+                whileStopped.run();
+                relaunch();
+                break;
+            case HARD:
+                redisProcess.destroyForcibly();
+                tryWaitFor();
+                whileStopped.run();
+                relaunch();
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported restart mode " + mode);
+        }
+        final Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        LOG.info("Redis instance on port {} restarted ({}) in {}", port, mode, elapsed);
+        return elapsed;
+    }
+    
+    private void launch(boolean mayMovePort) {
         final StopWatch watch = new StopWatch();
         watch.start();
         try {
-            redisProcess = createRedisProcessBuilder().start();
-            ProcessOutputLogger.logOutput(LOG, redisProcess, "redis");
-            installExitHook();
-            awaitRedisServerReady(watch);
-            active = true;
+            for (int attempt = 0; ; attempt++) {
+                final StartupWatcher watcher = spawn();
+                final StartupOutcome outcome = awaitRedisServerReady(watcher, watch);
+                if (outcome == StartupOutcome.READY) {
+                    active = true;
+                    return;
+                }
+                destroyProcess();
+                if (outcome == StartupOutcome.PORT_CONFLICT && mayMovePort && !portPinned
+                        && portProvider != null && attempt < MAX_PORT_CONFLICT_RETRIES) {
+                    final int conflictingPort = port;
+                    setArg("--port", Integer.toString(portProvider.next()));
+                    LOG.warn("Port {} is already in use, retrying on port {}", conflictingPort, port);
+                    continue;
+                }
+                throw new EmbeddedRedisException(outcome.describe(port));
+            }
         } catch (IOException e) {
             throw new EmbeddedRedisException("Failed to start Redis instance", e);
         } finally {
@@ -61,19 +181,155 @@ abstract class AbstractRedisInstance
         }
     }
     
-    private void installExitHook() {
-        Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "RedisInstanceCleaner"));
+    private void relaunch() {
+        active = false;
+        // clients and replicas of a restarted instance expect it on the port they know
+        launch(false);
+    }
+    
+    private void debugReload() {
+        try (RedisConnection connection = RedisConnection.open(port, RESTART_TIMEOUT)) {
+            connection.call("DEBUG", "RELOAD");
+        } catch (RedisCommandException e) {
+            throw new EmbeddedRedisException("DEBUG RELOAD failed, the server has to be built with "
+                    + "RedisServerBuilder.enableDebugCommand(): " + e.getMessage(), e);
+        }
+    }
+    
+    private void shutdownToTmpfs() {
+        final File dataDir = tmpfsDataDir();
+        try (RedisConnection connection = RedisConnection.open(port, RESTART_TIMEOUT)) {
+            final File dir = new File(configValue(connection, "dir"));
+            final String dbfilename = configValue(connection, "dbfilename");
+            // a server started with appendonly loads the append only file rather than the snapshot
+            final String appendOnly = "yes".equals(configValue(connection, "appendonly"))
+                    ? appendOnlyName(connection) : null;
+            final RedisCommandException refused = shutdown(connection, "SAVE");
+            if (refused != null) {
+                throw new EmbeddedRedisException("Graceful shutdown failed: " + refused.getMessage());
+            }
+            tryWaitFor();
+            if (!dir.getCanonicalFile().equals(dataDir.getCanonicalFile())) {
+                // only the first graceful restart pays for moving the data, later ones write it to tmpfs directly;
+                // CONFIG SET dir beforehand is refused, redis 7 protects it
+                moveToDirectory(new File(dir, dbfilename), dataDir);
+                if (appendOnly != null) {
+                    moveToDirectory(new File(dir, appendOnly), dataDir);
+                }
+                if (argsBeforeTmpfs == null) {
+                    argsBeforeTmpfs = args;
+                }
+                setArg("--dir", dataDir.getAbsolutePath());
+            }
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Failed to move data of redis instance on port " + port, e);
+        }
+    }
+    
+    /**
+     * @return the directory of the append only files, or the file itself before redis 7
+     */
+    private static String appendOnlyName(RedisConnection connection) {
+        final List<?> reply = (List<?>) connection.call("CONFIG", "GET", "appenddirname");
+        return reply.isEmpty() ? configValue(connection, "appendfilename") : RedisConnection.asString(reply.get(1));
     }
     
+    private static void moveToDirectory(File source, File directory) throws IOException {
+        if (!source.exists()) {
+            return;
+        }
+        final File target = new File(directory, source.getName());
+        FileUtils.deleteQuietly(target);
+        // tmpfs is another file system, a directory is copied rather than renamed
+        if (source.isDirectory()) {
+            FileUtils.moveDirectory(source, target);
+        } else {
+            FileUtils.moveFile(source, target);
+        }
+    }
+    
+    private void discardTmpfsDataDir() {
+        if (argsBeforeTmpfs != null) {
+            FileUtils.deleteQuietly(new File(args.get(args.indexOf("--dir") + 1)));
+            // a later start would not find the directory anymore
+            args = argsBeforeTmpfs;
+            argsBeforeTmpfs = null;
+        }
+    }
+    
+    private File tmpfsDataDir() {
+        final File shm = new File("/dev/shm");
+        final File root = shm.isDirectory() && shm.canWrite() ? shm : new File(System.getProperty("java.io.tmpdir"));
+        final File dir = new File(root, "embedded-redis-" + port);
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new EmbeddedRedisException("Could not create data directory " + dir);
+        }
+        return dir;
+    }
     
-    private void awaitRedisServerReady(StopWatch watch) throws IOException {
+    private static RedisCommandException shutdown(RedisConnection connection, Object... modifiers) {
+        final Object[] command = new Object[modifiers.length + 1];
+        command[0] = "SHUTDOWN";
+        System.arraycopy(modifiers, 0, command, 1, modifiers.length);
+        connection.send(command);
+        connection.flush();
+        try {
+            final Object reply = connection.read();
+            return reply instanceof RedisCommandException ? (RedisCommandException) reply : null;
+        } catch (EmbeddedRedisException closed) {
+            // a successful shutdown closes the connection without a reply
+            return null;
+        }
+    }
+    
+    private boolean requestShutdown() {
+        if (port == 0) {
+            return false;
+        }
+        try (RedisConnection connection = RedisConnection.open(port, RESTART_TIMEOUT)) {
+            return shutdown(connection) == null;
+        } catch (EmbeddedRedisException e) {
+            return false;
+        }
+    }
+    
+    private static String configValue(RedisConnection connection, String name) {
+        final List<?> reply = (List<?>) connection.call("CONFIG", "GET", name);
+        return RedisConnection.asString(reply.get(1));
+    }
+    
+    private StartupWatcher spawn() throws IOException {
+        if (portProvider != null) {
+            portProvider.release(port);
+        }
+        final StartupWatcher watcher = new StartupWatcher(redisReadyPattern());
+        redisProcess = createRedisProcessBuilder().start();
+        watcher.outputLogger = ProcessOutputLogger.logOutput(LOG, redisProcess, "redis", watcher);
+        return watcher;
+    }
+    
+    private void installExitHook() {
+        if (!exitHookInstalled) {
+            Runtime.getRuntime().addShutdownHook(new Thread(this::stop, "RedisInstanceCleaner"));
+            exitHookInstalled = true;
+        }
+    }
+    
+    private StartupOutcome awaitRedisServerReady(StartupWatcher watcher, StopWatch watch) {
         final long start = System.nanoTime();
         final long maxWaitNs = TimeUnit.NANOSECONDS.convert(10, TimeUnit.SECONDS);
         while (System.nanoTime() - start < maxWaitNs) {
+            if (watcher.bindFailed) {
+                return StartupOutcome.PORT_CONFLICT;
+            }
+            if (!redisProcess.isAlive()) {
+                watcher.awaitOutput();
+                return watcher.bindFailed ? StartupOutcome.PORT_CONFLICT : StartupOutcome.EXITED;
+            }
             try {
-                verifyReady();
+                verifyReady(watcher);
                 LOG.info("redis postmaster startup finished in {}", watch);
-                return;
+                return StartupOutcome.READY;
             } catch (Exception e) {
                 LOG.trace("While waiting for server startup", e);
             }
@@ -82,21 +338,61 @@ abstract class AbstractRedisInstance
                 Thread.sleep(100);
             } catch (final InterruptedException e) {
                 Thread.currentThread().interrupt();
+                destroyProcess();
+                throw new EmbeddedRedisException("Interrupted while waiting for redis instance to start");
+            }
+        }
+        return StartupOutcome.TIMED_OUT;
+    }
+    
+    private void verifyReady(StartupWatcher watcher) {
+        if (port == 0) {
+            // TLS only, nothing to ping without a TLS handshake
+            requireReadyLine(watcher);
+            return;
+        }
+        try (RedisConnection connection = RedisConnection.open(port, Duration.ofMillis(500))) {
+            final String info;
+            try {
+                connection.call("PING");
+                info = connection.callString("INFO", "server");
+            } catch (RedisCommandException e) {
+                // NOAUTH with requirepass or ACLs: something answers, but only our own log tells it is this process
+                requireReadyLine(watcher);
                 return;
             }
+            // a process that already held the port would answer as well
+            if (!info.contains("process_id:" + redisProcess.pid() + "\r")) {
+                throw new RuntimeException("Port " + port + " is answered by another process");
+            }
+        }
+    }
+    
+    private static void requireReadyLine(StartupWatcher watcher) {
+        if (!watcher.readyLineSeen) {
+            throw new RuntimeException("Redis has not reported readiness yet");
         }
     }
     
-    private void verifyReady() {
-        final InetAddress localhost = InetAddress.getLoopbackAddress();
-        try (Socket sock = new Socket()) {
-            sock.setSoTimeout((int) Duration.ofMillis(500).toMillis());
-            sock.connect(new InetSocketAddress(localhost, port), (int) Duration.ofMillis(500).toMillis());
-        } catch (final IOException e) {
-            throw new RuntimeException("Can't start redis server. Check logs for details");
+    private void setArg(String name, String value) {
+        args = new ArrayList<>(args);
+        final int index = args.indexOf(name);
+        if (index >= 0) {
+            args.set(index + 1, value);
+        } else {
+            args.add(name);
+            args.add(value);
+        }
+        if ("--port".equals(name)) {
+            port = Integer.parseInt(value);
         }
     }
     
+    private void destroyProcess() {
+        redisProcess.destroy();
+        tryWaitFor();
+    }
+    
     protected abstract String redisReadyPattern();
     
     private ProcessBuilder createRedisProcessBuilder() {
@@ -106,12 +402,90 @@ abstract class AbstractRedisInstance
         return pb;
     }
     
+    /**
+     * Freezes the process with {@code SIGSTOP}. Its connections stay open but nothing is answered until
+     * {@link #resume()}, or until {@code maxDuration} has passed.
+     */
+    public synchronized void pause(Duration maxDuration) throws EmbeddedRedisException {
+        if (!active) {
+            throw new EmbeddedRedisException("Can not pause a redis instance that is not running");
+        }
+        if (paused) {
+            throw new EmbeddedRedisException("This redis instance is already paused");
+        }
+        signal("STOP");
+        paused = true;
+        // a test that fails before calling resume() must not leave a frozen process behind
+        autoResume = RESUMER.schedule(this::resume, maxDuration.toNanos(), TimeUnit.NANOSECONDS);
+    }
+    
+    public synchronized void resume() throws EmbeddedRedisException {
+        if (paused) {
+            autoResume.cancel(false);
+            signal("CONT");
+            paused = false;
+        }
+    }
+    
+    public boolean isPaused() {
+        return paused;
+    }
+    
+    @Override
+    public long pid() throws EmbeddedRedisException {
+        // not synchronized, a sampler must not wait for a start or stop in progress
+        final Process process = redisProcess;
+        if (!active || process == null) {
+            throw new EmbeddedRedisException("Redis instance on port " + ports() + " is not running");
+        }
+        return process.pid();
+    }
+    
+    private void signal(String signal) {
+        if (OSDetector.getOS() == OS.WINDOWS) {
+            throw new EmbeddedRedisException("Pausing redis instances is not supported on Windows");
+        }
+        final long pid = redisProcess.pid();
+        try {
+            final Process kill = new ProcessBuilder("kill", "-" + signal, Long.toString(pid))
+                    .redirectErrorStream(true)
+                    .start();
+            if (kill.waitFor() != 0) {
+                throw new EmbeddedRedisException("Failed to send SIG" + signal + " to redis instance " + pid);
+            }
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Failed to send SIG" + signal + " to redis instance " + pid, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddedRedisException("Interrupted while signalling redis instance " + pid, e);
+        }
+    }
+    
     public synchronized void stop() throws EmbeddedRedisException {
         if (active) {
+            // a stopped process would only act on SIGTERM once continued
+            resume();
+            if (executor != null && !executor.isShutdown()) {
+                executor.shutdown();
+            }
+            // SHUTDOWN lets the instance run its shutdown sequence even where there are no signals, SIGTERM remains the
+            // fallback for instances that refuse it
+            if (!requestShutdown()) {
+                redisProcess.destroy();
+            }
+            tryWaitFor();
+            active = false;
+            discardTmpfsDataDir();
+        }
+    }
+    
+    synchronized void kill() {
+        if (active) {
+            resume();
             if (executor != null && !executor.isShutdown()) {
                 executor.shutdown();
             }
-            redisProcess.destroy();
+            redisProcess.destroyForcibly();
             tryWaitFor();
             active = false;
         }
@@ -135,6 +509,59 @@ abstract class AbstractRedisInstance
         return tlsPort > 0 ? Collections.singletonList(tlsPort) : Collections.emptyList();
     }
     
+    private enum StartupOutcome {
+        READY,
+        PORT_CONFLICT,
+        EXITED,
+        TIMED_OUT;
+        
+        private String describe(int port) {
+            switch (this) {
+                case PORT_CONFLICT:
+                    return "Can't start redis server, port " + port + " is already in use";
+                case EXITED:
+                    return "Can't start redis server, the process exited. Check logs for details";
+                default:
+                    return "Can't start redis server, it did not become ready on port " + port + ". Check logs for details";
+            }
+        }
+    }
+    
+    private static class StartupWatcher
+            implements Consumer<String> {
+        // redis' own wording, the reason after it is worded by the libc, which differs between glibc and musl builds
+        private static final List<String> BIND_FAILURES = List.of(
+                "Could not create server TCP listening socket",
+                "Failed listening on port");
+        
+        private final String readyPattern;
+        private volatile boolean bindFailed = false;
+        private volatile boolean readyLineSeen = false;
+        private Thread outputLogger;
+        
+        private StartupWatcher(String readyPattern) {
+            this.readyPattern = readyPattern;
+        }
+        
+        private void awaitOutput() {
+            // the process may exit before its last lines have been read
+            try {
+                outputLogger.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        
+        @Override
+        public void accept(String line) {
+            if (BIND_FAILURES.stream().anyMatch(line::contains)) {
+                bindFailed = true;
+            } else if (line.matches(readyPattern)) {
+                readyLineSeen = true;
+            }
+        }
+    }
+    
     private static class PrintReaderRunnable
             implements Runnable {
         private final BufferedReader reader;
@@ -0,0 +1,61 @@
+package redis.embedded;
+
+import java.time.Duration;
+
+public class BulkLoadReport {
+    private final long commands;
+    private final long errors;
+    private final String firstError;
+    private final long bytes;
+    private final long elapsedNanos;
+    
+    BulkLoadReport(long commands, long errors, String firstError, long bytes, long elapsedNanos) {
+        this.commands = commands;
+        this.errors = errors;
+        this.firstError = firstError;
+        this.bytes = bytes;
+        this.elapsedNanos = elapsedNanos;
+    }
+    
+    public long commands() {
+        return commands;
+    }
+    
+    /**
+     * @return the number of commands that were answered with an error, they do not stop a load
+     */
+    public long errors() {
+        return errors;
+    }
+    
+    public String firstError() {
+        return firstError;
+    }
+    
+    public long bytes() {
+        return bytes;
+    }
+    
+    public Duration elapsed() {
+        return Duration.ofNanos(elapsedNanos);
+    }
+    
+    public double commandsPerSecond() {
+        return elapsedNanos == 0 ? 0 : commands * 1e9 / elapsedNanos;
+    }
+    
+    public double megabytesPerSecond() {
+        return elapsedNanos == 0 ? 0 : bytes * 1e9 / elapsedNanos / (1024 * 1024);
+    }
+    
+    BulkLoadReport merge(BulkLoadReport other, long elapsedNanos) {
+        return new BulkLoadReport(commands + other.commands, errors + other.errors,
+                firstError != null ? firstError : other.firstError, bytes + other.bytes, elapsedNanos);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%d commands (%d errors) in %s, %.0f commands/s, %.1f MB/s",
+                commands, errors, elapsed(), commandsPerSecond(), megabytesPerSecond());
+    }
+}
@@ -0,0 +1,228 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+/**
+ * Seeds instances with large amounts of data by pipelining commands the way {@code redis-cli --pipe} does.
+ * <p>
+ * A {@link RedisCluster} is loaded through one connection per master in parallel. A sharded cluster gets each command
+ * from the master owning the slot of its key, which has to be the second element of the command. Every master of any
+ * other cluster gets all commands.
+ */
+public class BulkLoader {
+    private static final Object END = new Object();
+    
+    private final int window;
+    private final int batchSize;
+    private final Duration timeout;
+    
+    BulkLoader(int window, int batchSize, Duration timeout) {
+        this.window = window;
+        this.batchSize = batchSize;
+        this.timeout = timeout;
+    }
+    
+    public static BulkLoaderBuilder builder() {
+        return new BulkLoaderBuilder();
+    }
+    
+    public BulkLoadReport load(Redis target, Iterator<Object[]> commands) {
+        return load(target, () -> commands.hasNext() ? commands.next() : null);
+    }
+    
+    /**
+     * Loads the commands {@code generator} returns for 0 up to {@code count - 1}.
+     */
+    public BulkLoadReport load(Redis target, long count, LongFunction<Object[]> generator) {
+        final long[] next = {0};
+        return load(target, () -> next[0] < count ? generator.apply(next[0]++) : null);
+    }
+    
+    /**
+     * Loads a file of RESP encoded commands, as {@code redis-cli --pipe} reads it, without decoding the commands.
+     */
+    public BulkLoadReport load(Redis target, Path respFile) {
+        try (RespCommandReader reader = new RespCommandReader(respFile)) {
+            return load(target, reader::next);
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Failed to read commands from " + respFile, e);
+        }
+    }
+    
+    private BulkLoadReport load(Redis target, CommandSource source) {
+        if (target instanceof RedisCluster) {
+            return loadCluster((RedisCluster) target, source);
+        }
+        final long start = System.nanoTime();
+        try (PipelinedWriter writer = writer(target)) {
+            Object command;
+            while ((command = source.next()) != null) {
+                write(writer, command);
+            }
+            writer.finish();
+            return writer.report(System.nanoTime() - start);
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Failed to read commands", e);
+        }
+    }
+    
+    private BulkLoadReport loadCluster(RedisCluster cluster, CommandSource source) {
+        final List<Redis> masters = masters(cluster);
+        final int[] owners = cluster.isSharded() ? slotOwners(cluster, masters) : null;
+        final long start = System.nanoTime();
+        final ExecutorService executor = Executors.newFixedThreadPool(masters.size(), r -> {
+            final Thread thread = new Thread(r, "BulkLoader");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final List<BlockingQueue<Object>> queues = new ArrayList<>();
+        final List<Future<BulkLoadReport>> workers = new ArrayList<>();
+        try {
+            for (Redis master : masters) {
+                final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(window);
+                queues.add(queue);
+                workers.add(executor.submit(() -> drain(master, queue, start)));
+            }
+            Object command;
+            while ((command = source.next()) != null) {
+                if (command instanceof ByteBuffer) {
+                    // the reader reuses its buffer, while the command waits in a queue
+                    final ByteBuffer encoded = (ByteBuffer) command;
+                    final byte[] copy = new byte[encoded.remaining()];
+                    encoded.duplicate().get(copy);
+                    command = ByteBuffer.wrap(copy);
+                }
+                if (owners != null) {
+                    final int owner = owners[HashSlots.of(key(command))];
+                    put(queues.get(owner), workers.get(owner), command);
+                } else {
+                    for (int i = 0; i < masters.size(); i++) {
+                        put(queues.get(i), workers.get(i), command);
+                    }
+                }
+            }
+            for (int i = 0; i < masters.size(); i++) {
+                put(queues.get(i), workers.get(i), END);
+            }
+            BulkLoadReport report = new BulkLoadReport(0, 0, null, 0, 0);
+            for (Future<BulkLoadReport> worker : workers) {
+                report = report.merge(worker.get(), System.nanoTime() - start);
+            }
+            return report;
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Failed to read commands", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof EmbeddedRedisException
+                    ? (EmbeddedRedisException) e.getCause()
+                    : new EmbeddedRedisException("Failed to load cluster", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddedRedisException("Interrupted while loading cluster", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+    
+    private BulkLoadReport drain(Redis master, BlockingQueue<Object> queue, long start) throws InterruptedException {
+        try (PipelinedWriter writer = writer(master)) {
+            Object command;
+            while ((command = queue.take()) != END) {
+                write(writer, command);
+            }
+            writer.finish();
+            return writer.report(System.nanoTime() - start);
+        }
+    }
+    
+    private PipelinedWriter writer(Redis target) {
+        return new PipelinedWriter(target.ports().getFirst(), window, batchSize, timeout);
+    }
+    
+    private static void write(PipelinedWriter writer, Object command) {
+        if (command instanceof ByteBuffer) {
+            writer.sendEncoded((ByteBuffer) command);
+        } else {
+            writer.send((Object[]) command);
+        }
+    }
+    
+    private static void put(BlockingQueue<Object> queue, Future<BulkLoadReport> worker, Object command)
+            throws InterruptedException, ExecutionException {
+        while (!queue.offer(command, 100, TimeUnit.MILLISECONDS)) {
+            if (worker.isDone()) {
+                worker.get();
+                throw new EmbeddedRedisException("Bulk load stopped early");
+            }
+        }
+    }
+    
+    private static List<Redis> masters(RedisCluster cluster) {
+        if (cluster.isSharded() || cluster.replicationGroups().isEmpty()) {
+            return cluster.servers();
+        }
+        final List<Redis> masters = new ArrayList<>();
+        for (ReplicationGroup group : cluster.replicationGroups()) {
+            masters.add(group.master());
+        }
+        return masters;
+    }
+    
+    private static int[] slotOwners(RedisCluster cluster, List<Redis> masters) {
+        final int[] owners = new int[ShardedClusterManager.SLOT_COUNT];
+        Arrays.fill(owners, -1);
+        for (int i = 0; i < masters.size(); i++) {
+            for (int slot : cluster.slots(masters.get(i))) {
+                owners[slot] = i;
+            }
+        }
+        for (int slot = 0; slot < owners.length; slot++) {
+            if (owners[slot] < 0) {
+                throw new EmbeddedRedisException("Slot " + slot + " is not served by any master");
+            }
+        }
+        return owners;
+    }
+    
+    private static byte[] key(Object command) {
+        byte[] key = null;
+        if (command instanceof ByteBuffer) {
+            key = RespCommandReader.key((ByteBuffer) command);
+        } else {
+            final Object[] arguments = (Object[]) command;
+            if (arguments.length > 1) {
+                key = arguments[1] instanceof byte[]
+                        ? (byte[]) arguments[1]
+                        : String.valueOf(arguments[1]).getBytes(StandardCharsets.UTF_8);
+            }
+        }
+        if (key == null) {
+            throw new EmbeddedRedisException("Commands without a key can not be loaded into a sharded cluster");
+        }
+        return key;
+    }
+    
+    private interface CommandSource {
+        /**
+         * @return an {@code Object[]} command, an encoded command as {@code ByteBuffer} or {@code null} at the end
+         */
+        Object next() throws IOException;
+    }
+}
@@ -0,0 +1,42 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.time.Duration;
+
+public class BulkLoaderBuilder {
+    private int window = 10000;
+    private int batchSize = 1000;
+    private Duration timeout = Duration.ofSeconds(30);
+    
+    BulkLoaderBuilder() {
+    }
+    
+    /**
+     * Limits the number of commands per connection that were sent but not answered yet.
+     */
+    public BulkLoaderBuilder window(int window) {
+        this.window = window;
+        return this;
+    }
+    
+    /**
+     * Sets the number of commands that are written to the socket at once.
+     */
+    public BulkLoaderBuilder batchSize(int batchSize) {
+        this.batchSize = batchSize;
+        return this;
+    }
+    
+    public BulkLoaderBuilder timeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+    
+    public BulkLoader build() {
+        if (batchSize < 1 || window < batchSize) {
+            throw new RedisBuildingException("The window has to hold at least one batch of at least one command");
+        }
+        return new BulkLoader(window, batchSize, timeout);
+    }
+}
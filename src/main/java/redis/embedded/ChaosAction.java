@@ -0,0 +1,8 @@
+package redis.embedded;
+
+public enum ChaosAction {
+    KILL,
+    RESTART,
+    PAUSE,
+    RESUME
+}
@@ -0,0 +1,56 @@
+package redis.embedded;
+
+import java.time.Duration;
+
+public class ChaosEvent {
+    private final long offsetNanos;
+    private final ChaosAction action;
+    private final Redis node;
+    private final boolean sentinel;
+    private final long recoveryNanos;
+    
+    ChaosEvent(long offsetNanos, ChaosAction action, Redis node, boolean sentinel, long recoveryNanos) {
+        this.offsetNanos = offsetNanos;
+        this.action = action;
+        this.node = node;
+        this.sentinel = sentinel;
+        this.recoveryNanos = recoveryNanos;
+    }
+    
+    /**
+     * @return time since the scheduler was started
+     */
+    public Duration at() {
+        return Duration.ofNanos(offsetNanos);
+    }
+    
+    public ChaosAction action() {
+        return action;
+    }
+    
+    public Redis node() {
+        return node;
+    }
+    
+    public boolean isSentinel() {
+        return sentinel;
+    }
+    
+    public boolean recovered() {
+        return recoveryNanos >= 0;
+    }
+    
+    /**
+     * @return time from the action until every group had a writable master again and the node itself was back in
+     * sync, or {@code null} when that did not happen within the recovery timeout
+     */
+    public Duration recoveryTime() {
+        return recovered() ? Duration.ofNanos(recoveryNanos) : null;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("+%s %s %s %s, %s", at(), action, sentinel ? "sentinel" : "server", node.ports(),
+                recovered() ? "recovered in " + recoveryTime() : "not recovered");
+    }
+}
@@ -0,0 +1,417 @@
+package redis.embedded;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Kills, restarts, pauses and resumes servers and sentinels of a running {@link RedisCluster} on a schedule drawn
+ * from a seeded {@link Random}, so that a soak test run can be repeated with the same faults.
+ * <p>
+ * The seed fixes the sequence of draws, not the schedule itself: a paused node resumes by itself once its pause
+ * has passed on the wall clock, and recoveries take as long as they take, so which nodes a draw picks from depends on
+ * timing. Two runs with the same seed follow the same schedule only as long as every pause is resumed by a drawn
+ * {@code RESUME} and no node comes back late.
+ * <p>
+ * At most {@code maxDownSentinels} sentinels and {@code maxDownServers} servers are down at any time and a replication
+ * group always keeps one member up. {@link #close()} brings every node back and waits for replication to settle.
+ */
+public class ChaosScheduler
+        implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(ChaosScheduler.class);
+    private static final String PROBE_KEY = "embedded-redis:chaos-probe";
+    private static final Duration PROBE_TIMEOUT = Duration.ofMillis(200);
+    private static final long POLL_INTERVAL_MILLIS = 20;
+    
+    private final RedisCluster cluster;
+    private final long seed;
+    private final Random random;
+    private final Duration minInterval;
+    private final Duration maxInterval;
+    private final Duration minPause;
+    private final Duration maxPause;
+    private final Duration recoveryTimeout;
+    private final Set<ChaosAction> actions;
+    private final int maxDownSentinels;
+    private final int maxDownServers;
+    private final List<ChaosEvent> timeline = new CopyOnWriteArrayList<>();
+    private final Set<Redis> killed = new LinkedHashSet<>();
+    private final Map<Redis, Long> pausedUntil = new LinkedHashMap<>();
+    private final Object scheduleLock = new Object();
+    // guards killed and pausedUntil, held by an action as long as it runs and by the restore on close
+    private final Object stateLock = new Object();
+    private ScheduledExecutorService executor;
+    private ScheduledFuture<?> next;
+    private volatile boolean running;
+    private long startNanos;
+    
+    ChaosScheduler(RedisCluster cluster, long seed, Duration minInterval, Duration maxInterval, Duration minPause,
+                   Duration maxPause, Duration recoveryTimeout, Set<ChaosAction> actions, int maxDownSentinels,
+                   int maxDownServers) {
+        this.cluster = cluster;
+        this.seed = seed;
+        this.random = new Random(seed);
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        this.minPause = minPause;
+        this.maxPause = maxPause;
+        this.recoveryTimeout = recoveryTimeout;
+        this.actions = actions;
+        this.maxDownSentinels = maxDownSentinels;
+        this.maxDownServers = maxDownServers;
+    }
+    
+    public static ChaosSchedulerBuilder builder(RedisCluster cluster) {
+        return new ChaosSchedulerBuilder(cluster);
+    }
+    
+    public long seed() {
+        return seed;
+    }
+    
+    public List<ChaosEvent> timeline() {
+        return new ArrayList<>(timeline);
+    }
+    
+    public synchronized ChaosScheduler start() {
+        if (executor != null) {
+            throw new EmbeddedRedisException("Chaos scheduler is already running");
+        }
+        LOG.info("Starting chaos scheduler with seed {}", seed);
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "chaos-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        startNanos = System.nanoTime();
+        running = true;
+        scheduleNext();
+        return this;
+    }
+    
+    /**
+     * Stops injecting faults, brings every killed or paused node back and waits until every replica is in sync and
+     * every sentinel knows about it. Fails if the action in progress is not done within twice the recovery timeout,
+     * closing again waits for it once more.
+     */
+    @Override
+    public synchronized void close() {
+        if (executor == null) {
+            return;
+        }
+        synchronized (scheduleLock) {
+            running = false;
+            if (next != null) {
+                next.cancel(false);
+            }
+        }
+        executor.shutdown();
+        try {
+            // an action in progress is allowed to finish its recovery
+            if (!executor.awaitTermination(recoveryTimeout.toMillis() * 2, TimeUnit.MILLISECONDS)) {
+                // restoring now would race the action, closing again waits for it once more
+                throw new EmbeddedRedisException("Chaos action did not finish within "
+                        + recoveryTimeout.multipliedBy(2));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddedRedisException("Interrupted while stopping chaos scheduler", e);
+        }
+        executor = null;
+        synchronized (stateLock) {
+            restore();
+        }
+    }
+    
+    private void scheduleNext() {
+        synchronized (scheduleLock) {
+            if (running) {
+                next = executor.schedule(this::tick, between(minInterval, maxInterval), TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+    
+    private void tick() {
+        try {
+            synchronized (stateLock) {
+                resumeExpired();
+                final List<Candidate> candidates = candidates();
+                if (!candidates.isEmpty()) {
+                    final Candidate candidate = candidates.get(random.nextInt(candidates.size()));
+                    apply(candidate.action, candidate.node);
+                }
+            }
+        } catch (RuntimeException e) {
+            LOG.warn("Chaos action failed", e);
+        } finally {
+            scheduleNext();
+        }
+    }
+    
+    private List<Candidate> candidates() {
+        final List<Candidate> candidates = new ArrayList<>();
+        for (Redis node : nodes()) {
+            if (killed.contains(node)) {
+                addIfEnabled(candidates, ChaosAction.RESTART, node);
+            } else if (pausedUntil.containsKey(node)) {
+                addIfEnabled(candidates, ChaosAction.RESUME, node);
+            } else if (mayTakeDown(node)) {
+                addIfEnabled(candidates, ChaosAction.KILL, node);
+                addIfEnabled(candidates, ChaosAction.PAUSE, node);
+            }
+        }
+        return candidates;
+    }
+    
+    private void addIfEnabled(List<Candidate> candidates, ChaosAction action, Redis node) {
+        if (actions.contains(action)) {
+            candidates.add(new Candidate(action, node));
+        }
+    }
+    
+    private boolean mayTakeDown(Redis node) {
+        if (isSentinel(node)) {
+            return down(cluster.sentinels()) < maxDownSentinels;
+        }
+        if (down(cluster.servers()) >= maxDownServers) {
+            return false;
+        }
+        final ReplicationGroup group = groupOf(node);
+        if (group == null) {
+            // no replica could take over the slots of a shard master
+            return !cluster.isSharded() || ShardedClusterManager.slotsOf(node).isEmpty();
+        }
+        final List<Redis> members = new ArrayList<>(group.replicas());
+        members.add(group.master());
+        return down(members) < members.size() - 1;
+    }
+    
+    private void apply(ChaosAction action, Redis node) {
+        final long at = System.nanoTime();
+        switch (action) {
+            case KILL:
+                instance(node).kill();
+                killed.add(node);
+                record(at, action, node, awaitRecovery(at, null));
+                break;
+            case PAUSE:
+                // unless a RESUME is drawn first, the node continues by itself after the pause
+                final long pause = between(minPause, maxPause);
+                instance(node).pause(Duration.ofNanos(pause));
+                pausedUntil.put(node, at + pause);
+                record(at, action, node, awaitRecovery(at, null));
+                break;
+            case RESUME:
+                instance(node).resume();
+                pausedUntil.remove(node);
+                record(at, action, node, awaitRecovery(at, node));
+                break;
+            case RESTART:
+                node.start();
+                killed.remove(node);
+                record(at, action, node, awaitRecovery(at, node));
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported chaos action " + action);
+        }
+    }
+    
+    private void resumeExpired() {
+        final Iterator<Map.Entry<Redis, Long>> paused = pausedUntil.entrySet().iterator();
+        while (paused.hasNext()) {
+            final Map.Entry<Redis, Long> entry = paused.next();
+            if (!instance(entry.getKey()).isPaused()) {
+                paused.remove();
+                record(entry.getValue(), ChaosAction.RESUME, entry.getKey(),
+                        awaitRecovery(entry.getValue(), entry.getKey()));
+            }
+        }
+    }
+    
+    private void restore() {
+        for (Redis node : pausedUntil.keySet()) {
+            final long at = System.nanoTime();
+            instance(node).resume();
+            record(at, ChaosAction.RESUME, node, awaitRecovery(at, node));
+        }
+        pausedUntil.clear();
+        for (Redis node : killed) {
+            final long at = System.nanoTime();
+            node.start();
+            record(at, ChaosAction.RESTART, node, awaitRecovery(at, node));
+        }
+        killed.clear();
+        for (ReplicationGroup group : cluster.replicationGroups()) {
+            ReplicationReadiness.awaitReplicas(group, recoveryTimeout);
+            for (Redis sentinel : cluster.sentinels()) {
+                if (ReplicationReadiness.monitors(sentinel, group)) {
+                    ReplicationReadiness.awaitDiscovery(sentinel, group, recoveryTimeout);
+                }
+            }
+        }
+    }
+    
+    private void record(long at, ChaosAction action, Redis node, long recoveryNanos) {
+        final ChaosEvent event = new ChaosEvent(at - startNanos, action, node, isSentinel(node), recoveryNanos);
+        timeline.add(event);
+        LOG.info("Chaos: {}", event);
+    }
+    
+    /**
+     * @return nanoseconds from {@code at} until the cluster served writes again and {@code rejoined}, if any, is back,
+     * or -1 on timeout
+     */
+    private long awaitRecovery(long at, Redis rejoined) {
+        final long deadline = System.nanoTime() + recoveryTimeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (writable() && (rejoined == null || isBack(rejoined))) {
+                return System.nanoTime() - at;
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return -1;
+            }
+        }
+        return -1;
+    }
+    
+    private boolean writable() {
+        for (ReplicationGroup group : cluster.replicationGroups()) {
+            final int masterPort = currentMasterPort(group);
+            if (masterPort != port(group.master())) {
+                // the sentinels failed the master over on their own
+                for (Redis replica : group.replicas()) {
+                    if (port(replica) == masterPort) {
+                        group.promote(replica);
+                    }
+                }
+            }
+            try (RedisConnection connection = RedisConnection.open(masterPort, PROBE_TIMEOUT)) {
+                connection.call("SET", PROBE_KEY, "1");
+            } catch (EmbeddedRedisException e) {
+                return false;
+            }
+        }
+        if (cluster.isSharded()) {
+            for (Redis server : cluster.servers()) {
+                if (!isDown(server) && !clusterStateOk(server)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private int currentMasterPort(ReplicationGroup group) {
+        for (Redis sentinel : cluster.sentinels()) {
+            if (isDown(sentinel)) {
+                continue;
+            }
+            try (RedisConnection connection = RedisConnection.open(port(sentinel), PROBE_TIMEOUT)) {
+                final List<Object> address = (List<Object>) connection.call("SENTINEL", "GET-MASTER-ADDR-BY-NAME",
+                        group.masterName());
+                if (address != null) {
+                    return Integer.parseInt(RedisConnection.asString(address.get(1)));
+                }
+            } catch (EmbeddedRedisException e) {
+                LOG.trace("Sentinel {} did not answer", sentinel.ports(), e);
+            }
+        }
+        return port(group.master());
+    }
+    
+    private boolean isBack(Redis node) {
+        try (RedisConnection connection = RedisConnection.open(port(node), PROBE_TIMEOUT)) {
+            connection.call("PING");
+        } catch (EmbeddedRedisException e) {
+            return false;
+        }
+        final ReplicationGroup group = groupOf(node);
+        return group == null || group.master() == node || ReplicationReadiness.isInSync(group.master(), node);
+    }
+    
+    private static boolean clusterStateOk(Redis server) {
+        try (RedisConnection connection = RedisConnection.open(port(server), PROBE_TIMEOUT)) {
+            return connection.callString("CLUSTER", "INFO").contains("cluster_state:ok");
+        } catch (EmbeddedRedisException e) {
+            return false;
+        }
+    }
+    
+    private List<Redis> nodes() {
+        final List<Redis> nodes = new ArrayList<>(cluster.sentinels());
+        nodes.addAll(cluster.servers());
+        return nodes;
+    }
+    
+    private int down(List<Redis> nodes) {
+        int down = 0;
+        for (Redis node : nodes) {
+            if (isDown(node)) {
+                down++;
+            }
+        }
+        return down;
+    }
+    
+    private boolean isDown(Redis node) {
+        return killed.contains(node) || pausedUntil.containsKey(node);
+    }
+    
+    private boolean isSentinel(Redis node) {
+        return cluster.sentinels().contains(node);
+    }
+    
+    private ReplicationGroup groupOf(Redis node) {
+        for (ReplicationGroup group : cluster.replicationGroups()) {
+            if (group.master() == node || group.replicas().contains(node)) {
+                return group;
+            }
+        }
+        return null;
+    }
+    
+    private long between(Duration min, Duration max) {
+        final long range = max.toNanos() - min.toNanos();
+        return min.toNanos() + (range > 0 ? (long) (random.nextDouble() * range) : 0);
+    }
+    
+    private static AbstractRedisInstance instance(Redis redis) {
+        if (!(redis instanceof AbstractRedisInstance)) {
+            throw new EmbeddedRedisException("Can not control the process of " + redis.ports());
+        }
+        return (AbstractRedisInstance) redis;
+    }
+    
+    private static int port(Redis redis) {
+        return redis.ports().getFirst();
+    }
+    
+    private static final class Candidate {
+        private final ChaosAction action;
+        private final Redis node;
+        
+        private Candidate(ChaosAction action, Redis node) {
+            this.action = action;
+            this.node = node;
+        }
+    }
+}
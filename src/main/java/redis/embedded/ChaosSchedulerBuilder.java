@@ -0,0 +1,67 @@
+package redis.embedded;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+public class ChaosSchedulerBuilder {
+    private final RedisCluster cluster;
+    private long seed = System.nanoTime();
+    private Duration minInterval = Duration.ofSeconds(1);
+    private Duration maxInterval = Duration.ofSeconds(5);
+    private Duration minPause = Duration.ofMillis(500);
+    private Duration maxPause = Duration.ofSeconds(3);
+    private Duration recoveryTimeout = Duration.ofSeconds(30);
+    private Set<ChaosAction> actions = EnumSet.allOf(ChaosAction.class);
+    private Integer maxDownSentinels;
+    private int maxDownServers = 1;
+    
+    ChaosSchedulerBuilder(RedisCluster cluster) {
+        this.cluster = cluster;
+    }
+    
+    public ChaosSchedulerBuilder seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+    
+    public ChaosSchedulerBuilder interval(Duration minInterval, Duration maxInterval) {
+        this.minInterval = minInterval;
+        this.maxInterval = maxInterval;
+        return this;
+    }
+    
+    public ChaosSchedulerBuilder pauseDuration(Duration minPause, Duration maxPause) {
+        this.minPause = minPause;
+        this.maxPause = maxPause;
+        return this;
+    }
+    
+    public ChaosSchedulerBuilder recoveryTimeout(Duration recoveryTimeout) {
+        this.recoveryTimeout = recoveryTimeout;
+        return this;
+    }
+    
+    public ChaosSchedulerBuilder actions(ChaosAction... actions) {
+        this.actions = EnumSet.copyOf(Arrays.asList(actions));
+        return this;
+    }
+    
+    public ChaosSchedulerBuilder maxDownSentinels(int maxDownSentinels) {
+        this.maxDownSentinels = maxDownSentinels;
+        return this;
+    }
+    
+    public ChaosSchedulerBuilder maxDownServers(int maxDownServers) {
+        this.maxDownServers = maxDownServers;
+        return this;
+    }
+    
+    public ChaosScheduler build() {
+        // failovers need a majority of sentinels to authorize them
+        final int sentinels = maxDownSentinels != null ? maxDownSentinels : (cluster.sentinels().size() - 1) / 2;
+        return new ChaosScheduler(cluster, seed, minInterval, maxInterval, minPause, maxPause, recoveryTimeout,
+                actions, sentinels, maxDownServers);
+    }
+}
@@ -0,0 +1,17 @@
+package redis.embedded;
+
+public enum FailoverMode {
+    /**
+     * Asks a sentinel for a coordinated failover with {@code SENTINEL FAILOVER}. The old master keeps accepting
+     * writes until it is demoted, those it accepts after the replica was promoted are lost.
+     */
+    SENTINEL,
+    /**
+     * Kills the master process without giving it a chance to shut down.
+     */
+    KILL,
+    /**
+     * Freezes the master so that sentinels see it as unresponsive while its connections stay open.
+     */
+    PAUSE
+}
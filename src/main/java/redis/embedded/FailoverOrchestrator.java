@@ -0,0 +1,224 @@
+package redis.embedded;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+final class FailoverOrchestrator {
+    private static final Logger LOG = LoggerFactory.getLogger(FailoverOrchestrator.class);
+    private static final String SWITCH_MASTER = "+switch-master";
+    private static final String PROBE_KEY = "embedded-redis:failover-probe";
+    private static final String RECONNECT_KEY = PROBE_KEY + ":reconnect";
+    private static final long POLL_INTERVAL_MILLIS = 10;
+    
+    private FailoverOrchestrator() {
+    }
+    
+    static FailoverReport failover(ReplicationGroup group, Redis sentinel, FailoverMode mode, Duration timeout) {
+        final Redis oldMaster = group.master();
+        final WriteProbe probe = WriteProbe.start(oldMaster, group.replicasOf(oldMaster).size());
+        try (RedisConnection events = RedisConnection.open(port(sentinel))) {
+            // subscribe before triggering, a sentinel does not replay the announcement
+            events.call("SUBSCRIBE", SWITCH_MASTER);
+            final long start = System.nanoTime();
+            final long deadline = start + timeout.toNanos();
+            trigger(mode, group, sentinel, timeout);
+            final int newPort = awaitSwitch(events, group.masterName(), deadline, timeout);
+            final long elected = System.nanoTime();
+            probe.stop();
+            final Redis newMaster = replicaOn(group, newPort);
+            final long reconnected = awaitWritable(sentinel, group.masterName(), newPort, deadline, timeout);
+            final long acknowledged = probe.acknowledged();
+            final long lostWrites = Math.max(0, acknowledged - counterOn(newMaster));
+            if (mode == FailoverMode.PAUSE) {
+                // like a partitioned master coming back, it is demoted by the sentinels
+                instance(oldMaster).resume();
+            }
+            group.promote(newMaster);
+            final FailoverReport report = new FailoverReport(group.masterName(), mode, oldMaster, newMaster,
+                    elected - start, reconnected - start, acknowledged, lostWrites);
+            LOG.info("{}", report);
+            return report;
+        } finally {
+            probe.stop();
+            if (mode == FailoverMode.PAUSE && oldMaster instanceof AbstractRedisInstance) {
+                ((AbstractRedisInstance) oldMaster).resume();
+            }
+            // the replicas, and the old master once it is one again, lose the keys through replication
+            deleteProbeKeys(group.master());
+        }
+    }
+    
+    private static void deleteProbeKeys(Redis master) {
+        try (RedisConnection connection = RedisConnection.open(port(master))) {
+            connection.call("DEL", PROBE_KEY, RECONNECT_KEY);
+        } catch (EmbeddedRedisException e) {
+            LOG.debug("Could not delete failover probe keys from {}", master.ports(), e);
+        }
+    }
+    
+    private static void trigger(FailoverMode mode, ReplicationGroup group, Redis sentinel, Duration timeout) {
+        switch (mode) {
+            case SENTINEL:
+                try (RedisConnection connection = RedisConnection.open(port(sentinel))) {
+                    connection.call("SENTINEL", "FAILOVER", group.masterName());
+                }
+                break;
+            case KILL:
+                instance(group.master()).kill();
+                break;
+            case PAUSE:
+                instance(group.master()).pause(timeout);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported failover mode " + mode);
+        }
+    }
+    
+    private static int awaitSwitch(RedisConnection events, String masterName, long deadline, Duration timeout) {
+        while (true) {
+            final long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                throw new EmbeddedRedisException("Master " + masterName + " did not fail over within " + timeout);
+            }
+            events.timeout(Duration.ofNanos(remaining).plusMillis(1));
+            final Object message;
+            try {
+                message = events.read();
+            } catch (EmbeddedRedisException e) {
+                throw new EmbeddedRedisException("Master " + masterName + " did not fail over within " + timeout, e);
+            }
+            if (!(message instanceof List) || ((List<?>) message).size() < 3) {
+                continue;
+            }
+            // <master name> <old ip> <old port> <new ip> <new port>
+            final String[] payload = RedisConnection.asString(((List<?>) message).get(2)).split(" ");
+            if (payload.length == 5 && payload[0].equals(masterName)) {
+                return Integer.parseInt(payload[4]);
+            }
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static long awaitWritable(Redis sentinel, String masterName, int newPort, long deadline, Duration timeout) {
+        while (System.nanoTime() < deadline) {
+            try (RedisConnection connection = RedisConnection.open(port(sentinel))) {
+                final List<Object> address = (List<Object>) connection.call("SENTINEL", "GET-MASTER-ADDR-BY-NAME",
+                        masterName);
+                if (address != null && Integer.parseInt(RedisConnection.asString(address.get(1))) == newPort) {
+                    try (RedisConnection master = RedisConnection.open(newPort)) {
+                        master.call("SET", RECONNECT_KEY, "1");
+                        return System.nanoTime();
+                    }
+                }
+            } catch (EmbeddedRedisException e) {
+                LOG.trace("New master of {} is not writable yet", masterName, e);
+            }
+            sleep();
+        }
+        throw new EmbeddedRedisException("New master of " + masterName + " did not accept writes within " + timeout);
+    }
+    
+    private static long counterOn(Redis master) {
+        try (RedisConnection connection = RedisConnection.open(port(master))) {
+            final String value = connection.callString("GET", PROBE_KEY);
+            return value == null ? 0 : Long.parseLong(value);
+        }
+    }
+    
+    private static Redis replicaOn(ReplicationGroup group, int port) {
+        for (Redis replica : group.replicas()) {
+            if (port(replica) == port) {
+                return replica;
+            }
+        }
+        throw new EmbeddedRedisException("Sentinel promoted port " + port + " which is not a replica of "
+                + group.masterName());
+    }
+    
+    private static AbstractRedisInstance instance(Redis redis) {
+        if (!(redis instanceof AbstractRedisInstance)) {
+            throw new EmbeddedRedisException("Can not control the process of " + redis.ports());
+        }
+        return (AbstractRedisInstance) redis;
+    }
+    
+    private static void sleep() {
+        try {
+            TimeUnit.MILLISECONDS.sleep(POLL_INTERVAL_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddedRedisException("Interrupted while waiting for failover", e);
+        }
+    }
+    
+    private static int port(Redis redis) {
+        return redis.ports().getFirst();
+    }
+    
+    /**
+     * Keeps incrementing a counter on the old master until it stops acknowledging writes.
+     */
+    private static final class WriteProbe
+            implements Runnable {
+        private static final Duration WRITE_TIMEOUT = Duration.ofMillis(200);
+        
+        private final RedisConnection connection;
+        private final Thread thread;
+        private volatile boolean running = true;
+        private volatile long acknowledged;
+        
+        private WriteProbe(RedisConnection connection) {
+            this.connection = connection;
+            this.thread = new Thread(this, "failover-probe");
+            this.thread.setDaemon(true);
+        }
+        
+        static WriteProbe start(Redis master, int replicas) {
+            final RedisConnection connection = RedisConnection.open(port(master), WRITE_TIMEOUT);
+            try {
+                connection.call("SET", PROBE_KEY, "0");
+                // a counter that never reached the replicas would count every write as lost
+                connection.timeout(Duration.ofSeconds(5));
+                connection.call("WAIT", replicas, 1000);
+                connection.timeout(WRITE_TIMEOUT);
+            } catch (EmbeddedRedisException e) {
+                connection.close();
+                throw e;
+            }
+            final WriteProbe probe = new WriteProbe(connection);
+            probe.thread.start();
+            return probe;
+        }
+        
+        @Override
+        public void run() {
+            try {
+                while (running) {
+                    acknowledged = connection.callLong("INCR", PROBE_KEY);
+                }
+            } catch (EmbeddedRedisException e) {
+                LOG.debug("Old master stopped acknowledging writes after {}", acknowledged, e);
+            } finally {
+                connection.close();
+            }
+        }
+        
+        long acknowledged() {
+            return acknowledged;
+        }
+        
+        void stop() {
+            running = false;
+            try {
+                thread.join(WRITE_TIMEOUT.toMillis() * 5);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
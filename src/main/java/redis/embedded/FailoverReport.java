@@ -0,0 +1,78 @@
+package redis.embedded;
+
+import java.time.Duration;
+
+public class FailoverReport {
+    private final String masterName;
+    private final FailoverMode mode;
+    private final Redis oldMaster;
+    private final Redis newMaster;
+    private final long electionNanos;
+    private final long reconnectNanos;
+    private final long acknowledgedWrites;
+    private final long lostWrites;
+    
+    FailoverReport(String masterName, FailoverMode mode, Redis oldMaster, Redis newMaster, long electionNanos,
+                   long reconnectNanos, long acknowledgedWrites, long lostWrites) {
+        this.masterName = masterName;
+        this.mode = mode;
+        this.oldMaster = oldMaster;
+        this.newMaster = newMaster;
+        this.electionNanos = electionNanos;
+        this.reconnectNanos = reconnectNanos;
+        this.acknowledgedWrites = acknowledgedWrites;
+        this.lostWrites = lostWrites;
+    }
+    
+    public String masterName() {
+        return masterName;
+    }
+    
+    public FailoverMode mode() {
+        return mode;
+    }
+    
+    public Redis oldMaster() {
+        return oldMaster;
+    }
+    
+    public Redis newMaster() {
+        return newMaster;
+    }
+    
+    /**
+     * @return time from triggering the failover until a sentinel announced {@code +switch-master}
+     */
+    public Duration electionTime() {
+        return Duration.ofNanos(electionNanos);
+    }
+    
+    /**
+     * @return time from triggering the failover until a client asking a sentinel for the master could write again
+     */
+    public Duration reconnectTime() {
+        return Duration.ofNanos(reconnectNanos);
+    }
+    
+    /**
+     * @return writes the old master acknowledged while the failover was running
+     */
+    public long acknowledgedWrites() {
+        return acknowledgedWrites;
+    }
+    
+    /**
+     * @return writes acknowledged by the old master that the new master does not have, at most
+     * {@link #acknowledgedWrites()}
+     */
+    public long lostWrites() {
+        return lostWrites;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s failover of %s from %s to %s: elected in %s, writable after %s, %d of %d writes lost",
+                mode, masterName, oldMaster.ports(), newMaster.ports(), electionTime(), reconnectTime(), lostWrites,
+                acknowledgedWrites);
+    }
+}
@@ -0,0 +1,48 @@
+package redis.embedded;
+
+final class HashSlots {
+    private static final int[] CRC16_TABLE = new int[256];
+    
+    static {
+        // CRC16/XMODEM, the checksum redis cluster uses for key slots
+        for (int i = 0; i < 256; i++) {
+            int crc = i << 8;
+            for (int bit = 0; bit < 8; bit++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+            CRC16_TABLE[i] = crc & 0xffff;
+        }
+    }
+    
+    private HashSlots() {
+    }
+    
+    static int of(byte[] key) {
+        int start = 0;
+        int end = key.length;
+        // only the part between the first '{' and the next '}' is hashed, unless it is empty
+        for (int open = 0; open < key.length; open++) {
+            if (key[open] == '{') {
+                for (int close = open + 1; close < key.length; close++) {
+                    if (key[close] == '}') {
+                        if (close > open + 1) {
+                            start = open + 1;
+                            end = close;
+                        }
+                        break;
+                    }
+                }
+                break;
+            }
+        }
+        return crc16(key, start, end) & (ShardedClusterManager.SLOT_COUNT - 1);
+    }
+    
+    static int crc16(byte[] bytes, int start, int end) {
+        int crc = 0;
+        for (int i = start; i < end; i++) {
+            crc = ((crc << 8) ^ CRC16_TABLE[((crc >>> 8) ^ bytes[i]) & 0xff]) & 0xffff;
+        }
+        return crc;
+    }
+}
@@ -0,0 +1,216 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.exceptions.RedisCommandException;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Keeps the fixture of one server and the measured cost of each reset strategy.
+ * <p>
+ * A fixture is database 0 at the time it was captured, copied into {@link #TEMPLATE_DB} and {@link #SPARE_DB} and
+ * saved as snapshot. Automatic snapshots are turned off so that they can not overwrite it.
+ */
+final class KeyspaceReset {
+    static final int TEMPLATE_DB = 15;
+    static final int SPARE_DB = 14;
+    private static final int SCAN_COUNT = 1000;
+    private static final double LEARNING_RATE = 0.5;
+    private static final ExecutorService REFILLER = Executors.newCachedThreadPool(r -> {
+        final Thread thread = new Thread(r, "RedisKeyspaceRefill");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
+    private final RedisServer server;
+    private final Map<ResetStrategy, double[]> costs = new EnumMap<>(ResetStrategy.class);
+    private boolean fixture = false;
+    private Future<?> refill;
+    
+    KeyspaceReset(RedisServer server) {
+        this.server = server;
+        // fixed nanos and nanos per key until measurements replace them
+        costs.put(ResetStrategy.FLUSHALL_ASYNC, new double[]{200_000, 0});
+        costs.put(ResetStrategy.SWAPDB_TEMPLATE, new double[]{300_000, 1_000});
+        costs.put(ResetStrategy.DEBUG_RELOAD, new double[]{1_000_000, 1_500});
+        costs.put(ResetStrategy.RESTART, new double[]{50_000_000, 1_500});
+    }
+    
+    void captureFixture() {
+        awaitRefill();
+        try (RedisConnection connection = server.connect()) {
+            connection.call("CONFIG", "SET", "save", "");
+            copyDatabase(connection, 0, TEMPLATE_DB);
+            copyDatabase(connection, 0, SPARE_DB);
+            connection.call("SAVE");
+        }
+        fixture = true;
+    }
+    
+    ResetReport reset(ResetStrategy requested) {
+        final long start = System.nanoTime();
+        awaitRefill();
+        final long keys;
+        final ResetStrategy strategy;
+        final File snapshot;
+        try (RedisConnection connection = server.connect()) {
+            keys = connection.callLong("DBSIZE");
+            strategy = requested == ResetStrategy.ADAPTIVE ? cheapest(keys) : requested;
+            if (strategy == ResetStrategy.DEBUG_RELOAD && !fixture) {
+                throw new EmbeddedRedisException("DEBUG_RELOAD needs a fixture, see RedisServer.captureFixture()");
+            }
+            snapshot = strategy == ResetStrategy.RESTART && !fixture ? snapshotFile(connection) : null;
+            if (strategy != ResetStrategy.RESTART) {
+                clearScriptsAndStats(connection);
+            }
+            switch (strategy) {
+                case FLUSHALL_ASYNC:
+                    connection.call("FLUSHALL", "ASYNC");
+                    fixture = false;
+                    break;
+                case SWAPDB_TEMPLATE:
+                    swap(connection);
+                    break;
+                case DEBUG_RELOAD:
+                    reload(connection);
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (strategy == ResetStrategy.RESTART) {
+            restart(snapshot);
+        }
+        final long elapsed = System.nanoTime() - start;
+        learn(strategy, keys, elapsed);
+        return new ResetReport(strategy, keys, elapsed);
+    }
+    
+    private ResetStrategy cheapest(long keys) {
+        ResetStrategy cheapest = null;
+        double lowest = Double.MAX_VALUE;
+        for (Map.Entry<ResetStrategy, double[]> cost : costs.entrySet()) {
+            final ResetStrategy strategy = cost.getKey();
+            // a fixture has to survive the reset, without one DEBUG RELOAD has nothing to load
+            if (fixture ? strategy == ResetStrategy.FLUSHALL_ASYNC : strategy == ResetStrategy.DEBUG_RELOAD) {
+                continue;
+            }
+            final double estimate = cost.getValue()[0] + cost.getValue()[1] * keys;
+            if (estimate < lowest) {
+                lowest = estimate;
+                cheapest = strategy;
+            }
+        }
+        return cheapest;
+    }
+    
+    private void learn(ResetStrategy strategy, long keys, long elapsedNanos) {
+        final double[] cost = costs.get(strategy);
+        if (keys == 0) {
+            cost[0] += LEARNING_RATE * (elapsedNanos - cost[0]);
+        } else {
+            final double perKey = Math.max(0, elapsedNanos - cost[0]) / keys;
+            cost[1] += LEARNING_RATE * (perKey - cost[1]);
+        }
+    }
+    
+    private void swap(RedisConnection connection) {
+        connection.call("SWAPDB", 0, SPARE_DB);
+        connection.call("SELECT", SPARE_DB);
+        connection.call("FLUSHDB", "ASYNC");
+        if (fixture) {
+            refill = REFILLER.submit(() -> {
+                try (RedisConnection refiller = server.connect()) {
+                    copyDatabase(refiller, TEMPLATE_DB, SPARE_DB);
+                }
+            });
+        }
+    }
+    
+    private void reload(RedisConnection connection) {
+        try {
+            connection.call("DEBUG", "RELOAD", "NOSAVE");
+        } catch (RedisCommandException e) {
+            throw new EmbeddedRedisException("DEBUG RELOAD failed, the server has to be built with "
+                    + "RedisServerBuilder.enableDebugCommand(): " + e.getMessage(), e);
+        }
+    }
+    
+    private void restart(File snapshot) {
+        server.restart(RestartMode.HARD, () -> {
+            // without a fixture the new process has to start empty
+            if (snapshot != null && snapshot.exists() && !snapshot.delete()) {
+                throw new EmbeddedRedisException("Could not delete snapshot " + snapshot);
+            }
+        });
+        if (fixture) {
+            try (RedisConnection connection = server.connect()) {
+                connection.call("CONFIG", "SET", "save", "");
+            }
+        }
+    }
+    
+    private void awaitRefill() {
+        if (refill == null) {
+            return;
+        }
+        try {
+            refill.get();
+        } catch (ExecutionException e) {
+            throw new EmbeddedRedisException("Failed to refill the spare fixture database", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddedRedisException("Interrupted while refilling the spare fixture database", e);
+        } finally {
+            refill = null;
+        }
+    }
+    
+    private static void clearScriptsAndStats(RedisConnection connection) {
+        final List<Object> replies = connection.pipeline(List.of(
+                new Object[]{"SCRIPT", "FLUSH", "ASYNC"},
+                new Object[]{"CONFIG", "RESETSTAT"},
+                // functions only exist since redis 7
+                new Object[]{"FUNCTION", "FLUSH", "ASYNC"}));
+        for (Object reply : replies.subList(0, 2)) {
+            if (reply instanceof RedisCommandException) {
+                throw (RedisCommandException) reply;
+            }
+        }
+    }
+    
+    private static void copyDatabase(RedisConnection connection, int source, int target) {
+        connection.call("SELECT", target);
+        connection.call("FLUSHDB");
+        connection.call("SELECT", source);
+        String cursor = "0";
+        do {
+            final List<?> page = (List<?>) connection.call("SCAN", cursor, "COUNT", SCAN_COUNT);
+            cursor = RedisConnection.asString(page.get(0));
+            final List<Object[]> copies = new ArrayList<>();
+            for (Object key : (List<?>) page.get(1)) {
+                copies.add(new Object[]{"COPY", key, key, "DB", target, "REPLACE"});
+            }
+            for (Object reply : connection.pipeline(copies)) {
+                if (reply instanceof RedisCommandException) {
+                    throw (RedisCommandException) reply;
+                }
+            }
+        } while (!cursor.equals("0"));
+        connection.call("SELECT", 0);
+    }
+    
+    private static File snapshotFile(RedisConnection connection) {
+        final List<?> dir = (List<?>) connection.call("CONFIG", "GET", "dir");
+        final List<?> dbfilename = (List<?>) connection.call("CONFIG", "GET", "dbfilename");
+        return new File(RedisConnection.asString(dir.get(1)), RedisConnection.asString(dbfilename.get(1)));
+    }
+}
@@ -0,0 +1,53 @@
+package redis.embedded;
+
+/**
+ * Ring of (time, master offset) samples used to translate a replica's offset lag into time lag.
+ */
+final class OffsetHistory {
+    private final long[] nanos;
+    private final long[] offsets;
+    private int size;
+    private int head;
+    
+    OffsetHistory(int capacity) {
+        this.nanos = new long[capacity];
+        this.offsets = new long[capacity];
+    }
+    
+    void record(long nanoTime, long masterOffset) {
+        if (size > 0 && offsets[newest()] == masterOffset) {
+            // only the first time an offset was reached matters
+            return;
+        }
+        nanos[head] = nanoTime;
+        offsets[head] = masterOffset;
+        head = (head + 1) % nanos.length;
+        size = Math.min(size + 1, nanos.length);
+    }
+    
+    /**
+     * @return nanoseconds since the master first went past {@code replicaOffset}, or 0 when the replica caught up
+     */
+    long lagNanos(long nowNanos, long replicaOffset) {
+        if (size == 0 || replicaOffset >= offsets[newest()]) {
+            return 0;
+        }
+        long firstAhead = nanos[oldest()];
+        for (int i = size - 1; i >= 0; i--) {
+            final int index = (oldest() + i) % nanos.length;
+            if (offsets[index] <= replicaOffset) {
+                break;
+            }
+            firstAhead = nanos[index];
+        }
+        return Math.max(0, nowNanos - firstAhead);
+    }
+    
+    private int newest() {
+        return (head - 1 + nanos.length) % nanos.length;
+    }
+    
+    private int oldest() {
+        return (head - size + nanos.length) % nanos.length;
+    }
+}
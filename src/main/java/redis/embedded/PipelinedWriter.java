@@ -0,0 +1,78 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.RedisCommandException;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+
+/**
+ * Pipelines commands to one instance in batches while keeping at most {@code window} replies outstanding.
+ */
+final class PipelinedWriter
+        implements Closeable {
+    private final RedisConnection connection;
+    private final int window;
+    private final int batchSize;
+    private int unflushed = 0;
+    private int inFlight = 0;
+    private long commands = 0;
+    private long errors = 0;
+    private String firstError;
+    
+    PipelinedWriter(int port, int window, int batchSize, Duration timeout) {
+        this.connection = RedisConnection.open(port, timeout);
+        this.window = window;
+        this.batchSize = batchSize;
+    }
+    
+    void send(Object[] command) {
+        connection.send(command);
+        sent();
+    }
+    
+    void sendEncoded(ByteBuffer command) {
+        connection.sendEncoded(command);
+        sent();
+    }
+    
+    void finish() {
+        connection.flush();
+        inFlight += unflushed;
+        unflushed = 0;
+        drain(0);
+    }
+    
+    BulkLoadReport report(long elapsedNanos) {
+        return new BulkLoadReport(commands, errors, firstError, connection.bytesWritten(), elapsedNanos);
+    }
+    
+    @Override
+    public void close() {
+        connection.close();
+    }
+    
+    private void sent() {
+        commands++;
+        if (++unflushed == batchSize) {
+            connection.flush();
+            inFlight += unflushed;
+            unflushed = 0;
+            // the replies to earlier batches are read while the latest one is still on its way
+            drain(window - batchSize);
+        }
+    }
+    
+    private void drain(int limit) {
+        while (inFlight > limit) {
+            final Object reply = connection.read();
+            inFlight--;
+            if (reply instanceof RedisCommandException) {
+                errors++;
+                if (firstError == null) {
+                    firstError = ((RedisCommandException) reply).getMessage();
+                }
+            }
+        }
+    }
+}
@@ -1,5 +1,22 @@
 package redis.embedded;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public interface PortProvider {
     int next();
+    
+    default List<Integer> next(int count) {
+        final List<Integer> ports = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ports.add(next());
+        }
+        return ports;
+    }
+    
+    /**
+     * Called right before a redis process binds {@code port}, so that a provider still holding on to it can let go.
+     */
+    default void release(int port) {
+    }
 }
@@ -11,22 +11,28 @@ import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
 
 final class ProcessOutputLogger implements Runnable {
     @SuppressWarnings("PMD.LoggerIsNotStaticFinal")
     private final Logger logger;
     private final BufferedReader reader;
+    private final Consumer<String> lineListener;
 
-    private ProcessOutputLogger(final Logger logger, final Process process) {
+    private ProcessOutputLogger(final Logger logger, final Process process, final Consumer<String> lineListener) {
         this.logger = logger;
         this.reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+        this.lineListener = lineListener;
     }
 
     @Override
     public void run() {
         try {
             try {
-                reader.lines().forEach(logger::info);
+                reader.lines().forEach(line -> {
+                    logger.info(line);
+                    lineListener.accept(line);
+                });
             } catch (final UncheckedIOException e) {
                 logger.error("while reading output", e);
             }
@@ -39,12 +45,14 @@ final class ProcessOutputLogger implements Runnable {
         }
     }
 
-    static void logOutput(final Logger logger, final Process process, final String processName) {
+    static Thread logOutput(final Logger logger, final Process process, final String processName,
+                            final Consumer<String> lineListener) {
         final String threadName = (StrUtil.isNotBlank(processName) ? processName : "unknown") + ":" + processId(process);
-        final Thread t = new Thread(new ProcessOutputLogger(logger, process));
+        final Thread t = new Thread(new ProcessOutputLogger(logger, process, lineListener));
         t.setName(threadName);
         t.setDaemon(true);
         t.start();
+        return t;
     }
 
     private static String processId(Process process) {
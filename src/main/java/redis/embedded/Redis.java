@@ -1,8 +1,11 @@
 package redis.embedded;
 
 import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.metrics.InfoSnapshot;
+import redis.embedded.metrics.ProcessMetrics;
 
 import java.util.List;
+import java.util.Map;
 
 public interface Redis {
     boolean isActive();
@@ -14,4 +17,73 @@ public interface Redis {
     List<Integer> ports();
     
     List<Integer> tlsPorts();
+    
+    /**
+     * Opens a control connection to the first plain text port. The caller closes it.
+     */
+    default RedisConnection connect() throws EmbeddedRedisException {
+        if (ports().isEmpty()) {
+            throw new EmbeddedRedisException("Redis instance has no plain text port to connect to");
+        }
+        return RedisConnection.open(ports().getFirst());
+    }
+    
+    default String ping() throws EmbeddedRedisException {
+        try (RedisConnection connection = connect()) {
+            return connection.callString("PING");
+        }
+    }
+    
+    default Map<String, String> info(String section) throws EmbeddedRedisException {
+        try (RedisConnection connection = connect()) {
+            return connection.info(section);
+        }
+    }
+    
+    /**
+     * Reads the given sections, or all of them, parsed into typed fields.
+     */
+    default InfoSnapshot infoSnapshot(String... sections) throws EmbeddedRedisException {
+        try (RedisConnection connection = connect()) {
+            return InfoSnapshot.read(connection, sections);
+        }
+    }
+    
+    /**
+     * @return the resident set size in bytes, as {@code used_memory_rss} of {@code INFO memory} reports it. Sentinels
+     * do not report it.
+     */
+    default long usedMemoryRss() throws EmbeddedRedisException {
+        final String rss = info("memory").get("used_memory_rss");
+        if (rss == null) {
+            throw new EmbeddedRedisException("Redis instance on port " + ports() + " does not report its memory");
+        }
+        return Long.parseLong(rss);
+    }
+    
+    /**
+     * @return the process id of the running instance
+     */
+    default long pid() throws EmbeddedRedisException {
+        throw new EmbeddedRedisException("Redis instance on port " + ports() + " is not a single process");
+    }
+    
+    /**
+     * Reads what the kernel accounts to the instance's process, see {@link ProcessMetrics}. Linux only.
+     */
+    default ProcessMetrics processMetrics() throws EmbeddedRedisException {
+        return ProcessMetrics.read(pid());
+    }
+    
+    default void configSet(String parameter, String value) throws EmbeddedRedisException {
+        try (RedisConnection connection = connect()) {
+            connection.call("CONFIG", "SET", parameter, value);
+        }
+    }
+    
+    default void flushAll() throws EmbeddedRedisException {
+        try (RedisConnection connection = connect()) {
+            connection.call("FLUSHALL");
+        }
+    }
 }
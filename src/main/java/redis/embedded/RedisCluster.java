@@ -3,18 +3,47 @@ package redis.embedded;
 import com.google.common.collect.Lists;
 import redis.embedded.exceptions.EmbeddedRedisException;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class RedisCluster
         implements Redis {
+    private static final int DEFAULT_SLOT_BATCH_SIZE = 64;
+    private static final Duration DEFAULT_REPLICATION_TIMEOUT = Duration.ofSeconds(30);
+    private static final Duration DEFAULT_FAILOVER_TIMEOUT = Duration.ofMinutes(4);
+    
     private final List<Redis> sentinels = new LinkedList<>();
     private final List<Redis> servers = new LinkedList<>();
+    private final List<ReplicationGroup> replicationGroups = new LinkedList<>();
+    private final Map<String, Redis> namedServers = new LinkedHashMap<>();
+    private final RedisClusterBuilder builder;
+    private final boolean sharded;
     
     RedisCluster(List<Redis> sentinels, List<Redis> servers) {
+        this(sentinels, servers, new LinkedList<>(), null);
+    }
+    
+    RedisCluster(List<Redis> sentinels, List<Redis> servers, List<ReplicationGroup> replicationGroups,
+                 RedisClusterBuilder builder) {
+        this(sentinels, servers, replicationGroups, builder, new LinkedHashMap<>());
+    }
+    
+    RedisCluster(List<Redis> sentinels, List<Redis> servers, List<ReplicationGroup> replicationGroups,
+                 RedisClusterBuilder builder, Map<String, Redis> namedServers) {
+        this.namedServers.putAll(namedServers);
         this.servers.addAll(servers);
         this.sentinels.addAll(sentinels);
+        this.replicationGroups.addAll(replicationGroups);
+        this.builder = builder;
+        this.sharded = builder != null && builder.isSharded();
     }
     
     public static RedisClusterBuilder builder() {
@@ -38,21 +67,76 @@ public class RedisCluster
     
     @Override
     public void start() throws EmbeddedRedisException {
-        for (Redis redis : sentinels) {
-            redis.start();
+        // servers go first so that sentinels find every replica on their first INFO instead of the next periodic one
+        startAll(servers);
+        if (sharded) {
+            ShardedClusterManager.form(servers);
         }
-        for (Redis redis : servers) {
-            redis.start();
+        for (ReplicationGroup group : replicationGroups) {
+            ReplicationReadiness.awaitReplicas(group, replicationTimeout());
+        }
+        startAll(sentinels);
+        for (Redis sentinel : sentinels) {
+            for (ReplicationGroup group : replicationGroups) {
+                if (ReplicationReadiness.monitors(sentinel, group)) {
+                    ReplicationReadiness.awaitDiscovery(sentinel, group, replicationTimeout());
+                }
+            }
+        }
+    }
+    
+    private static void startAll(List<Redis> instances) {
+        if (instances.size() < 2) {
+            instances.forEach(Redis::start);
+            return;
+        }
+        final ExecutorService executor = Executors.newFixedThreadPool(instances.size(), r -> {
+            final Thread thread = new Thread(r, "RedisClusterStarter");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            final List<Future<?>> started = new ArrayList<>();
+            for (Redis redis : instances) {
+                started.add(executor.submit(redis::start));
+            }
+            EmbeddedRedisException failure = null;
+            for (Future<?> future : started) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (failure == null) {
+                        failure = e.getCause() instanceof EmbeddedRedisException
+                                ? (EmbeddedRedisException) e.getCause()
+                                : new EmbeddedRedisException("Failed to start cluster", e.getCause());
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new EmbeddedRedisException("Interrupted while starting cluster", e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        } finally {
+            executor.shutdown();
         }
     }
     
     @Override
     public void stop() throws EmbeddedRedisException {
-        for (Redis redis : sentinels) {
-            redis.stop();
-        }
-        for (Redis redis : servers) {
-            redis.stop();
+        try {
+            for (Redis redis : sentinels) {
+                redis.stop();
+            }
+            for (Redis redis : servers) {
+                redis.stop();
+            }
+        } finally {
+            if (builder != null) {
+                // reserving providers hold bound sockets for ports that were handed out but never spawned
+                builder.closePortProviders();
+            }
         }
     }
     
@@ -72,6 +156,64 @@ public class RedisCluster
         return ports;
     }
     
+    /**
+     * A cluster has no single control connection, connect to one of its {@link #servers()} or {@link #sentinels()}.
+     */
+    @Override
+    public RedisConnection connect() throws EmbeddedRedisException {
+        throw new EmbeddedRedisException("A cluster has no single control connection, connect to one of its members");
+    }
+    
+    /**
+     * Pings every sentinel and server.
+     */
+    @Override
+    public String ping() throws EmbeddedRedisException {
+        String reply = null;
+        for (Redis redis : sentinels) {
+            reply = redis.ping();
+        }
+        for (Redis redis : servers) {
+            reply = redis.ping();
+        }
+        return reply;
+    }
+    
+    /**
+     * @return the resident set size of all servers together, sentinels do not report theirs
+     */
+    @Override
+    public long usedMemoryRss() throws EmbeddedRedisException {
+        long rss = 0;
+        for (Redis redis : servers) {
+            rss += redis.usedMemoryRss();
+        }
+        return rss;
+    }
+    
+    /**
+     * Sets the parameter on every server, sentinels have their own configuration.
+     */
+    @Override
+    public void configSet(String parameter, String value) throws EmbeddedRedisException {
+        for (Redis redis : servers) {
+            redis.configSet(parameter, value);
+        }
+    }
+    
+    /**
+     * Flushes every server that accepts writes, replicas follow their masters.
+     */
+    @Override
+    public void flushAll() throws EmbeddedRedisException {
+        for (Redis redis : servers) {
+            final ReplicationGroup group = groupOf(redis);
+            if (group == null || group.master() == redis) {
+                redis.flushAll();
+            }
+        }
+    }
+    
     public List<Redis> sentinels() {
         return Lists.newLinkedList(sentinels);
     }
@@ -111,4 +253,296 @@ public class RedisCluster
         }
         return ports;
     }
+    
+    /**
+     * @return the server of a {@link RedisTopology} with the given name
+     */
+    public Redis server(String name) {
+        final Redis server = namedServers.get(name);
+        if (server == null) {
+            throw new EmbeddedRedisException("No server named " + name);
+        }
+        return server;
+    }
+    
+    public List<ReplicationGroup> replicationGroups() {
+        return Lists.newLinkedList(replicationGroups);
+    }
+    
+    public ReplicationGroup replicationGroup(String masterName) {
+        for (ReplicationGroup group : replicationGroups) {
+            if (group.masterName().equals(masterName)) {
+                return group;
+            }
+        }
+        throw new EmbeddedRedisException("No replication group named " + masterName);
+    }
+    
+    public FailoverReport failover(String masterName, FailoverMode mode) {
+        return failover(masterName, mode, failoverTimeout());
+    }
+    
+    /**
+     * Measures lost writes by incrementing the key {@code embedded-redis:failover-probe} on the old master, which is
+     * deleted again from the master of the group when the failover finishes. A master killed by
+     * {@link FailoverMode#KILL} is started again as a replica of the new one.
+     */
+    public synchronized FailoverReport failover(String masterName, FailoverMode mode, Duration timeout) {
+        final ReplicationGroup group = replicationGroup(masterName);
+        for (Redis sentinel : sentinels) {
+            if (ReplicationReadiness.monitors(sentinel, group)) {
+                final FailoverReport report = FailoverOrchestrator.failover(group, sentinel, mode, timeout);
+                if (mode == FailoverMode.KILL) {
+                    rejoin(group, report.oldMaster());
+                }
+                return report;
+            }
+        }
+        throw new EmbeddedRedisException("Failover requires a sentinel monitoring " + masterName);
+    }
+    
+    private void rejoin(ReplicationGroup group, Redis killedMaster) {
+        // it is listed among the replicas now, down it would hold up every later wait for replicas or sentinels
+        if (!(killedMaster instanceof AbstractRedisInstance)) {
+            throw new EmbeddedRedisException("Can not restart " + killedMaster.ports() + " as a replica");
+        }
+        ((AbstractRedisInstance) killedMaster).startAsReplicaOf(group.master().ports().getFirst());
+        ReplicationReadiness.awaitReplica(group, killedMaster, replicationTimeout());
+        awaitDiscovery(group);
+    }
+    
+    public synchronized RedisServer addReplica(String masterName) {
+        requireBuilder();
+        final ReplicationGroup group = replicationGroup(masterName);
+        final RedisServer replica = builder.buildReplica(group.master());
+        replica.start();
+        servers.add(replica);
+        group.addReplica(replica);
+        ReplicationReadiness.awaitReplica(group, replica, replicationTimeout());
+        awaitDiscovery(group);
+        return replica;
+    }
+    
+    public synchronized void removeReplica(Redis replica) {
+        final ReplicationGroup group = groupOf(replica);
+        if (group == null || !group.replicas().contains(replica)) {
+            throw new EmbeddedRedisException("Server is not a replica of this cluster: " + replica.ports());
+        }
+        if (!group.replicasOf(replica).isEmpty()) {
+            throw new EmbeddedRedisException("Replica " + replica.ports() + " has replicas of its own");
+        }
+        replica.stop();
+        servers.remove(replica);
+        group.removeReplica(replica);
+        // sentinels never forget a replica by themselves, it would stay listed as down
+        resetSentinels(group.masterName());
+        // the reset also drops the known peers, until then a failover can not reach its quorum
+        awaitSentinels();
+    }
+    
+    public synchronized RedisSentinel addSentinel() {
+        requireBuilder();
+        final RedisSentinel sentinel = builder.buildSentinel(replicationGroups);
+        sentinel.start();
+        sentinels.add(sentinel);
+        awaitSentinels();
+        return sentinel;
+    }
+    
+    public synchronized void removeSentinel(Redis sentinel) {
+        if (!sentinels.contains(sentinel)) {
+            throw new EmbeddedRedisException("Sentinel is not a member of this cluster: " + sentinel.ports());
+        }
+        sentinel.stop();
+        sentinels.remove(sentinel);
+        resetSentinels("*");
+        awaitSentinels();
+    }
+    
+    public boolean isSharded() {
+        return sharded;
+    }
+    
+    public synchronized List<Integer> slots(Redis master) {
+        requireSharded();
+        return ShardedClusterManager.slotsOf(master);
+    }
+    
+    /**
+     * @return the hash slot of {@code key}, honouring hash tags
+     */
+    public static int hashSlot(byte[] key) {
+        return HashSlots.of(key);
+    }
+    
+    public synchronized RedisServer addMaster() {
+        requireSharded();
+        final RedisServer master = builder.buildShardNode();
+        master.start();
+        try {
+            ShardedClusterManager.join(servers, master);
+        } catch (RuntimeException e) {
+            // not a member yet, stop() of the cluster would leave it running
+            master.stop();
+            throw e;
+        }
+        servers.add(master);
+        return master;
+    }
+    
+    public SlotMigrationReport migrateSlots(Redis source, Redis target, int firstSlot, int lastSlot) {
+        return migrateSlots(source, target, firstSlot, lastSlot, DEFAULT_SLOT_BATCH_SIZE, SlotMigrationListener.NONE);
+    }
+    
+    public synchronized SlotMigrationReport migrateSlots(Redis source, Redis target, int firstSlot, int lastSlot,
+                                                         int batchSize, SlotMigrationListener listener) {
+        requireSharded();
+        requireMember(source);
+        requireMember(target);
+        final List<Integer> slots = new ArrayList<>();
+        for (int slot : ShardedClusterManager.slotsOf(source)) {
+            if (slot >= firstSlot && slot <= lastSlot) {
+                slots.add(slot);
+            }
+        }
+        final SlotMigrationRecorder recorder = new SlotMigrationRecorder(listener, slots.size());
+        ShardedClusterManager.migrate(servers, source, target, slots, batchSize, recorder);
+        return recorder.report();
+    }
+    
+    public SlotMigrationReport rebalance() {
+        return rebalance(SlotMigrationListener.NONE);
+    }
+    
+    public synchronized SlotMigrationReport rebalance(SlotMigrationListener listener) {
+        requireSharded();
+        final Map<Redis, List<Integer>> owned = new LinkedHashMap<>();
+        for (Redis master : servers) {
+            owned.put(master, ShardedClusterManager.slotsOf(master));
+        }
+        final Map<Redis, Integer> balance = new LinkedHashMap<>();
+        int toMove = 0;
+        int index = 0;
+        for (Map.Entry<Redis, List<Integer>> entry : owned.entrySet()) {
+            final int share = ShardedClusterManager.SLOT_COUNT / servers.size()
+                    + (index++ < ShardedClusterManager.SLOT_COUNT % servers.size() ? 1 : 0);
+            final int excess = entry.getValue().size() - share;
+            balance.put(entry.getKey(), excess);
+            toMove += Math.max(0, excess);
+        }
+        final SlotMigrationRecorder recorder = new SlotMigrationRecorder(listener, toMove);
+        for (Map.Entry<Redis, Integer> donor : balance.entrySet()) {
+            final List<Integer> slots = owned.get(donor.getKey());
+            List<Integer> excess = slots.subList(slots.size() - Math.max(0, donor.getValue()), slots.size());
+            for (Map.Entry<Redis, Integer> receiver : balance.entrySet()) {
+                if (excess.isEmpty()) {
+                    break;
+                }
+                if (receiver.getValue() >= 0) {
+                    continue;
+                }
+                final int count = Math.min(-receiver.getValue(), excess.size());
+                ShardedClusterManager.migrate(servers, donor.getKey(), receiver.getKey(),
+                        new ArrayList<>(excess.subList(0, count)), DEFAULT_SLOT_BATCH_SIZE, recorder);
+                receiver.setValue(receiver.getValue() + count);
+                excess = excess.subList(count, excess.size());
+            }
+        }
+        return recorder.report();
+    }
+    
+    public SlotMigrationReport removeNode(Redis master) {
+        return removeNode(master, SlotMigrationListener.NONE);
+    }
+    
+    public synchronized SlotMigrationReport removeNode(Redis master, SlotMigrationListener listener) {
+        requireSharded();
+        requireMember(master);
+        final List<Redis> remaining = new ArrayList<>(servers);
+        remaining.remove(master);
+        if (remaining.isEmpty()) {
+            throw new EmbeddedRedisException("Can not remove the last master of a sharded cluster");
+        }
+        final List<Integer> slots = ShardedClusterManager.slotsOf(master);
+        final SlotMigrationRecorder recorder = new SlotMigrationRecorder(listener, slots.size());
+        for (int i = 0; i < remaining.size(); i++) {
+            final List<Integer> share = slots.subList(i * slots.size() / remaining.size(),
+                    (i + 1) * slots.size() / remaining.size());
+            if (!share.isEmpty()) {
+                ShardedClusterManager.migrate(servers, master, remaining.get(i), new ArrayList<>(share),
+                        DEFAULT_SLOT_BATCH_SIZE, recorder);
+            }
+        }
+        ShardedClusterManager.forget(servers, master);
+        master.stop();
+        servers.remove(master);
+        return recorder.report();
+    }
+    
+    private void resetSentinels(String pattern) {
+        for (Redis sentinel : sentinels) {
+            try (RedisConnection connection = RedisConnection.open(sentinel.ports().getFirst())) {
+                connection.call("SENTINEL", "RESET", pattern);
+            }
+        }
+    }
+    
+    private void awaitDiscovery(ReplicationGroup group) {
+        for (Redis sentinel : sentinels) {
+            if (ReplicationReadiness.monitors(sentinel, group)) {
+                ReplicationReadiness.awaitDiscovery(sentinel, group, replicationTimeout());
+            }
+        }
+    }
+    
+    private void awaitSentinels() {
+        // sentinels find each other through hello messages on the masters, which a failover relies on
+        for (ReplicationGroup group : replicationGroups) {
+            final List<Redis> monitoring = new ArrayList<>();
+            for (Redis sentinel : sentinels) {
+                if (ReplicationReadiness.monitors(sentinel, group)) {
+                    monitoring.add(sentinel);
+                }
+            }
+            for (Redis sentinel : monitoring) {
+                ReplicationReadiness.awaitPeers(sentinel, group, monitoring.size() - 1, replicationTimeout());
+                ReplicationReadiness.awaitDiscovery(sentinel, group, replicationTimeout());
+            }
+        }
+    }
+    
+    private ReplicationGroup groupOf(Redis server) {
+        for (ReplicationGroup group : replicationGroups) {
+            if (group.master() == server || group.replicas().contains(server)) {
+                return group;
+            }
+        }
+        return null;
+    }
+    
+    private Duration replicationTimeout() {
+        return builder != null ? builder.replicationTimeout() : DEFAULT_REPLICATION_TIMEOUT;
+    }
+    
+    private Duration failoverTimeout() {
+        return builder != null ? builder.failoverTimeout() : DEFAULT_FAILOVER_TIMEOUT;
+    }
+    
+    private void requireBuilder() {
+        if (builder == null) {
+            throw new EmbeddedRedisException("This operation requires a cluster built with RedisClusterBuilder");
+        }
+    }
+    
+    private void requireSharded() {
+        if (!sharded) {
+            throw new EmbeddedRedisException("This operation requires a sharded cluster, see RedisClusterBuilder.shards(int)");
+        }
+    }
+    
+    private void requireMember(Redis server) {
+        if (!servers.contains(server)) {
+            throw new EmbeddedRedisException("Server is not a member of this cluster: " + server.ports());
+        }
+    }
 }
@@ -1,22 +1,43 @@
 package redis.embedded;
 
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.exceptions.RedisBuildingException;
 import redis.embedded.ports.EphemeralPortProvider;
+import redis.embedded.ports.LeasedPortProvider;
 import redis.embedded.ports.PredefinedPortProvider;
+import redis.embedded.ports.ReservingPortProvider;
 import redis.embedded.ports.SequencePortProvider;
 
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class RedisClusterBuilder {
-    private final List<ReplicationGroup> groups = new LinkedList<>();
+    private static final int CLUSTER_BUS_PORT_OFFSET = 10000;
+    private static final int MAX_PORT = 65535;
+    
+    private final List<GroupDefinition> groups = new LinkedList<>();
     private RedisSentinelBuilder sentinelBuilder = new RedisSentinelBuilder();
     private RedisServerBuilder serverBuilder = new RedisServerBuilder();
     private int sentinelCount = 1;
     private int quorumSize = 1;
     private PortProvider sentinelPortProvider = new SequencePortProvider(26379);
     private PortProvider replicationGroupPortProvider = new SequencePortProvider(6379);
+    private int shardCount = 0;
+    private long clusterNodeTimeout = 5000L;
+    private boolean disklessSync = true;
+    private Duration replicationTimeout = Duration.ofSeconds(30);
+    private RedisTopology topology;
+    private boolean highDensity = false;
     
     public RedisClusterBuilder withSentinelBuilder(RedisSentinelBuilder sentinelBuilder) {
         this.sentinelBuilder = sentinelBuilder;
@@ -56,6 +77,38 @@ public class RedisClusterBuilder {
         return this;
     }
     
+    public RedisClusterBuilder reservingSentinels() {
+        this.sentinelPortProvider = new ReservingPortProvider(26379);
+        return this;
+    }
+    
+    public RedisClusterBuilder reservingServers() {
+        this.replicationGroupPortProvider = new ReservingPortProvider(6379);
+        return this;
+    }
+    
+    public RedisClusterBuilder reserving() {
+        reservingSentinels();
+        reservingServers();
+        return this;
+    }
+    
+    public RedisClusterBuilder leasedSentinels() {
+        this.sentinelPortProvider = new LeasedPortProvider(26379);
+        return this;
+    }
+    
+    public RedisClusterBuilder leasedServers() {
+        this.replicationGroupPortProvider = new LeasedPortProvider(6379);
+        return this;
+    }
+    
+    public RedisClusterBuilder leased() {
+        leasedSentinels();
+        leasedServers();
+        return this;
+    }
+    
     public RedisClusterBuilder sentinelCount(int sentinelCount) {
         this.sentinelCount = sentinelCount;
         return this;
@@ -72,76 +125,286 @@ public class RedisClusterBuilder {
     }
     
     public RedisClusterBuilder replicationGroup(String masterName, int slaveCount) {
-        this.groups.add(new ReplicationGroup(masterName, slaveCount, this.replicationGroupPortProvider));
+        this.groups.add(new GroupDefinition(masterName, slaveCount, this.replicationGroupPortProvider));
+        return this;
+    }
+    
+    public RedisClusterBuilder topology(RedisTopology topology) {
+        this.topology = topology;
+        return this;
+    }
+    
+    public RedisClusterBuilder shards(int masterCount) {
+        this.shardCount = masterCount;
+        return this;
+    }
+    
+    public RedisClusterBuilder clusterNodeTimeout(long clusterNodeTimeout) {
+        this.clusterNodeTimeout = clusterNodeTimeout;
+        return this;
+    }
+    
+    public RedisClusterBuilder disklessSync(boolean disklessSync) {
+        this.disklessSync = disklessSync;
+        return this;
+    }
+    
+    /**
+     * Builds every server and sentinel, including those added later, in high density mode, see
+     * {@link RedisServerBuilder#highDensity()}.
+     */
+    public RedisClusterBuilder highDensity() {
+        this.highDensity = true;
+        return this;
+    }
+    
+    public RedisClusterBuilder replicationTimeout(Duration replicationTimeout) {
+        this.replicationTimeout = replicationTimeout;
         return this;
     }
     
     public RedisCluster build() {
+        if (highDensity) {
+            // the flags survive reset(), so nodes added to the running cluster get them too
+            serverBuilder.highDensity();
+            sentinelBuilder.highDensity();
+        }
+        if (topology != null) {
+            return buildTopology();
+        }
+        if (shardCount > 0) {
+            return buildSharded();
+        }
         final List<Redis> sentinels = buildSentinels();
-        final List<Redis> servers = buildServers();
-        return new RedisCluster(sentinels, servers);
+        final List<ReplicationGroup> replicationGroups = buildReplicationGroups();
+        final List<Redis> servers = new ArrayList<>();
+        for (ReplicationGroup group : replicationGroups) {
+            servers.add(group.master());
+            servers.addAll(group.replicas());
+        }
+        return new RedisCluster(sentinels, servers, replicationGroups, this);
     }
     
-    private List<Redis> buildServers() {
-        List<Redis> servers = new ArrayList<>();
-        for (ReplicationGroup g : groups) {
-            servers.add(buildMaster(g));
-            buildSlaves(servers, g);
+    Duration replicationTimeout() {
+        return replicationTimeout;
+    }
+    
+    Duration failoverTimeout() {
+        // a sentinel needs down-after-milliseconds to notice a dead master and at most failover-timeout to replace it
+        return Duration.ofMillis(sentinelBuilder.downAfterMilliseconds() + sentinelBuilder.failoverTimeout());
+    }
+    
+    /**
+     * Gives back the ports still held by reserving or leasing port providers, which keep working for nodes added
+     * afterwards.
+     */
+    void closePortProviders() {
+        final Set<PortProvider> providers = new LinkedHashSet<>();
+        providers.add(sentinelPortProvider);
+        providers.add(replicationGroupPortProvider);
+        for (GroupDefinition group : groups) {
+            providers.add(group.portProvider);
+        }
+        for (PortProvider provider : providers) {
+            if (provider instanceof Closeable) {
+                try {
+                    ((Closeable) provider).close();
+                } catch (IOException e) {
+                    throw new EmbeddedRedisException("Could not close port provider", e);
+                }
+            }
         }
-        return servers;
     }
     
-    private void buildSlaves(List<Redis> servers, ReplicationGroup g) {
+    private RedisCluster buildSharded() {
+        if (!groups.isEmpty()) {
+            throw new RedisBuildingException("Replication groups can not be combined with a sharded cluster!");
+        }
+        final List<Redis> servers = new ArrayList<>();
+        for (int i = 0; i < shardCount; i++) {
+            servers.add(buildShardNode());
+        }
+        return new RedisCluster(new LinkedList<>(), servers, new LinkedList<>(), this);
+    }
+    
+    private RedisCluster buildTopology() {
+        if (!groups.isEmpty() || shardCount > 0) {
+            throw new RedisBuildingException("A topology can not be combined with replication groups or shards!");
+        }
+        final Map<String, RedisServer> named = new LinkedHashMap<>();
+        final Map<String, Redis> masters = new LinkedHashMap<>();
+        final Map<String, List<Redis>> replicas = new LinkedHashMap<>();
+        final Map<Redis, Redis> upstreams = new LinkedHashMap<>();
+        for (RedisTopology.ServerNode node : topology.servers()) {
+            resetServerBuilder();
+            // an override changes its own node only, not the ones built after it
+            final RedisServerBuilder nodeBuilder = serverBuilder.copy();
+            nodeBuilder.port(replicationGroupPortProvider.next());
+            nodeBuilder.portProvider(replicationGroupPortProvider);
+            final RedisServer upstream = node.upstream != null ? named.get(node.upstream) : null;
+            if (upstream != null) {
+                // the replica is configured with the port of its upstream, which therefore must not move
+                upstream.pinPort();
+                nodeBuilder.slaveOf("localhost", upstream.ports().getFirst());
+            }
+            node.override.accept(nodeBuilder);
+            final RedisServer server = nodeBuilder.build();
+            named.put(node.name, server);
+            if (upstream == null) {
+                // so are the sentinels with the port of a master
+                server.pinPort();
+                masters.put(node.masterName, server);
+                replicas.put(node.masterName, new ArrayList<>());
+            } else {
+                replicas.get(node.masterName).add(server);
+                upstreams.put(server, upstream);
+            }
+        }
+        final List<ReplicationGroup> replicationGroups = new ArrayList<>();
+        for (Map.Entry<String, Redis> master : masters.entrySet()) {
+            replicationGroups.add(new ReplicationGroup(master.getKey(), master.getValue(),
+                    replicas.get(master.getKey()), upstreams));
+        }
+        final List<Redis> sentinels = new LinkedList<>();
+        final List<List<String>> monitored = topology.sentinels();
+        final List<Integer> sentinelPorts = sentinelPortProvider.next(monitored.size());
+        for (int i = 0; i < monitored.size(); i++) {
+            final Map<String, Integer> masterPorts = new LinkedHashMap<>();
+            for (String masterName : monitored.get(i)) {
+                masterPorts.put(masterName, masters.get(masterName).ports().getFirst());
+            }
+            sentinels.add(buildSentinel(sentinelPorts.get(i), masterPorts));
+        }
+        return new RedisCluster(sentinels, new ArrayList<>(named.values()), replicationGroups, this,
+                new LinkedHashMap<>(named));
+    }
+    
+    boolean isSharded() {
+        return shardCount > 0;
+    }
+    
+    RedisServer buildShardNode() {
+        final int port = replicationGroupPortProvider.next();
+        if (port + CLUSTER_BUS_PORT_OFFSET > MAX_PORT) {
+            throw new RedisBuildingException("Port " + port + " leaves no room for the cluster bus port");
+        }
+        final String nodesFile = "nodes-" + port + ".conf";
+        serverBuilder.reset();
+        final RedisServer node = serverBuilder.port(port)
+                .portProvider(replicationGroupPortProvider)
+                .setting("cluster-enabled yes")
+                .setting("cluster-config-file " + nodesFile)
+                .setting("cluster-node-timeout " + clusterNodeTimeout)
+                .build();
+        // a nodes file left behind by a previous run would make the node rejoin its old cluster
+        new File(node.dataDirectory(), nodesFile).delete();
+        // the bus port was checked and the nodes file named for this port
+        node.pinPort();
+        return node;
+    }
+    
+    private List<ReplicationGroup> buildReplicationGroups() {
+        final List<ReplicationGroup> replicationGroups = new ArrayList<>();
+        for (GroupDefinition g : groups) {
+            final Redis master = buildMaster(g);
+            replicationGroups.add(new ReplicationGroup(g.masterName, master, buildSlaves(g)));
+        }
+        return replicationGroups;
+    }
+    
+    private List<Redis> buildSlaves(GroupDefinition g) {
+        final List<Redis> slaves = new ArrayList<>();
         for (Integer slavePort : g.slavePorts) {
-            serverBuilder.reset();
+            resetServerBuilder();
             serverBuilder.port(slavePort);
+            serverBuilder.portProvider(g.portProvider);
             serverBuilder.slaveOf("localhost", g.masterPort);
             final RedisServer slave = serverBuilder.build();
-            servers.add(slave);
+            slaves.add(slave);
         }
+        return slaves;
+    }
+    
+    RedisServer buildReplica(Redis master) {
+        resetServerBuilder();
+        serverBuilder.port(replicationGroupPortProvider.next());
+        serverBuilder.portProvider(replicationGroupPortProvider);
+        serverBuilder.slaveOf("localhost", master.ports().getFirst());
+        return serverBuilder.build();
     }
     
-    private Redis buildMaster(ReplicationGroup g) {
+    private Redis buildMaster(GroupDefinition g) {
+        resetServerBuilder();
+        final RedisServer master = serverBuilder.port(g.masterPort).portProvider(g.portProvider).build();
+        // replicas and sentinels are configured with the port of the master
+        master.pinPort();
+        return master;
+    }
+    
+    private void resetServerBuilder() {
         serverBuilder.reset();
-        return serverBuilder.port(g.masterPort).build();
+        if (disklessSync) {
+            // every server of a group may be promoted, so replicas get the same settings as their master
+            serverBuilder.setting("repl-diskless-sync yes");
+            serverBuilder.setting("repl-diskless-sync-delay 0");
+        }
     }
     
     private List<Redis> buildSentinels() {
-        int toBuild = this.sentinelCount;
         final List<Redis> sentinels = new LinkedList<>();
-        while (toBuild-- > 0) {
-            sentinels.add(buildSentinel());
+        for (int port : sentinelPortProvider.next(sentinelCount)) {
+            sentinels.add(buildSentinel(port));
         }
         return sentinels;
     }
     
-    private Redis buildSentinel() {
+    private Redis buildSentinel(int port) {
+        final Map<String, Integer> masters = new LinkedHashMap<>();
+        for (GroupDefinition g : groups) {
+            masters.put(g.masterName, g.masterPort);
+        }
+        return buildSentinel(port, masters);
+    }
+    
+    RedisSentinel buildSentinel(List<ReplicationGroup> replicationGroups) {
+        // masters may have been failed over since the cluster was built
+        final Map<String, Integer> masters = new LinkedHashMap<>();
+        for (ReplicationGroup group : replicationGroups) {
+            masters.put(group.masterName(), group.master().ports().getFirst());
+        }
+        return buildSentinel(sentinelPortProvider.next(), masters);
+    }
+    
+    private RedisSentinel buildSentinel(int port, Map<String, Integer> masters) {
         sentinelBuilder.reset();
-        sentinelBuilder.port(nextSentinelPort());
-        for (ReplicationGroup g : groups) {
-            sentinelBuilder.masterName(g.masterName);
-            sentinelBuilder.masterPort(g.masterPort);
-            sentinelBuilder.quorumSize(quorumSize);
+        sentinelBuilder.port(port);
+        sentinelBuilder.portProvider(sentinelPortProvider);
+        for (Map.Entry<String, Integer> master : masters.entrySet()) {
+            sentinelBuilder.masterName(master.getKey());
+            sentinelBuilder.masterPort(master.getValue());
+            sentinelBuilder.quorumSize(quorum(master.getKey()));
             sentinelBuilder.addDefaultReplicationGroup();
         }
         return sentinelBuilder.build();
     }
     
-    private int nextSentinelPort() {
-        return sentinelPortProvider.next();
+    private int quorum(String masterName) {
+        final Integer groupQuorum = topology != null ? topology.quorum(masterName) : null;
+        return groupQuorum != null ? groupQuorum : quorumSize;
     }
     
-    private static class ReplicationGroup {
+    private static class GroupDefinition {
         private final String masterName;
         private final int masterPort;
         private final List<Integer> slavePorts = new LinkedList<>();
+        private final PortProvider portProvider;
         
-        private ReplicationGroup(String masterName, int slaveCount, PortProvider portProvider) {
+        private GroupDefinition(String masterName, int slaveCount, PortProvider portProvider) {
             this.masterName = masterName;
-            masterPort = portProvider.next();
-            while (slaveCount-- > 0) {
-                slavePorts.add(portProvider.next());
-            }
+            this.portProvider = portProvider;
+            final List<Integer> ports = portProvider.next(slaveCount + 1);
+            masterPort = ports.getFirst();
+            slavePorts.addAll(ports.subList(1, ports.size()));
         }
     }
 }
@@ -0,0 +1,574 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.exceptions.RedisCommandException;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Small RESP2/RESP3 client used to control the instances this library starts, on a non-blocking
+ * {@link SocketChannel}.
+ * <p>
+ * Commands are encoded straight into a direct buffer and replies are parsed out of another one. Both buffers come from
+ * a pool shared by all connections, because control traffic opens many short-lived connections. Replies are decoded as
+ * {@code String} (simple strings), {@code Long} (integers), {@code byte[]} (bulk and verbatim strings),
+ * {@code List<Object>} (arrays, sets and pushes), {@code Map<Object, Object>} (maps, with bulk string keys decoded to
+ * {@code String}), {@code Boolean}, {@code Double}, {@code BigInteger} or {@code null}. Error replies are thrown as
+ * {@link RedisCommandException} by {@link #call(Object...)} and returned in place by {@link #pipeline(List)}.
+ * {@link #callBulk(Consumer, Object...)} hands bulk strings out without copying them.
+ * <p>
+ * Connections are not thread safe.
+ */
+public final class RedisConnection
+        implements Closeable {
+    private static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(5);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_POOLED_BUFFERS = 32;
+    private static final Queue<ByteBuffer> BUFFER_POOL = new ConcurrentLinkedQueue<>();
+    private static final AtomicInteger POOLED_BUFFERS = new AtomicInteger();
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    
+    private final SocketChannel channel;
+    private final Selector selector;
+    private final SelectionKey key;
+    private final ByteBuffer out;
+    private final ByteBuffer in;
+    private final byte[] digits = new byte[20];
+    private byte[] line = new byte[128];
+    private long timeoutMillis;
+    private long bytesWritten = 0;
+    private boolean closed = false;
+    
+    private RedisConnection(SocketChannel channel, Selector selector, SelectionKey key, Duration timeout) {
+        this.channel = channel;
+        this.selector = selector;
+        this.key = key;
+        this.out = acquireBuffer();
+        this.in = acquireBuffer();
+        // the receive buffer is kept in read mode, empty until the first fill
+        this.in.limit(0);
+        timeout(timeout);
+    }
+    
+    public static RedisConnection open(int port) {
+        return open(port, DEFAULT_TIMEOUT);
+    }
+    
+    public static RedisConnection open(int port, Duration timeout) {
+        SocketChannel channel = null;
+        Selector selector = null;
+        try {
+            channel = SocketChannel.open();
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            selector = Selector.open();
+            final SelectionKey key = channel.register(selector, SelectionKey.OP_CONNECT);
+            if (!channel.connect(new InetSocketAddress(InetAddress.getLoopbackAddress(), port))) {
+                if (selector.select(Math.max(1, timeout.toMillis())) == 0) {
+                    throw new SocketTimeoutException("Timed out connecting after " + timeout);
+                }
+                selector.selectedKeys().clear();
+                channel.finishConnect();
+            }
+            return new RedisConnection(channel, selector, key, timeout);
+        } catch (IOException e) {
+            closeQuietly(channel);
+            closeQuietly(selector);
+            throw new EmbeddedRedisException("Could not connect to redis instance on port " + port, e);
+        }
+    }
+    
+    public Object call(Object... args) {
+        send(args);
+        flush();
+        final Object reply = read();
+        if (reply instanceof RedisCommandException) {
+            throw (RedisCommandException) reply;
+        }
+        return reply;
+    }
+    
+    public String callString(Object... args) {
+        return asString(call(args));
+    }
+    
+    public long callLong(Object... args) {
+        return (Long) call(args);
+    }
+    
+    /**
+     * Sends a command with a bulk string reply and passes the reply to {@code consumer} as read-only views of the
+     * receive buffer, in as many chunks as it takes. The views are only valid during the callback.
+     *
+     * @return the length of the reply, or -1 for a null reply
+     */
+    public long callBulk(Consumer<ByteBuffer> consumer, Object... args) {
+        send(args);
+        flush();
+        try {
+            final int type = readByte();
+            if (type != '$' && type != '=') {
+                // the type byte is still in the buffer, so the reply can be consumed as a whole
+                in.position(in.position() - 1);
+                final Object reply = readReply();
+                if (reply instanceof RedisCommandException) {
+                    throw (RedisCommandException) reply;
+                }
+                throw new EmbeddedRedisException("Expected a bulk string reply but got " + reply);
+            }
+            final long length = readLong();
+            if (length < 0) {
+                return -1;
+            }
+            long remaining = length;
+            while (remaining > 0) {
+                if (!in.hasRemaining()) {
+                    fill();
+                }
+                final int chunk = (int) Math.min(in.remaining(), remaining);
+                final ByteBuffer view = in.slice(in.position(), chunk).asReadOnlyBuffer();
+                in.position(in.position() + chunk);
+                remaining -= chunk;
+                consumer.accept(view);
+            }
+            readCrlf();
+            return length;
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Failed to read reply", e);
+        }
+    }
+    
+    /**
+     * Switches the connection to the given protocol version with {@code HELLO} and returns the server's reply.
+     */
+    public Object hello(int protocolVersion) {
+        return call("HELLO", protocolVersion);
+    }
+    
+    public Map<String, String> info(String section) {
+        final Map<String, String> info = new LinkedHashMap<>();
+        for (String line : callString("INFO", section).split("\r\n")) {
+            final int colon = line.indexOf(':');
+            if (colon > 0 && !line.startsWith("#")) {
+                info.put(line.substring(0, colon), line.substring(colon + 1));
+            }
+        }
+        return info;
+    }
+    
+    public List<Object> pipeline(List<Object[]> commands) {
+        for (Object[] command : commands) {
+            send(command);
+        }
+        flush();
+        final List<Object> replies = new ArrayList<>(commands.size());
+        for (int i = 0; i < commands.size(); i++) {
+            replies.add(read());
+        }
+        return replies;
+    }
+    
+    /**
+     * Encodes a command into the send buffer, which is only written to the socket when it fills up or on
+     * {@link #flush()}. Arguments may be {@code byte[]}, {@code ByteBuffer}, integral numbers or anything else, which
+     * is sent as its UTF-8 {@code toString()}.
+     */
+    public void send(Object... args) {
+        try {
+            writeHeader('*', args.length);
+            for (Object arg : args) {
+                writeArgument(arg);
+            }
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Failed to send command", e);
+        }
+    }
+    
+    /**
+     * Appends a command that is already encoded as a RESP array to the send buffer, see {@link #send(Object...)}.
+     */
+    public void sendEncoded(ByteBuffer command) {
+        try {
+            writeBytes(command.duplicate());
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Failed to send command", e);
+        }
+    }
+    
+    public void flush() {
+        try {
+            writeOut();
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Failed to send command", e);
+        }
+    }
+    
+    public Object read() {
+        try {
+            return readReply();
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Failed to read reply", e);
+        }
+    }
+    
+    /**
+     * @return the number of bytes written to the socket so far
+     */
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+    
+    public void timeout(Duration timeout) {
+        // a select timeout of 0 would block forever
+        this.timeoutMillis = Math.max(1, timeout.toMillis());
+    }
+    
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        closeQuietly(selector);
+        closeQuietly(channel);
+        releaseBuffer(out);
+        releaseBuffer(in);
+    }
+    
+    public static String asString(Object reply) {
+        if (reply instanceof byte[]) {
+            return new String((byte[]) reply, StandardCharsets.UTF_8);
+        }
+        return reply == null ? null : reply.toString();
+    }
+    
+    private Object readReply() throws IOException {
+        final int type = readByte();
+        switch (type) {
+            case '+':
+                return readLine();
+            case '-':
+                return new RedisCommandException(readLine());
+            case ':':
+                return readLong();
+            case '$':
+                return readBulk(readLong());
+            case '*':
+            case '~':
+            case '>':
+                return readArray(readLong());
+            case '%':
+                return readMap(readLong());
+            case '|':
+                // attributes describe the reply that follows them
+                readMap(readLong());
+                return readReply();
+            case '_':
+                readCrlf();
+                return null;
+            case '#':
+                final boolean value = readByte() == 't';
+                readCrlf();
+                return value;
+            case ',':
+                return parseDouble(readLine());
+            case '(':
+                return new BigInteger(readLine());
+            case '=':
+                final byte[] verbatim = readBulk(readLong());
+                // a three letter format and a colon precede the text
+                return verbatim == null || verbatim.length < 4 ? verbatim : Arrays.copyOfRange(verbatim, 4, verbatim.length);
+            case '!':
+                return new RedisCommandException(asString(readBulk(readLong())));
+            default:
+                throw new IOException("Unexpected reply type: " + (char) type);
+        }
+    }
+    
+    private List<Object> readArray(long length) throws IOException {
+        if (length < 0) {
+            return null;
+        }
+        final List<Object> array = new ArrayList<>((int) length);
+        for (long i = 0; i < length; i++) {
+            array.add(readReply());
+        }
+        return array;
+    }
+    
+    private Map<Object, Object> readMap(long length) throws IOException {
+        if (length < 0) {
+            return null;
+        }
+        final Map<Object, Object> map = new LinkedHashMap<>();
+        for (long i = 0; i < length; i++) {
+            final Object key = readReply();
+            map.put(key instanceof byte[] ? asString(key) : key, readReply());
+        }
+        return map;
+    }
+    
+    private byte[] readBulk(long length) throws IOException {
+        if (length < 0) {
+            return null;
+        }
+        final byte[] bulk = new byte[(int) length];
+        int offset = 0;
+        while (offset < bulk.length) {
+            if (!in.hasRemaining()) {
+                fill();
+            }
+            final int chunk = Math.min(in.remaining(), bulk.length - offset);
+            in.get(bulk, offset, chunk);
+            offset += chunk;
+        }
+        readCrlf();
+        return bulk;
+    }
+    
+    private long readLong() throws IOException {
+        int b = readByte();
+        final boolean negative = b == '-';
+        if (negative) {
+            b = readByte();
+        }
+        long value = 0;
+        while (b != CR) {
+            if (b < '0' || b > '9') {
+                throw new IOException("Unexpected character in number: " + (char) b);
+            }
+            value = value * 10 + (b - '0');
+            b = readByte();
+        }
+        readLf();
+        return negative ? -value : value;
+    }
+    
+    private String readLine() throws IOException {
+        int length = 0;
+        int b;
+        while ((b = readByte()) != CR) {
+            if (length == line.length) {
+                line = Arrays.copyOf(line, line.length * 2);
+            }
+            line[length++] = (byte) b;
+        }
+        readLf();
+        return new String(line, 0, length, StandardCharsets.UTF_8);
+    }
+    
+    private void readCrlf() throws IOException {
+        if (readByte() != CR) {
+            throw new IOException("Malformed reply, expected CRLF");
+        }
+        readLf();
+    }
+    
+    private void readLf() throws IOException {
+        if (readByte() != LF) {
+            throw new IOException("Malformed reply, expected CRLF");
+        }
+    }
+    
+    private int readByte() throws IOException {
+        if (!in.hasRemaining()) {
+            fill();
+        }
+        return in.get() & 0xff;
+    }
+    
+    private void fill() throws IOException {
+        in.clear();
+        try {
+            int read;
+            while ((read = channel.read(in)) == 0) {
+                await(SelectionKey.OP_READ);
+            }
+            if (read < 0) {
+                throw new EOFException("Connection closed by redis instance");
+            }
+        } finally {
+            in.flip();
+        }
+    }
+    
+    private void writeArgument(Object arg) throws IOException {
+        if (arg instanceof byte[]) {
+            final byte[] bytes = (byte[]) arg;
+            writeHeader('$', bytes.length);
+            writeBytes(ByteBuffer.wrap(bytes));
+        } else if (arg instanceof ByteBuffer) {
+            final ByteBuffer bytes = ((ByteBuffer) arg).duplicate();
+            writeHeader('$', bytes.remaining());
+            writeBytes(bytes);
+        } else if (arg instanceof Long || arg instanceof Integer || arg instanceof Short || arg instanceof Byte) {
+            final long value = ((Number) arg).longValue();
+            writeHeader('$', decimalLength(value));
+            ensureOut(digits.length);
+            writeDecimal(value);
+        } else {
+            final String value = String.valueOf(arg);
+            if (isAscii(value)) {
+                writeHeader('$', value.length());
+                for (int i = 0; i < value.length(); i++) {
+                    ensureOut(1);
+                    out.put((byte) value.charAt(i));
+                }
+            } else {
+                final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                writeHeader('$', bytes.length);
+                writeBytes(ByteBuffer.wrap(bytes));
+            }
+        }
+        ensureOut(2);
+        out.put(CR).put(LF);
+    }
+    
+    private void writeHeader(char type, long length) throws IOException {
+        ensureOut(1 + digits.length + 2);
+        out.put((byte) type);
+        writeDecimal(length);
+        out.put(CR).put(LF);
+    }
+    
+    private void writeBytes(ByteBuffer bytes) throws IOException {
+        while (bytes.hasRemaining()) {
+            ensureOut(1);
+            final int chunk = Math.min(out.remaining(), bytes.remaining());
+            out.put(out.position(), bytes, bytes.position(), chunk);
+            out.position(out.position() + chunk);
+            bytes.position(bytes.position() + chunk);
+        }
+    }
+    
+    private void writeDecimal(long value) {
+        if (value == Long.MIN_VALUE) {
+            out.put(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+            return;
+        }
+        if (value < 0) {
+            out.put((byte) '-');
+            value = -value;
+        }
+        int position = digits.length;
+        do {
+            digits[--position] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+        out.put(digits, position, digits.length - position);
+    }
+    
+    private void ensureOut(int bytes) throws IOException {
+        if (out.remaining() < bytes) {
+            writeOut();
+        }
+    }
+    
+    private void writeOut() throws IOException {
+        out.flip();
+        try {
+            while (out.hasRemaining()) {
+                final int written = channel.write(out);
+                if (written == 0) {
+                    await(SelectionKey.OP_WRITE);
+                }
+                bytesWritten += written;
+            }
+        } finally {
+            out.clear();
+        }
+    }
+    
+    private void await(int operation) throws IOException {
+        key.interestOps(operation);
+        final int ready = selector.select(timeoutMillis);
+        selector.selectedKeys().clear();
+        if (ready == 0) {
+            throw new SocketTimeoutException("Timed out after " + timeoutMillis + " ms");
+        }
+    }
+    
+    private static int decimalLength(long value) {
+        if (value == Long.MIN_VALUE) {
+            return 20;
+        }
+        int length = value < 0 ? 2 : 1;
+        for (long rest = Math.abs(value); rest >= 10; rest /= 10) {
+            length++;
+        }
+        return length;
+    }
+    
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static Double parseDouble(String value) {
+        switch (value) {
+            case "inf":
+                return Double.POSITIVE_INFINITY;
+            case "-inf":
+                return Double.NEGATIVE_INFINITY;
+            case "nan":
+                return Double.NaN;
+            default:
+                return Double.parseDouble(value);
+        }
+    }
+    
+    private static ByteBuffer acquireBuffer() {
+        final ByteBuffer buffer = BUFFER_POOL.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+        POOLED_BUFFERS.decrementAndGet();
+        buffer.clear();
+        return buffer;
+    }
+    
+    private static void releaseBuffer(ByteBuffer buffer) {
+        if (POOLED_BUFFERS.incrementAndGet() <= MAX_POOLED_BUFFERS) {
+            BUFFER_POOL.offer(buffer);
+        } else {
+            POOLED_BUFFERS.decrementAndGet();
+        }
+    }
+    
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
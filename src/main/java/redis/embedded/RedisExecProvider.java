@@ -10,35 +10,49 @@ import redis.embedded.util.OsArchitecture;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class RedisExecProvider {
 
     public static final String redisVersion = "7.0.15";
     //(windows-version)https://github.com/zkteco-home/redis-windows/blob/master/redis-server.exe
     public static final String redisVersionWindows = "7.2.5";
+    // executables extracted by getShared(), by the path they were extracted to
+    private static final Map<File, File> SHARED_EXECUTABLES = new ConcurrentHashMap<>();
+    private static File sharedDirectory;
     private final Map<OsArchitecture, String> executables = Maps.newHashMap();
 
 
     private String dataPath = null;
 
-    private RedisExecProvider() {
-        initExecutables();
+    private RedisExecProvider(String program, boolean windows) {
+        initExecutables(program, windows);
     }
 
     public static RedisExecProvider defaultProvider() {
-        return new RedisExecProvider();
+        return new RedisExecProvider("redis-server", true);
     }
 
-    private void initExecutables() {
-        executables.put(OsArchitecture.UNIX_x86_64, "redis-server-" + redisVersion + "-linux-amd64");
-        executables.put(OsArchitecture.UNIX_arm64, "redis-server-" + redisVersion + "-linux-arm64");
+    /**
+     * Resolves the {@code redis-benchmark} built together with the enclosed {@code redis-server}. There is no Windows
+     * build of it; use {@link #override(OS, String)} to point at one.
+     */
+    public static RedisExecProvider benchmarkProvider() {
+        return new RedisExecProvider("redis-benchmark", false);
+    }
 
-        executables.put(OsArchitecture.MAC_OS_X_x86_64, "redis-server-" + redisVersion + "-darwin-amd64");
-        executables.put(OsArchitecture.MAC_OS_X_arm64, "redis-server-" + redisVersion + "-darwin-arm64");
+    private void initExecutables(String program, boolean windows) {
+        executables.put(OsArchitecture.UNIX_x86_64, program + "-" + redisVersion + "-linux-amd64");
+        executables.put(OsArchitecture.UNIX_arm64, program + "-" + redisVersion + "-linux-arm64");
 
-        executables.put(OsArchitecture.WIN_x64_86, "redis-server-" + redisVersionWindows + "-windows-amd64.exe");
+        executables.put(OsArchitecture.MAC_OS_X_x86_64, program + "-" + redisVersion + "-darwin-amd64");
+        executables.put(OsArchitecture.MAC_OS_X_arm64, program + "-" + redisVersion + "-darwin-arm64");
 
+        if (windows) {
+            executables.put(OsArchitecture.WIN_x64_86, program + "-" + redisVersionWindows + "-windows-amd64.exe");
+        }
     }
 
     public RedisExecProvider setDataDirectory(String dataPath) {
@@ -67,13 +81,7 @@ public class RedisExecProvider {
     }
 
     public File get() throws IOException {
-        OsArchitecture osArch = OsArchitecture.detect();
-
-        if (!executables.containsKey(osArch)) {
-            throw new IllegalArgumentException("No Redis executable found for " + osArch);
-        }
-
-        String executablePath = executables.get(osArch);
+        String executablePath = executablePath();
         if (dataPath == null) {
             dataPath = Files.createTempDir().getAbsolutePath();
         }
@@ -81,6 +89,48 @@ public class RedisExecProvider {
 
     }
 
+    /**
+     * Like {@link #get()}, but extracts the executable only once per JVM, into the data directory or else a directory
+     * shared by all providers. Every instance started from it maps the same file, so its pages are shared.
+     */
+    public File getShared() throws IOException {
+        String executablePath = executablePath();
+        if (fileExists(executablePath)) {
+            return new File(executablePath);
+        }
+        final File directory = dataPath != null ? new File(dataPath) : sharedDirectory();
+        try {
+            return SHARED_EXECUTABLES.compute(new File(directory, executablePath), (target, extracted) -> {
+                if (extracted != null && extracted.canExecute()) {
+                    return extracted;
+                }
+                try {
+                    return JarUtil.extractExecutableFromJar(directory.getAbsolutePath(), executablePath);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    static synchronized File sharedDirectory() {
+        if (sharedDirectory == null || !sharedDirectory.isDirectory()) {
+            sharedDirectory = Files.createTempDir();
+        }
+        return sharedDirectory;
+    }
+
+    private String executablePath() {
+        OsArchitecture osArch = OsArchitecture.detect();
+
+        if (!executables.containsKey(osArch)) {
+            throw new IllegalArgumentException("No Redis executable found for " + osArch);
+        }
+        return executables.get(osArch);
+    }
+
     private boolean fileExists(String executablePath) {
         return new File(executablePath).exists();
     }
@@ -8,7 +8,11 @@ public class RedisSentinel
     private static final String REDIS_READY_PATTERN = ".*Sentinel (runid|ID) is.*";
     
     public RedisSentinel(List<String> args, int port) {
-        super(port);
+        this(args, port, null);
+    }
+    
+    RedisSentinel(List<String> args, int port, PortProvider portProvider) {
+        super(port, 0, portProvider);
         this.args = new ArrayList<>(args);
     }
     
@@ -18,11 +18,17 @@ public class RedisSentinelBuilder {
     private static final String FAILOVER_LINE = "sentinel failover-timeout %s %d";
     private static final String PARALLEL_SYNCS_LINE = "sentinel parallel-syncs %s %d";
     private static final String PORT_LINE = "port %d";
+    private static final int DEFAULT_PORT = 26379;
+    // hz stays, sentinels detect failures in their cron
+    private static final List<String> HIGH_DENSITY_SETTINGS = List.of(
+            "maxclients 128",
+            "jemalloc-bg-thread no");
     
     private File executable;
     private RedisExecProvider redisExecProvider = RedisExecProvider.defaultProvider();
     private String bind = "127.0.0.1";
-    private Integer port = 26379;
+    private Integer port;
+    private PortProvider portProvider;
     private int masterPort = 6379;
     private String masterName = "mymaster";
     private long downAfterMilliseconds = 60000L;
@@ -30,11 +36,13 @@ public class RedisSentinelBuilder {
     private int parallelSyncs = 1;
     private int quorumSize = 1;
     private String sentinelConf;
+    private boolean highDensity = false;
     
     private StringBuilder redisConfigBuilder;
     
     public RedisSentinelBuilder redisExecProvider(RedisExecProvider redisExecProvider) {
         this.redisExecProvider = redisExecProvider;
+        this.executable = null;
         return this;
     }
     
@@ -48,6 +56,11 @@ public class RedisSentinelBuilder {
         return this;
     }
     
+    public RedisSentinelBuilder portProvider(PortProvider portProvider) {
+        this.portProvider = portProvider;
+        return this;
+    }
+    
     public RedisSentinelBuilder masterPort(Integer masterPort) {
         this.masterPort = masterPort;
         return this;
@@ -73,6 +86,14 @@ public class RedisSentinelBuilder {
         return this;
     }
     
+    long downAfterMilliseconds() {
+        return downAfterMilliseconds;
+    }
+    
+    long failoverTimeout() {
+        return failoverTimeout;
+    }
+    
     public RedisSentinelBuilder parallelSyncs(int parallelSyncs) {
         this.parallelSyncs = parallelSyncs;
         return this;
@@ -86,6 +107,16 @@ public class RedisSentinelBuilder {
         return this;
     }
     
+    /**
+     * Starts from the executable shared by all high density instances with a small client table, see
+     * {@link RedisServerBuilder#highDensity()}.
+     */
+    public RedisSentinelBuilder highDensity() {
+        this.highDensity = true;
+        this.executable = null;
+        return this;
+    }
+    
     public RedisSentinelBuilder setting(String configLine) {
         if (sentinelConf != null) {
             throw new RedisBuildingException("Redis configuration is already set using redis conf file!");
@@ -101,17 +132,28 @@ public class RedisSentinelBuilder {
     }
     
     public RedisSentinel build() {
-        tryResolveConfAndExec();
-        List<String> args = buildCommandArgs();
-        return new RedisSentinel(args, port);
+        final int port = resolvePort();
+        tryResolveConfAndExec(port);
+        List<String> args = buildCommandArgs(port);
+        return new RedisSentinel(args, port, portProvider);
     }
     
-    private void tryResolveConfAndExec() {
+    private int resolvePort() {
+        if (port != null) {
+            return port;
+        }
+        return portProvider != null ? portProvider.next() : DEFAULT_PORT;
+    }
+    
+    private void tryResolveConfAndExec(int port) {
         try {
             if (sentinelConf == null) {
-                resolveSentinelConf();
+                resolveSentinelConf(port);
+            }
+            if (executable == null || !executable.canExecute()) {
+                // extracting again would overwrite the file that sentinels built before are running, which fails
+                executable = highDensity ? redisExecProvider.getShared() : redisExecProvider.get();
             }
-            executable = redisExecProvider.get();
         } catch (Exception e) {
             throw new RedisBuildingException("Could not build sentinel instance", e);
         }
@@ -129,36 +171,36 @@ public class RedisSentinelBuilder {
         setting(String.format(PARALLEL_SYNCS_LINE, masterName, parallelSyncs));
     }
     
-    private void resolveSentinelConf() throws IOException {
+    private void resolveSentinelConf(int port) throws IOException {
         if (redisConfigBuilder == null) {
             addDefaultReplicationGroup();
         }
+        if (highDensity) {
+            redisConfigBuilder.insert(0, String.join(LINE_SEPARATOR, HIGH_DENSITY_SETTINGS) + LINE_SEPARATOR);
+        }
         setting("bind " + bind);
         setting(String.format(PORT_LINE, port));
         final String configString = redisConfigBuilder.toString();
         
-        File redisConfigFile = File.createTempFile(resolveConfigName(), ".conf");
+        File redisConfigFile = File.createTempFile(resolveConfigName(port), ".conf");
         redisConfigFile.deleteOnExit();
         Files.asCharSink(redisConfigFile, StandardCharsets.UTF_8).write(configString);
         sentinelConf = redisConfigFile.getAbsolutePath();
     }
     
-    private String resolveConfigName() {
+    private String resolveConfigName(int port) {
         return CONF_FILENAME + "_" + port;
     }
     
-    private List<String> buildCommandArgs() {
+    private List<String> buildCommandArgs(int port) {
         Preconditions.checkNotNull(sentinelConf);
         
         List<String> args = new ArrayList<>();
         args.add(executable.getAbsolutePath());
         args.add(sentinelConf);
         args.add("--sentinel");
-        
-        if (port != null) {
-            args.add("--port");
-            args.add(Integer.toString(port));
-        }
+        args.add("--port");
+        args.add(Integer.toString(port));
         
         return args;
     }
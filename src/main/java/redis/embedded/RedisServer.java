@@ -3,6 +3,7 @@ package redis.embedded;
 import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -12,6 +13,9 @@ public class RedisServer
 
     private static final String REDIS_READY_PATTERN = ".*(R|r)eady to accept connections.*";
     private static final int DEFAULT_REDIS_PORT = 6379;
+    private static final Duration DEFAULT_CLONE_TIMEOUT = Duration.ofMinutes(1);
+
+    private KeyspaceReset keyspaceReset;
 
     public RedisServer() {
         this(DEFAULT_REDIS_PORT);
@@ -44,7 +48,11 @@ public class RedisServer
     }
 
     RedisServer(List<String> args, int port, int tlsPort) {
-        super(port, tlsPort);
+        this(args, port, tlsPort, null);
+    }
+
+    RedisServer(List<String> args, int port, int tlsPort, PortProvider portProvider) {
+        super(port, tlsPort, portProvider);
         this.args = new ArrayList<>(args);
     }
 
@@ -52,6 +60,42 @@ public class RedisServer
         return new RedisServerBuilder();
     }
 
+    /**
+     * Records database 0 as the dataset {@link #reset(ResetStrategy)} restores. Databases 14 and 15 hold copies of it,
+     * and automatic snapshots are turned off.
+     */
+    public synchronized void captureFixture() {
+        keyspaceReset().captureFixture();
+    }
+
+    /**
+     * Restores the captured fixture, or an empty keyspace without one. Also flushes scripts and functions and resets
+     * the statistics.
+     */
+    public synchronized ResetReport reset(ResetStrategy strategy) {
+        return keyspaceReset().reset(strategy);
+    }
+
+    public List<RedisServer> clone(int count) {
+        return clone(count, DEFAULT_CLONE_TIMEOUT);
+    }
+
+    /**
+     * Starts {@code count} servers with this server's dataset. They replicate it over a single diskless sync and are
+     * promoted to independent masters. Ports come from the port provider this server was built with, or are ephemeral
+     * without one. The caller stops the clones.
+     */
+    public synchronized List<RedisServer> clone(int count, Duration timeout) {
+        return ServerCloner.clone(this, count, timeout);
+    }
+
+    private KeyspaceReset keyspaceReset() {
+        if (keyspaceReset == null) {
+            keyspaceReset = new KeyspaceReset(this);
+        }
+        return keyspaceReset;
+    }
+
     @Override
     protected String redisReadyPattern() {
         return REDIS_READY_PATTERN;
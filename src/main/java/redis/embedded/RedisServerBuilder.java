@@ -3,6 +3,7 @@ package redis.embedded;
 import cn.hutool.core.io.FileUtil;
 import com.google.common.base.Strings;
 import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
 import redis.embedded.exceptions.RedisBuildingException;
 
 import java.io.File;
@@ -15,19 +16,35 @@ import java.util.List;
 public class RedisServerBuilder {
     private static final String LINE_SEPARATOR = System.lineSeparator();
     private static final String CONF_FILENAME = "embedded-redis-server";
+    private static final int DEFAULT_PORT = 6379;
+    // persistence off, minimal cron frequency and client table, no background allocator or latency bookkeeping
+    private static final List<String> HIGH_DENSITY_SETTINGS = List.of(
+            "hz 1",
+            "dynamic-hz no",
+            "save \"\"",
+            "appendonly no",
+            "activedefrag no",
+            "jemalloc-bg-thread no",
+            "latency-tracking no",
+            "maxclients 128",
+            "repl-backlog-size 64kb");
     
     private File executable;
     private RedisExecProvider redisExecProvider = RedisExecProvider.defaultProvider();
     private String bind = "127.0.0.1";
-    private int port = 6379;
+    private Integer port;
     private int tlsPort = 0;
+    private PortProvider portProvider;
     private InetSocketAddress slaveOf;
     private String redisConf;
+    private boolean debugCommand = false;
+    private boolean highDensity = false;
     
     private StringBuilder redisConfigBuilder;
     
     public RedisServerBuilder redisExecProvider(RedisExecProvider redisExecProvider) {
         this.redisExecProvider = redisExecProvider;
+        this.executable = null;
         return this;
     }
     
@@ -41,6 +58,11 @@ public class RedisServerBuilder {
         return this;
     }
     
+    public RedisServerBuilder portProvider(PortProvider portProvider) {
+        this.portProvider = portProvider;
+        return this;
+    }
+    
     public RedisServerBuilder tlsPort(int tlsPort) {
         this.tlsPort = tlsPort;
         return this;
@@ -56,6 +78,24 @@ public class RedisServerBuilder {
         return this;
     }
     
+    public RedisServerBuilder enableDebugCommand() {
+        // needed by restart(RestartMode.DEBUG_RELOAD), redis 7 refuses DEBUG by default
+        this.debugCommand = true;
+        return this;
+    }
+    
+    /**
+     * Trades throughput for footprint, to run hundreds of servers on one host. Servers share one extracted
+     * executable, each writes to a directory of its own, persistence and active defrag are off, {@code hz} is 1 and
+     * client and replication buffers are small. Settings of {@link #setting(String)} still take precedence. Only
+     * loopback addresses may be bound.
+     */
+    public RedisServerBuilder highDensity() {
+        this.highDensity = true;
+        this.executable = null;
+        return this;
+    }
+    
     public RedisServerBuilder configFile(String redisConf) {
         if (redisConfigBuilder != null) {
             throw new RedisBuildingException("Redis configuration is already partially build using setting(String) method!");
@@ -79,28 +119,79 @@ public class RedisServerBuilder {
     }
     
     public RedisServer build() {
+        if (highDensity) {
+            applyHighDensitySettings();
+        }
         setting("bind " + bind);
-        tryResolveConfAndExec();
-        List<String> args = buildCommandArgs();
-        return new RedisServer(args, port, tlsPort);
+        final int port = resolvePort();
+        tryResolveConfAndExec(port);
+        List<String> args = buildCommandArgs(port);
+        return new RedisServer(args, port, tlsPort, portProvider);
+    }
+    
+    private void applyHighDensitySettings() {
+        if (redisConf != null) {
+            throw new RedisBuildingException("High density mode can not be combined with a redis conf file!");
+        }
+        for (String address : bind.trim().split("\\s+")) {
+            if (!isLoopback(address.startsWith("-") ? address.substring(1) : address)) {
+                throw new RedisBuildingException("High density mode only binds loopback addresses, not " + address);
+            }
+        }
+        // earlier lines lose against later ones, so the settings of the caller win
+        if (redisConfigBuilder == null) {
+            redisConfigBuilder = new StringBuilder();
+        }
+        redisConfigBuilder.insert(0, String.join(LINE_SEPARATOR, HIGH_DENSITY_SETTINGS) + LINE_SEPARATOR);
+    }
+    
+    private static boolean isLoopback(String address) {
+        return address.startsWith("127.") || address.equals("::1") || address.equals("localhost");
+    }
+    
+    private int resolvePort() {
+        if (port != null) {
+            return port;
+        }
+        return portProvider != null ? portProvider.next() : DEFAULT_PORT;
+    }
+    
+    /**
+     * @return a builder with the settings of this one, changing either of them leaves the other as it is
+     */
+    RedisServerBuilder copy() {
+        // copies built later then run the same file rather than extract it again
+        resolveExecutable();
+        final RedisServerBuilder copy = new RedisServerBuilder();
+        copy.executable = executable;
+        copy.redisExecProvider = redisExecProvider;
+        copy.bind = bind;
+        copy.port = port;
+        copy.tlsPort = tlsPort;
+        copy.portProvider = portProvider;
+        copy.slaveOf = slaveOf;
+        copy.redisConf = redisConf;
+        copy.debugCommand = debugCommand;
+        copy.highDensity = highDensity;
+        copy.redisConfigBuilder = redisConfigBuilder != null ? new StringBuilder(redisConfigBuilder) : null;
+        return copy;
     }
     
     public void reset() {
-        this.executable = null;
         this.redisConfigBuilder = null;
         this.slaveOf = null;
         this.redisConf = null;
     }
     
-    private void tryResolveConfAndExec() {
+    private void tryResolveConfAndExec(int port) {
         try {
-            resolveConfAndExec();
+            resolveConfAndExec(port);
         } catch (IOException e) {
             throw new RedisBuildingException("Could not build server instance", e);
         }
     }
     
-    private void resolveConfAndExec() throws IOException {
+    private void resolveConfAndExec(int port) throws IOException {
         if (redisConf == null && redisConfigBuilder != null) {
             File redisConfigFile;
             if (redisExecProvider.getDataPath() != null) {
@@ -108,27 +199,49 @@ public class RedisServerBuilder {
                 if (!directory.exists()) {
                     FileUtil.mkdir(directory);
                 }
-                redisConfigFile = FileUtil.touch(directory, resolveConfigName());
+                redisConfigFile = FileUtil.touch(directory, resolveConfigName(port));
             }
             else {
-                redisConfigFile = FileUtil.touch(FileUtil.getTmpDirPath(), resolveConfigName());
+                redisConfigFile = FileUtil.touch(FileUtil.getTmpDirPath(), resolveConfigName(port));
             }
             Files.asCharSink(redisConfigFile, StandardCharsets.UTF_8).write(redisConfigBuilder.toString());
             redisConf = redisConfigFile.getAbsolutePath();
         }
         
+        resolveExecutable();
+    }
+    
+    private void resolveExecutable() {
         try {
-            executable = redisExecProvider.get();
+            if (executable == null || !executable.canExecute()) {
+                // extracting again would overwrite the file that servers built before are running, which fails
+                executable = highDensity ? redisExecProvider.getShared() : redisExecProvider.get();
+            }
         } catch (Exception e) {
             throw new RedisBuildingException("Failed to resolve executable", e);
         }
     }
     
-    private String resolveConfigName() {
+    /**
+     * @return an emptied directory of its own for the server on {@code port}, next to the executable it runs
+     */
+    static File dataDirectory(File executable, int port) {
+        final File dir = new File(executable.getParentFile(), "embedded-redis-" + port);
+        try {
+            // a new server starts empty, even where an earlier one on the same port left a snapshot
+            FileUtils.forceMkdir(dir);
+            FileUtils.cleanDirectory(dir);
+        } catch (IOException e) {
+            throw new RedisBuildingException("Could not create data directory " + dir, e);
+        }
+        return dir;
+    }
+    
+    private String resolveConfigName(int port) {
         return CONF_FILENAME + "_" + port + ".conf";
     }
     
-    private List<String> buildCommandArgs() {
+    private List<String> buildCommandArgs(int port) {
         List<String> args = new ArrayList<>();
         args.add(executable.getAbsolutePath());
         
@@ -144,6 +257,17 @@ public class RedisServerBuilder {
             args.add(Integer.toString(tlsPort));
         }
         
+        if (highDensity) {
+            // servers run in the directory of the shared executable, which must not be where they write
+            args.add("--dir");
+            args.add(dataDirectory(executable, port).getAbsolutePath());
+        }
+        
+        if (debugCommand) {
+            args.add("--enable-debug-command");
+            args.add("local");
+        }
+        
         if (slaveOf != null) {
             args.add("--slaveof");
             args.add(slaveOf.getHostName());
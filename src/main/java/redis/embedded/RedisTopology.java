@@ -0,0 +1,117 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Describes the servers and sentinels of a {@link RedisCluster} node by node, for shapes that
+ * {@link RedisClusterBuilder#replicationGroup(String, int)} can not express: replicas of replicas, sentinels that
+ * monitor only some groups, a quorum per group and per-node settings.
+ * <pre>
+ * new RedisTopology()
+ *         .master("orders", "a")
+ *         .replica("b", "a")
+ *         .replica("c", "b", server -&gt; server.setting("maxmemory 64mb"))
+ *         .quorum("orders", 2)
+ *         .sentinel("orders")
+ *         .sentinel("orders");
+ * </pre>
+ */
+public class RedisTopology {
+    private static final Consumer<RedisServerBuilder> NO_OVERRIDE = server -> {
+    };
+    
+    private final Map<String, ServerNode> servers = new LinkedHashMap<>();
+    private final Map<String, String> masters = new LinkedHashMap<>();
+    private final Map<String, Integer> quorums = new LinkedHashMap<>();
+    private final List<List<String>> sentinels = new ArrayList<>();
+    
+    public RedisTopology master(String masterName, String server) {
+        return master(masterName, server, NO_OVERRIDE);
+    }
+    
+    public RedisTopology master(String masterName, String server, Consumer<RedisServerBuilder> override) {
+        if (masters.containsKey(masterName)) {
+            throw new RedisBuildingException("Replication group " + masterName + " is already defined!");
+        }
+        addServer(new ServerNode(server, masterName, null, override));
+        masters.put(masterName, server);
+        return this;
+    }
+    
+    public RedisTopology replica(String server, String upstream) {
+        return replica(server, upstream, NO_OVERRIDE);
+    }
+    
+    public RedisTopology replica(String server, String upstream, Consumer<RedisServerBuilder> override) {
+        final ServerNode upstreamNode = servers.get(upstream);
+        if (upstreamNode == null) {
+            throw new RedisBuildingException("Server " + upstream + " has to be defined before its replicas!");
+        }
+        addServer(new ServerNode(server, upstreamNode.masterName, upstream, override));
+        return this;
+    }
+    
+    public RedisTopology quorum(String masterName, int quorum) {
+        quorums.put(masterName, quorum);
+        return this;
+    }
+    
+    /**
+     * Adds a sentinel monitoring the given replication groups, or every group when none is given.
+     */
+    public RedisTopology sentinel(String... masterNames) {
+        sentinels.add(Arrays.asList(masterNames));
+        return this;
+    }
+    
+    Collection<ServerNode> servers() {
+        return servers.values();
+    }
+    
+    Integer quorum(String masterName) {
+        return quorums.get(masterName);
+    }
+    
+    List<List<String>> sentinels() {
+        final List<List<String>> resolved = new ArrayList<>();
+        for (List<String> monitored : sentinels) {
+            for (String masterName : monitored) {
+                if (!masters.containsKey(masterName)) {
+                    throw new RedisBuildingException("Sentinel monitors unknown replication group " + masterName + "!");
+                }
+            }
+            resolved.add(monitored.isEmpty() ? new ArrayList<>(masters.keySet()) : monitored);
+        }
+        return Collections.unmodifiableList(resolved);
+    }
+    
+    private void addServer(ServerNode node) {
+        if (servers.containsKey(node.name)) {
+            throw new RedisBuildingException("Server " + node.name + " is already defined!");
+        }
+        servers.put(node.name, node);
+    }
+    
+    static final class ServerNode {
+        final String name;
+        final String masterName;
+        final String upstream;
+        final Consumer<RedisServerBuilder> override;
+        
+        private ServerNode(String name, String masterName, String upstream, Consumer<RedisServerBuilder> override) {
+            this.name = name;
+            this.masterName = masterName;
+            this.upstream = upstream;
+            this.override = override;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package redis.embedded;
+
+public class ReplicaLag {
+    private final String masterName;
+    private final Redis replica;
+    private final long bytes;
+    private final long millis;
+    
+    ReplicaLag(String masterName, Redis replica, long bytes, long millis) {
+        this.masterName = masterName;
+        this.replica = replica;
+        this.bytes = bytes;
+        this.millis = millis;
+    }
+    
+    public String masterName() {
+        return masterName;
+    }
+    
+    public Redis replica() {
+        return replica;
+    }
+    
+    public long bytes() {
+        return bytes;
+    }
+    
+    public long millis() {
+        return millis;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s replica %s: %d bytes, %d ms behind", masterName, replica.ports(), bytes, millis);
+    }
+}
@@ -0,0 +1,80 @@
+package redis.embedded;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class ReplicationGroup {
+    private final String masterName;
+    private Redis master;
+    private final List<Redis> replicas = new ArrayList<>();
+    private final Map<Redis, Redis> upstreams = new HashMap<>();
+    
+    ReplicationGroup(String masterName, Redis master, List<Redis> replicas) {
+        this(masterName, master, replicas, new HashMap<>());
+    }
+    
+    ReplicationGroup(String masterName, Redis master, List<Redis> replicas, Map<Redis, Redis> upstreams) {
+        this.masterName = masterName;
+        this.master = master;
+        this.replicas.addAll(replicas);
+        for (Redis replica : replicas) {
+            this.upstreams.put(replica, upstreams.getOrDefault(replica, master));
+        }
+    }
+    
+    public String masterName() {
+        return masterName;
+    }
+    
+    public synchronized Redis master() {
+        return master;
+    }
+    
+    public synchronized List<Redis> replicas() {
+        return new ArrayList<>(replicas);
+    }
+    
+    /**
+     * @return the server {@code replica} replicates from, the master unless it is part of a chain
+     */
+    public synchronized Redis upstream(Redis replica) {
+        return upstreams.get(replica);
+    }
+    
+    public synchronized List<Redis> replicasOf(Redis upstream) {
+        final List<Redis> direct = new ArrayList<>();
+        for (Redis replica : replicas) {
+            if (upstreams.get(replica) == upstream) {
+                direct.add(replica);
+            }
+        }
+        return direct;
+    }
+    
+    synchronized void addReplica(Redis replica) {
+        replicas.add(replica);
+        upstreams.put(replica, master);
+    }
+    
+    synchronized void removeReplica(Redis replica) {
+        replicas.remove(replica);
+        upstreams.remove(replica);
+    }
+    
+    synchronized void promote(Redis replica) {
+        // sentinels turn the old master and its direct replicas into replicas of the new master, even after the old
+        // master comes back from a crash; chained replicas keep their upstream
+        for (Map.Entry<Redis, Redis> entry : upstreams.entrySet()) {
+            if (entry.getValue() == master) {
+                entry.setValue(replica);
+            }
+        }
+        replicas.remove(replica);
+        upstreams.remove(replica);
+        replicas.add(master);
+        upstreams.put(master, replica);
+        master = replica;
+    }
+}
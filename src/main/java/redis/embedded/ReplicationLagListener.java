@@ -0,0 +1,5 @@
+package redis.embedded;
+
+public interface ReplicationLagListener {
+    void onSample(ReplicaLag lag);
+}
@@ -0,0 +1,257 @@
+package redis.embedded;
+
+import org.HdrHistogram.Histogram;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples {@code INFO replication} on the master of every replication group of a {@link RedisCluster} and records
+ * how far each replica is behind, in bytes of replication stream and in milliseconds.
+ */
+public class ReplicationLagMonitor
+        implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(ReplicationLagMonitor.class);
+    private static final Duration DEFAULT_INTERVAL = Duration.ofMillis(100);
+    private static final int HISTORY_SIZE = 4096;
+    
+    private final RedisCluster cluster;
+    private final Duration interval;
+    private final List<ReplicationLagListener> listeners = new CopyOnWriteArrayList<>();
+    private final Map<Redis, Histogram> bytesHistograms = new ConcurrentHashMap<>();
+    private final Map<Redis, Histogram> millisHistograms = new ConcurrentHashMap<>();
+    private final Map<String, OffsetHistory> histories = new HashMap<>();
+    private final Map<Redis, RedisConnection> connections = new HashMap<>();
+    private final Object roundLock = new Object();
+    private volatile Map<Redis, ReplicaLag> latest = Collections.emptyMap();
+    private long rounds;
+    private ScheduledExecutorService executor;
+    
+    public ReplicationLagMonitor(RedisCluster cluster) {
+        this(cluster, DEFAULT_INTERVAL);
+    }
+    
+    public ReplicationLagMonitor(RedisCluster cluster, Duration interval) {
+        this.cluster = cluster;
+        this.interval = interval;
+    }
+    
+    public synchronized ReplicationLagMonitor start() {
+        if (executor != null) {
+            throw new EmbeddedRedisException("Replication lag monitor is already running");
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "replication-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::sample, 0, interval.toNanos(), TimeUnit.NANOSECONDS);
+        return this;
+    }
+    
+    public void addListener(ReplicationLagListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeListener(ReplicationLagListener listener) {
+        listeners.remove(listener);
+    }
+    
+    public Map<Redis, ReplicaLag> latest() {
+        return latest;
+    }
+    
+    public Histogram bytesHistogram(Redis replica) {
+        return copy(bytesHistograms.get(replica));
+    }
+    
+    public Histogram millisHistogram(Redis replica) {
+        return copy(millisHistograms.get(replica));
+    }
+    
+    public boolean awaitLagBelow(long maxBytes, Duration timeout) throws InterruptedException {
+        return awaitLag(maxBytes, Long.MAX_VALUE, timeout);
+    }
+    
+    public boolean awaitLagBelow(Duration maxLag, Duration timeout) throws InterruptedException {
+        return awaitLag(Long.MAX_VALUE, maxLag.toMillis(), timeout);
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+        }
+        for (RedisConnection connection : connections.values()) {
+            connection.close();
+        }
+        connections.clear();
+    }
+    
+    private boolean awaitLag(long maxBytes, long maxMillis, Duration timeout) throws InterruptedException {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (roundLock) {
+            // samples taken before the call may predate the writes the caller wants to see replicated
+            final long start = rounds;
+            while (rounds == start || !isBelow(maxBytes, maxMillis)) {
+                final long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(roundLock, remaining);
+            }
+            return true;
+        }
+    }
+    
+    private boolean isBelow(long maxBytes, long maxMillis) {
+        final Map<Redis, ReplicaLag> current = latest;
+        for (ReplicationGroup group : cluster.replicationGroups()) {
+            for (Redis replica : group.replicas()) {
+                if (!replica.isActive()) {
+                    continue;
+                }
+                final ReplicaLag lag = current.get(replica);
+                if (lag == null || lag.bytes() > maxBytes || lag.millis() > maxMillis) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+    
+    private void sample() {
+        final Map<Redis, ReplicaLag> round = new HashMap<>();
+        for (ReplicationGroup group : cluster.replicationGroups()) {
+            try {
+                sample(group, round);
+            } catch (EmbeddedRedisException e) {
+                LOG.debug("Could not sample replication of {}", group.masterName(), e);
+                disconnect(group.master());
+            } catch (RuntimeException e) {
+                // an exception escaping the task would silently end the schedule, and every wait with it
+                LOG.debug("Failed to sample replication of {}", group.masterName(), e);
+            }
+        }
+        synchronized (roundLock) {
+            latest = Collections.unmodifiableMap(round);
+            rounds++;
+            roundLock.notifyAll();
+        }
+    }
+    
+    private void sample(ReplicationGroup group, Map<Redis, ReplicaLag> round) {
+        final Redis master = group.master();
+        final Map<String, String> masterInfo = connection(master).info("replication");
+        final long now = System.nanoTime();
+        final long masterOffset = Long.parseLong(masterInfo.get("master_repl_offset"));
+        final OffsetHistory history = histories.computeIfAbsent(group.masterName(), name -> new OffsetHistory(HISTORY_SIZE));
+        history.record(now, masterOffset);
+        final Map<Integer, Redis> replicasByPort = new HashMap<>();
+        // chained replicas only show up in the INFO of the replica they replicate from
+        final Set<Redis> upstreams = new LinkedHashSet<>();
+        upstreams.add(master);
+        for (Redis replica : group.replicas()) {
+            replicasByPort.put(replica.ports().getFirst(), replica);
+            upstreams.add(group.upstream(replica));
+        }
+        for (Redis upstream : upstreams) {
+            final Map<String, String> info;
+            if (upstream == master) {
+                info = masterInfo;
+            } else {
+                try {
+                    info = connection(upstream).info("replication");
+                } catch (EmbeddedRedisException e) {
+                    LOG.debug("Could not sample replication of {}", upstream.ports(), e);
+                    disconnect(upstream);
+                    continue;
+                }
+            }
+            for (Map.Entry<String, String> entry : info.entrySet()) {
+                if (entry.getKey().matches("slave\\d+")) {
+                    try {
+                        sampleReplica(group, entry.getValue(), replicasByPort, masterOffset, history, now, round);
+                    } catch (NumberFormatException e) {
+                        LOG.debug("Skipping malformed replica line {}", entry.getValue(), e);
+                    }
+                }
+            }
+        }
+    }
+    
+    private void sampleReplica(ReplicationGroup group, String line, Map<Integer, Redis> replicasByPort,
+                               long masterOffset, OffsetHistory history, long now, Map<Redis, ReplicaLag> round) {
+        final Map<String, String> fields = new HashMap<>();
+        for (String field : line.split(",")) {
+            final int equals = field.indexOf('=');
+            if (equals < 0) {
+                continue;
+            }
+            fields.put(field.substring(0, equals), field.substring(equals + 1));
+        }
+        final Redis replica = replicasByPort.get(Integer.parseInt(fields.get("port")));
+        if (replica == null) {
+            return;
+        }
+        final long replicaOffset = Long.parseLong(fields.get("offset"));
+        final ReplicaLag lag = new ReplicaLag(group.masterName(), replica, Math.max(0, masterOffset - replicaOffset),
+                TimeUnit.NANOSECONDS.toMillis(history.lagNanos(now, replicaOffset)));
+        record(bytesHistograms, replica, lag.bytes());
+        record(millisHistograms, replica, lag.millis());
+        round.put(replica, lag);
+        for (ReplicationLagListener listener : listeners) {
+            try {
+                listener.onSample(lag);
+            } catch (RuntimeException e) {
+                LOG.debug("Listener failed on replication lag of {}", replica.ports(), e);
+            }
+        }
+    }
+    
+    private RedisConnection connection(Redis redis) {
+        return connections.computeIfAbsent(redis, r -> RedisConnection.open(r.ports().getFirst()));
+    }
+    
+    private void disconnect(Redis redis) {
+        final RedisConnection connection = connections.remove(redis);
+        if (connection != null) {
+            connection.close();
+        }
+    }
+    
+    private static void record(Map<Redis, Histogram> histograms, Redis replica, long value) {
+        final Histogram histogram = histograms.computeIfAbsent(replica, r -> new Histogram(3));
+        synchronized (histogram) {
+            histogram.recordValue(value);
+        }
+    }
+    
+    private static Histogram copy(Histogram histogram) {
+        if (histogram == null) {
+            return new Histogram(3);
+        }
+        synchronized (histogram) {
+            return histogram.copy();
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.exceptions.RedisCommandException;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+final class ReplicationReadiness {
+    private static final long POLL_INTERVAL_MILLIS = 50;
+    
+    private ReplicationReadiness() {
+    }
+    
+    static void awaitReplicas(ReplicationGroup group, Duration timeout) {
+        for (Redis replica : group.replicas()) {
+            awaitReplica(group, replica, timeout);
+        }
+    }
+    
+    static void awaitReplica(ReplicationGroup group, Redis replica, Duration timeout) {
+        await(() -> isInSync(group.master(), replica), timeout,
+                "Replica " + replica.ports() + " of " + group.masterName() + " did not sync");
+    }
+    
+    static void awaitSync(Redis master, Redis replica, Duration timeout) {
+        await(() -> isInSync(master, replica), timeout,
+                "Replica " + replica.ports() + " of " + master.ports() + " did not sync");
+    }
+    
+    static void awaitPeers(Redis sentinel, ReplicationGroup group, int otherSentinels, Duration timeout) {
+        await(() -> otherSentinels(sentinel, group) == otherSentinels, timeout,
+                "Sentinel " + sentinel.ports() + " did not see " + otherSentinels + " other sentinels of "
+                        + group.masterName());
+    }
+    
+    static void awaitDiscovery(Redis sentinel, ReplicationGroup group, Duration timeout) {
+        await(() -> hasDiscovered(sentinel, group), timeout,
+                "Sentinel " + sentinel.ports() + " did not discover every replica of " + group.masterName());
+    }
+    
+    static boolean isInSync(Redis master, Redis replica) {
+        try (RedisConnection masterConnection = RedisConnection.open(port(master));
+             RedisConnection replicaConnection = RedisConnection.open(port(replica))) {
+            // the master offset keeps moving with pings and sentinel hellos, so the replica only has to catch up to
+            // the offset the master reported before it was asked
+            final long masterOffset = Long.parseLong(masterConnection.info("replication").get("master_repl_offset"));
+            final Map<String, String> info = replicaConnection.info("replication");
+            return "up".equals(info.get("master_link_status"))
+                    && Long.parseLong(info.get("slave_repl_offset")) >= masterOffset;
+        } catch (EmbeddedRedisException e) {
+            return false;
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    static boolean hasDiscovered(Redis sentinel, ReplicationGroup group) {
+        final Set<String> discovered = new HashSet<>();
+        try (RedisConnection connection = RedisConnection.open(port(sentinel))) {
+            for (Object replica : (List<Object>) connection.call("SENTINEL", "REPLICAS", group.masterName())) {
+                final List<Object> fields = (List<Object>) replica;
+                String port = null;
+                String flags = "";
+                for (int i = 0; i + 1 < fields.size(); i += 2) {
+                    final String field = RedisConnection.asString(fields.get(i));
+                    if ("port".equals(field)) {
+                        port = RedisConnection.asString(fields.get(i + 1));
+                    } else if ("flags".equals(field)) {
+                        flags = RedisConnection.asString(fields.get(i + 1));
+                    }
+                }
+                if (!flags.contains("disconnected") && !flags.contains("s_down")) {
+                    discovered.add(port);
+                }
+            }
+        } catch (EmbeddedRedisException e) {
+            return false;
+        }
+        // sentinels learn about replicas from the master, replicas of replicas stay unknown to them
+        for (Redis replica : group.replicasOf(group.master())) {
+            if (!discovered.contains(Integer.toString(port(replica)))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    static boolean monitors(Redis sentinel, ReplicationGroup group) {
+        try (RedisConnection connection = RedisConnection.open(port(sentinel))) {
+            connection.call("SENTINEL", "MASTER", group.masterName());
+            return true;
+        } catch (RedisCommandException e) {
+            return false;
+        }
+    }
+    
+    @SuppressWarnings("unchecked")
+    static int otherSentinels(Redis sentinel, ReplicationGroup group) {
+        try (RedisConnection connection = RedisConnection.open(port(sentinel))) {
+            final List<Object> fields = (List<Object>) connection.call("SENTINEL", "MASTER", group.masterName());
+            for (int i = 0; i + 1 < fields.size(); i += 2) {
+                if ("num-other-sentinels".equals(RedisConnection.asString(fields.get(i)))) {
+                    return Integer.parseInt(RedisConnection.asString(fields.get(i + 1)));
+                }
+            }
+            return -1;
+        } catch (EmbeddedRedisException e) {
+            return -1;
+        }
+    }
+    
+    private static void await(BooleanSupplier condition, Duration timeout, String failure) {
+        final long deadline = System.nanoTime() + timeout.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                throw new EmbeddedRedisException(failure + " within " + timeout);
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(POLL_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EmbeddedRedisException("Interrupted while waiting for replication", e);
+            }
+        }
+    }
+    
+    private static int port(Redis redis) {
+        return redis.ports().getFirst();
+    }
+}
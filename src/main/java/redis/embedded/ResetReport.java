@@ -0,0 +1,38 @@
+package redis.embedded;
+
+import java.time.Duration;
+
+public class ResetReport {
+    private final ResetStrategy strategy;
+    private final long keys;
+    private final long elapsedNanos;
+    
+    ResetReport(ResetStrategy strategy, long keys, long elapsedNanos) {
+        this.strategy = strategy;
+        this.keys = keys;
+        this.elapsedNanos = elapsedNanos;
+    }
+    
+    /**
+     * @return the strategy that was used, never {@link ResetStrategy#ADAPTIVE}
+     */
+    public ResetStrategy strategy() {
+        return strategy;
+    }
+    
+    /**
+     * @return the number of keys in database 0 before the reset
+     */
+    public long keys() {
+        return keys;
+    }
+    
+    public Duration elapsed() {
+        return Duration.ofNanos(elapsedNanos);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s reset of %d keys in %s", strategy, keys, elapsed());
+    }
+}
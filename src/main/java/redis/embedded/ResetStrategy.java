@@ -0,0 +1,32 @@
+package redis.embedded;
+
+/**
+ * How {@link RedisServer#reset(ResetStrategy)} brings a server back to the fixture captured with
+ * {@link RedisServer#captureFixture()}, or to an empty keyspace without one.
+ */
+public enum ResetStrategy {
+    /**
+     * Frees the whole keyspace in the background with {@code FLUSHALL ASYNC}. This always leaves an empty keyspace and
+     * discards a captured fixture.
+     */
+    FLUSHALL_ASYNC,
+    /**
+     * Swaps database 0 with a spare copy of the fixture, then flushes and refills the spare from the template database
+     * in the background. The next reset waits for the refill. Only database 0 is reset.
+     */
+    SWAPDB_TEMPLATE,
+    /**
+     * Reloads the fixture snapshot inside the running process with {@code DEBUG RELOAD NOSAVE}. This needs a fixture
+     * and {@link RedisServerBuilder#enableDebugCommand()}.
+     */
+    DEBUG_RELOAD,
+    /**
+     * Kills the process and starts a new one that loads the fixture snapshot, or nothing without a fixture.
+     */
+    RESTART,
+    /**
+     * Picks the strategy with the lowest expected cost for the current number of keys. The estimate is learned from
+     * the resets this server measured so far.
+     */
+    ADAPTIVE
+}
@@ -0,0 +1,154 @@
+package redis.embedded;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Splits a stream of RESP encoded commands, as {@code redis-cli --pipe} reads them, into single commands without
+ * decoding them.
+ */
+final class RespCommandReader
+        implements Closeable {
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    private boolean endOfStream = false;
+    private int cursor;
+    private long offset = 0;
+    
+    RespCommandReader(Path file) throws IOException {
+        this(FileChannel.open(file, StandardOpenOption.READ), BUFFER_SIZE);
+    }
+    
+    RespCommandReader(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.buffer.limit(0);
+    }
+    
+    /**
+     * @return the next command as a view of the read buffer that is valid until the next call, or {@code null} at the
+     * end of the stream
+     */
+    ByteBuffer next() throws IOException {
+        while (true) {
+            final int length = commandLength();
+            if (length > 0) {
+                final ByteBuffer command = buffer.slice(buffer.position(), length);
+                buffer.position(buffer.position() + length);
+                offset += length;
+                return command;
+            }
+            if (endOfStream) {
+                if (buffer.hasRemaining()) {
+                    throw new IOException("Truncated command at byte " + offset);
+                }
+                return null;
+            }
+            fill();
+        }
+    }
+    
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+    
+    /**
+     * @return the second element of a command, which is the key for all commands a bulk load is made of
+     */
+    static byte[] key(ByteBuffer command) {
+        int position = lineEnd(command, 0);
+        if (number(command, 1, position - 2) < 2) {
+            return null;
+        }
+        // skip the command name
+        final int nameStart = lineEnd(command, position);
+        position = nameStart + (int) number(command, position + 1, nameStart - 2) + 2;
+        final int keyStart = lineEnd(command, position);
+        final byte[] key = new byte[(int) number(command, position + 1, keyStart - 2)];
+        command.get(keyStart, key);
+        return key;
+    }
+    
+    private static int lineEnd(ByteBuffer bytes, int position) {
+        while (bytes.get(position) != '\n') {
+            position++;
+        }
+        return position + 1;
+    }
+    
+    private static long number(ByteBuffer bytes, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + (bytes.get(i) - '0');
+        }
+        return value;
+    }
+    
+    private int commandLength() throws IOException {
+        final int start = buffer.position();
+        cursor = start;
+        final long arguments = header('*');
+        if (arguments < 0) {
+            return -1;
+        }
+        for (long i = 0; i < arguments; i++) {
+            final long length = header('$');
+            if (length < 0 || cursor + length + 2 > buffer.limit()) {
+                return -1;
+            }
+            cursor += (int) length + 2;
+        }
+        return cursor - start;
+    }
+    
+    /**
+     * @return the number following the type byte, or -1 if the header is not completely buffered yet
+     */
+    private long header(char type) throws IOException {
+        if (cursor >= buffer.limit()) {
+            return -1;
+        }
+        if (buffer.get(cursor) != type) {
+            throw new IOException("Expected '" + type + "' at byte " + (offset + cursor - buffer.position()));
+        }
+        long value = 0;
+        for (int i = cursor + 1; i < buffer.limit(); i++) {
+            final byte b = buffer.get(i);
+            if (b == '\r') {
+                if (i + 1 >= buffer.limit()) {
+                    return -1;
+                }
+                cursor = i + 2;
+                return value;
+            }
+            if (b < '0' || b > '9') {
+                throw new IOException("Malformed header at byte " + (offset + i - buffer.position()));
+            }
+            value = value * 10 + (b - '0');
+        }
+        return -1;
+    }
+    
+    private void fill() throws IOException {
+        if (buffer.remaining() == buffer.capacity()) {
+            // a single command does not fit, which is rare enough to not pool the larger buffer
+            final ByteBuffer larger = ByteBuffer.allocateDirect(buffer.capacity() * 2);
+            larger.put(buffer);
+            buffer = larger;
+        } else {
+            buffer.compact();
+        }
+        if (channel.read(buffer) < 0) {
+            endOfStream = true;
+        }
+        buffer.flip();
+    }
+}
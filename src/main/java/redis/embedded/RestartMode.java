@@ -0,0 +1,16 @@
+package redis.embedded;
+
+public enum RestartMode {
+    /**
+     * Saves and reloads the dataset inside the running process with {@code DEBUG RELOAD}, connections stay open.
+     */
+    DEBUG_RELOAD,
+    /**
+     * Shuts down with {@code SHUTDOWN SAVE} into a data directory on tmpfs and starts a new process that loads it.
+     */
+    GRACEFUL,
+    /**
+     * Kills the process and starts a new one with whatever was persisted before.
+     */
+    HARD
+}
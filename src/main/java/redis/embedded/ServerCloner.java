@@ -0,0 +1,106 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.ports.EphemeralPortProvider;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+final class ServerCloner {
+    private static final String HOST = "127.0.0.1";
+    // a fallback in case a clone never asks for its sync, the clone count normally starts the transfer right away
+    private static final int SYNC_DELAY_SECONDS = 5;
+    
+    private ServerCloner() {
+    }
+    
+    static List<RedisServer> clone(RedisServer source, int count, Duration timeout) {
+        if (!source.isActive()) {
+            throw new EmbeddedRedisException("Can not clone a redis server that is not running");
+        }
+        if (count < 1) {
+            throw new EmbeddedRedisException("At least one clone has to be requested");
+        }
+        final PortProvider portProvider = source.portProvider() != null
+                ? source.portProvider()
+                : new EphemeralPortProvider();
+        final List<RedisServer> clones = new ArrayList<>();
+        try (RedisConnection master = source.connect()) {
+            final Map<String, String> saved = new LinkedHashMap<>();
+            for (String parameter : List.of("repl-diskless-sync", "repl-diskless-sync-delay",
+                    "repl-diskless-sync-max-replicas")) {
+                final List<?> reply = (List<?>) master.call("CONFIG", "GET", parameter);
+                saved.put(parameter, RedisConnection.asString(reply.get(1)));
+            }
+            // all clones share a single snapshot streamed straight from memory, it starts once every clone asked
+            master.call("CONFIG", "SET", "repl-diskless-sync", "yes", "repl-diskless-sync-delay", SYNC_DELAY_SECONDS,
+                    "repl-diskless-sync-max-replicas", count);
+            try {
+                for (int i = 0; i < count; i++) {
+                    final int port = portProvider.next();
+                    final RedisServer clone = new RedisServer(cloneArgs(source.args, port), port, 0, portProvider);
+                    clones.add(clone);
+                    clone.start();
+                }
+                for (RedisServer clone : clones) {
+                    try (RedisConnection connection = clone.connect()) {
+                        connection.call("REPLICAOF", HOST, source.ports().getFirst());
+                    }
+                }
+                for (RedisServer clone : clones) {
+                    ReplicationReadiness.awaitSync(source, clone, timeout);
+                }
+                for (RedisServer clone : clones) {
+                    try (RedisConnection connection = clone.connect()) {
+                        connection.call("REPLICAOF", "NO", "ONE");
+                    }
+                }
+            } finally {
+                for (Map.Entry<String, String> parameter : saved.entrySet()) {
+                    master.call("CONFIG", "SET", parameter.getKey(), parameter.getValue());
+                }
+            }
+            return clones;
+        } catch (RuntimeException e) {
+            for (RedisServer clone : clones) {
+                try {
+                    clone.stop();
+                } catch (RuntimeException ignored) {
+                }
+            }
+            throw e;
+        }
+    }
+    
+    private static List<String> cloneArgs(List<String> args, int port) {
+        final List<String> cloned = new ArrayList<>();
+        for (int i = 0; i < args.size(); i++) {
+            final String arg = args.get(i);
+            if ("--slaveof".equals(arg) || "--replicaof".equals(arg)) {
+                i += 2;
+            } else if ("--tls-port".equals(arg)) {
+                // the source holds on to its TLS port, clones are reached in plain text
+                i++;
+            } else if ("--dir".equals(arg)) {
+                // given below, a shared directory would have the clones write the same snapshot and append only files
+                i++;
+            } else if ("--port".equals(arg)) {
+                cloned.add(arg);
+                cloned.add(Integer.toString(port));
+                i++;
+            } else {
+                cloned.add(arg);
+            }
+        }
+        cloned.add("--dir");
+        cloned.add(RedisServerBuilder.dataDirectory(new File(args.getFirst()), port).getAbsolutePath());
+        // an empty clone loads the snapshot straight from the socket instead of writing it to disk first
+        cloned.add("--repl-diskless-load");
+        cloned.add("on-empty-db");
+        return cloned;
+    }
+}
@@ -0,0 +1,210 @@
+package redis.embedded;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.exceptions.RedisCommandException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+final class ShardedClusterManager {
+    static final int SLOT_COUNT = 16384;
+    private static final String HOST = "127.0.0.1";
+    private static final Duration CONVERGENCE_TIMEOUT = Duration.ofSeconds(30);
+    private static final int KEYS_PER_MIGRATE = 100;
+    private static final int MIGRATE_TIMEOUT_MILLIS = 10000;
+    
+    private ShardedClusterManager() {
+    }
+    
+    static void form(List<Redis> nodes) {
+        for (int i = 0; i < nodes.size(); i++) {
+            final int first = i * SLOT_COUNT / nodes.size();
+            final int last = (i + 1) * SLOT_COUNT / nodes.size() - 1;
+            try (RedisConnection connection = connect(nodes.get(i))) {
+                connection.call("CLUSTER", "ADDSLOTSRANGE", first, last);
+            }
+        }
+        final Redis seed = nodes.getFirst();
+        for (Redis node : nodes.subList(1, nodes.size())) {
+            meet(seed, node);
+        }
+        awaitConvergence(nodes);
+    }
+    
+    static void join(List<Redis> nodes, Redis node) {
+        meet(nodes.getFirst(), node);
+        final List<Redis> all = new ArrayList<>(nodes);
+        all.add(node);
+        awaitConvergence(all);
+    }
+    
+    static void forget(List<Redis> nodes, Redis node) {
+        final String id = nodeId(node);
+        for (Redis other : nodes) {
+            if (other != node) {
+                try (RedisConnection connection = connect(other)) {
+                    connection.call("CLUSTER", "FORGET", id);
+                }
+            }
+        }
+    }
+    
+    static String nodeId(Redis node) {
+        try (RedisConnection connection = connect(node)) {
+            return connection.callString("CLUSTER", "MYID");
+        }
+    }
+    
+    static List<Integer> slotsOf(Redis node) {
+        final String nodes;
+        try (RedisConnection connection = connect(node)) {
+            nodes = connection.callString("CLUSTER", "NODES");
+        }
+        final List<Integer> slots = new ArrayList<>();
+        for (String line : nodes.split("\n")) {
+            final String[] fields = line.trim().split(" ");
+            if (fields.length < 3 || !fields[2].contains("myself")) {
+                continue;
+            }
+            for (int i = 8; i < fields.length; i++) {
+                if (fields[i].startsWith("[")) {
+                    continue;
+                }
+                final int dash = fields[i].indexOf('-');
+                final int first = Integer.parseInt(dash < 0 ? fields[i] : fields[i].substring(0, dash));
+                final int last = dash < 0 ? first : Integer.parseInt(fields[i].substring(dash + 1));
+                for (int slot = first; slot <= last; slot++) {
+                    slots.add(slot);
+                }
+            }
+        }
+        return slots;
+    }
+    
+    static void migrate(List<Redis> masters, Redis source, Redis target, List<Integer> slots, int batchSize,
+                        SlotMigrationRecorder recorder) {
+        if (source == target) {
+            throw new EmbeddedRedisException("Source and target of a slot migration must differ");
+        }
+        final String sourceId = nodeId(source);
+        final String targetId = nodeId(target);
+        final int targetPort = port(target);
+        final Map<Redis, RedisConnection> connections = new HashMap<>();
+        try {
+            for (Redis master : masters) {
+                connections.put(master, connect(master));
+            }
+            final RedisConnection from = connections.get(source);
+            final RedisConnection to = connections.get(target);
+            for (int offset = 0; offset < slots.size(); offset += batchSize) {
+                final List<Integer> batch = slots.subList(offset, Math.min(offset + batchSize, slots.size()));
+                checkReplies(to.pipeline(setSlot(batch, "IMPORTING", sourceId)));
+                checkReplies(from.pipeline(setSlot(batch, "MIGRATING", targetId)));
+                for (int slot : batch) {
+                    final long start = System.nanoTime();
+                    final int keys = moveKeys(from, slot, targetPort);
+                    recorder.slotMigrated(slot, keys, System.nanoTime() - start);
+                }
+                // the target has to learn about the ownership first so that clients are never redirected in a loop
+                final List<Object[]> assign = setSlot(batch, "NODE", targetId);
+                checkReplies(to.pipeline(assign));
+                checkReplies(from.pipeline(assign));
+                for (Redis master : masters) {
+                    if (master != source && master != target) {
+                        connections.get(master).pipeline(assign);
+                    }
+                }
+            }
+        } finally {
+            for (RedisConnection connection : connections.values()) {
+                connection.close();
+            }
+        }
+    }
+    
+    static void awaitConvergence(List<Redis> nodes) {
+        final long deadline = System.nanoTime() + CONVERGENCE_TIMEOUT.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (converged(nodes)) {
+                return;
+            }
+            try {
+                TimeUnit.MILLISECONDS.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new EmbeddedRedisException("Interrupted while waiting for cluster to converge", e);
+            }
+        }
+        throw new EmbeddedRedisException("Cluster did not converge within " + CONVERGENCE_TIMEOUT);
+    }
+    
+    private static boolean converged(List<Redis> nodes) {
+        for (Redis node : nodes) {
+            final String info;
+            try (RedisConnection connection = connect(node)) {
+                info = connection.callString("CLUSTER", "INFO");
+            }
+            if (!info.contains("cluster_state:ok") || !info.contains("cluster_known_nodes:" + nodes.size() + "\r")) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static int moveKeys(RedisConnection from, int slot, int targetPort) {
+        int moved = 0;
+        while (true) {
+            @SuppressWarnings("unchecked")
+            final List<Object> keys = (List<Object>) from.call("CLUSTER", "GETKEYSINSLOT", slot, KEYS_PER_MIGRATE);
+            if (keys.isEmpty()) {
+                return moved;
+            }
+            final List<Object> command = new ArrayList<>(keys.size() + 8);
+            command.add("MIGRATE");
+            command.add(HOST);
+            command.add(targetPort);
+            command.add("");
+            command.add(0);
+            command.add(MIGRATE_TIMEOUT_MILLIS);
+            command.add("REPLACE");
+            command.add("KEYS");
+            command.addAll(keys);
+            from.call(command.toArray());
+            moved += keys.size();
+        }
+    }
+    
+    private static List<Object[]> setSlot(List<Integer> slots, String subcommand, String nodeId) {
+        final List<Object[]> commands = new ArrayList<>(slots.size());
+        for (int slot : slots) {
+            commands.add(new Object[]{"CLUSTER", "SETSLOT", slot, subcommand, nodeId});
+        }
+        return commands;
+    }
+    
+    private static void checkReplies(List<Object> replies) {
+        for (Object reply : replies) {
+            if (reply instanceof RedisCommandException) {
+                throw (RedisCommandException) reply;
+            }
+        }
+    }
+    
+    private static void meet(Redis seed, Redis node) {
+        try (RedisConnection connection = connect(seed)) {
+            connection.call("CLUSTER", "MEET", HOST, port(node));
+        }
+    }
+    
+    private static RedisConnection connect(Redis node) {
+        return RedisConnection.open(port(node));
+    }
+    
+    private static int port(Redis node) {
+        return node.ports().getFirst();
+    }
+}
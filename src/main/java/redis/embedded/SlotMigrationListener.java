@@ -0,0 +1,8 @@
+package redis.embedded;
+
+public interface SlotMigrationListener {
+    SlotMigrationListener NONE = (slot, keys, elapsedNanos, migratedSlots, totalSlots) -> {
+    };
+    
+    void onSlotMigrated(int slot, int keys, long elapsedNanos, int migratedSlots, int totalSlots);
+}
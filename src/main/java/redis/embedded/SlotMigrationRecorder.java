@@ -0,0 +1,29 @@
+package redis.embedded;
+
+import java.util.Arrays;
+
+final class SlotMigrationRecorder {
+    private final SlotMigrationListener listener;
+    private final int totalSlots;
+    private final long[] slotNanos;
+    private final long start = System.nanoTime();
+    private int migratedSlots;
+    private long keys;
+    
+    SlotMigrationRecorder(SlotMigrationListener listener, int totalSlots) {
+        this.listener = listener;
+        this.totalSlots = totalSlots;
+        this.slotNanos = new long[totalSlots];
+    }
+    
+    void slotMigrated(int slot, int keys, long elapsedNanos) {
+        this.slotNanos[migratedSlots++] = elapsedNanos;
+        this.keys += keys;
+        listener.onSlotMigrated(slot, keys, elapsedNanos, migratedSlots, totalSlots);
+    }
+    
+    SlotMigrationReport report() {
+        return new SlotMigrationReport(migratedSlots, keys, System.nanoTime() - start,
+                Arrays.copyOf(slotNanos, migratedSlots));
+    }
+}
@@ -0,0 +1,49 @@
+package redis.embedded;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+public class SlotMigrationReport {
+    private final int slots;
+    private final long keys;
+    private final long elapsedNanos;
+    private final long[] sortedSlotNanos;
+    
+    SlotMigrationReport(int slots, long keys, long elapsedNanos, long[] slotNanos) {
+        this.slots = slots;
+        this.keys = keys;
+        this.elapsedNanos = elapsedNanos;
+        this.sortedSlotNanos = slotNanos.clone();
+        Arrays.sort(this.sortedSlotNanos);
+    }
+    
+    public int slots() {
+        return slots;
+    }
+    
+    public long keys() {
+        return keys;
+    }
+    
+    public Duration elapsed() {
+        return Duration.ofNanos(elapsedNanos);
+    }
+    
+    public Duration slotTime(double percentile) {
+        if (sortedSlotNanos.length == 0) {
+            return Duration.ZERO;
+        }
+        final int index = (int) Math.ceil(percentile / 100.0 * sortedSlotNanos.length) - 1;
+        return Duration.ofNanos(sortedSlotNanos[Math.max(0, Math.min(index, sortedSlotNanos.length - 1))]);
+    }
+    
+    public Duration maxSlotTime() {
+        return slotTime(100.0);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%d slots, %d keys in %s (p50 %s, p99 %s, max %s per slot)",
+                slots, keys, elapsed(), slotTime(50.0), slotTime(99.0), maxSlotTime());
+    }
+}
@@ -0,0 +1,93 @@
+package redis.embedded.benchmark;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses the output of {@code redis-benchmark --csv}. Columns are looked up by their header, so the throughput only
+ * output of versions before 7 parses as well.
+ */
+class BenchmarkCsvParser {
+    private static final String TEST = "test";
+    private static final String REQUESTS_PER_SECOND = "rps";
+    
+    private BenchmarkCsvParser() {
+    }
+    
+    static List<BenchmarkResult> parse(List<String> lines) {
+        final List<BenchmarkResult> results = new ArrayList<>();
+        Map<String, Integer> columns = null;
+        for (String line : lines) {
+            // anything that is not a quoted csv row is a warning printed on the same stream
+            if (!line.startsWith("\"")) {
+                continue;
+            }
+            final List<String> fields = split(line);
+            if (columns == null) {
+                columns = new HashMap<>();
+                for (int i = 0; i < fields.size(); i++) {
+                    columns.put(fields.get(i), i);
+                }
+                if (!columns.containsKey(TEST) || !columns.containsKey(REQUESTS_PER_SECOND)) {
+                    throw new EmbeddedRedisException("Unexpected redis-benchmark csv header: " + line);
+                }
+                continue;
+            }
+            try {
+                results.add(new BenchmarkResult(
+                        fields.get(columns.get(TEST)),
+                        Double.parseDouble(fields.get(columns.get(REQUESTS_PER_SECOND))),
+                        latency(fields, columns, "avg_latency_ms"),
+                        latency(fields, columns, "min_latency_ms"),
+                        latency(fields, columns, "p50_latency_ms"),
+                        latency(fields, columns, "p95_latency_ms"),
+                        latency(fields, columns, "p99_latency_ms"),
+                        latency(fields, columns, "max_latency_ms")));
+            } catch (RuntimeException e) {
+                throw new EmbeddedRedisException("Unexpected redis-benchmark csv row: " + line, e);
+            }
+        }
+        return results;
+    }
+    
+    private static Duration latency(List<String> fields, Map<String, Integer> columns, String column) {
+        final Integer index = columns.get(column);
+        if (index == null) {
+            return null;
+        }
+        return Duration.ofNanos(Math.round(Double.parseDouble(fields.get(index)) * 1_000_000));
+    }
+    
+    static List<String> split(String line) {
+        final List<String> fields = new ArrayList<>();
+        final StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
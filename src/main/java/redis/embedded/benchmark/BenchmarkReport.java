@@ -0,0 +1,41 @@
+package redis.embedded.benchmark;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.util.List;
+
+public class BenchmarkReport {
+    private final List<BenchmarkResult> results;
+    
+    BenchmarkReport(List<BenchmarkResult> results) {
+        this.results = List.copyOf(results);
+    }
+    
+    /**
+     * @return the results in the order the tests ran
+     */
+    public List<BenchmarkResult> results() {
+        return results;
+    }
+    
+    /**
+     * Looks up a test by its name, ignoring case.
+     */
+    public BenchmarkResult result(String test) {
+        for (BenchmarkResult result : results) {
+            if (result.test().equalsIgnoreCase(test)) {
+                return result;
+            }
+        }
+        throw new EmbeddedRedisException("No result for test " + test + " in " + results);
+    }
+    
+    public double requestsPerSecond(String test) {
+        return result(test).requestsPerSecond();
+    }
+    
+    @Override
+    public String toString() {
+        return results.toString();
+    }
+}
@@ -0,0 +1,70 @@
+package redis.embedded.benchmark;
+
+import java.time.Duration;
+
+/**
+ * Throughput and latency of one {@code redis-benchmark} test. Latencies the running {@code redis-benchmark} does not
+ * report are {@code null}.
+ */
+public class BenchmarkResult {
+    private final String test;
+    private final double requestsPerSecond;
+    private final Duration averageLatency;
+    private final Duration minLatency;
+    private final Duration p50Latency;
+    private final Duration p95Latency;
+    private final Duration p99Latency;
+    private final Duration maxLatency;
+    
+    BenchmarkResult(String test, double requestsPerSecond, Duration averageLatency, Duration minLatency,
+            Duration p50Latency, Duration p95Latency, Duration p99Latency, Duration maxLatency) {
+        this.test = test;
+        this.requestsPerSecond = requestsPerSecond;
+        this.averageLatency = averageLatency;
+        this.minLatency = minLatency;
+        this.p50Latency = p50Latency;
+        this.p95Latency = p95Latency;
+        this.p99Latency = p99Latency;
+        this.maxLatency = maxLatency;
+    }
+    
+    /**
+     * @return the test name as {@code redis-benchmark} prints it, e.g. {@code SET} or {@code MSET (10 keys)}
+     */
+    public String test() {
+        return test;
+    }
+    
+    public double requestsPerSecond() {
+        return requestsPerSecond;
+    }
+    
+    public Duration averageLatency() {
+        return averageLatency;
+    }
+    
+    public Duration minLatency() {
+        return minLatency;
+    }
+    
+    public Duration p50Latency() {
+        return p50Latency;
+    }
+    
+    public Duration p95Latency() {
+        return p95Latency;
+    }
+    
+    public Duration p99Latency() {
+        return p99Latency;
+    }
+    
+    public Duration maxLatency() {
+        return maxLatency;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s: %.2f requests/s, p50 %s, p99 %s", test, requestsPerSecond, p50Latency, p99Latency);
+    }
+}
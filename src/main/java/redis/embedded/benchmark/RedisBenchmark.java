@@ -0,0 +1,123 @@
+package redis.embedded.benchmark;
+
+import redis.embedded.Redis;
+import redis.embedded.RedisCluster;
+import redis.embedded.RedisExecProvider;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the {@code redis-benchmark} built together with the enclosed {@code redis-server} against an instance:
+ * <pre>
+ * assertTrue(RedisBenchmark.builder().tests("set").build().run(server).requestsPerSecond("SET") &gt; 50000);
+ * </pre>
+ * A sharded {@link RedisCluster} is benchmarked in cluster mode; any other cluster through the master of its first
+ * replication group.
+ */
+public class RedisBenchmark {
+    private static final String HOST = "127.0.0.1";
+    
+    private final RedisExecProvider execProvider;
+    private final List<String> args;
+    private final List<String> command;
+    private final boolean cluster;
+    private final Duration timeout;
+    private File executable;
+    
+    RedisBenchmark(RedisExecProvider execProvider, List<String> args, List<String> command, boolean cluster,
+            Duration timeout) {
+        this.execProvider = execProvider;
+        this.args = List.copyOf(args);
+        this.command = List.copyOf(command);
+        this.cluster = cluster;
+        this.timeout = timeout;
+    }
+    
+    public static RedisBenchmarkBuilder builder() {
+        return new RedisBenchmarkBuilder();
+    }
+    
+    public BenchmarkReport run(Redis target) throws EmbeddedRedisException {
+        final List<String> commandLine = commandLine(target);
+        Path output = null;
+        try {
+            output = Files.createTempFile("redis-benchmark", ".csv");
+            final Process process = new ProcessBuilder(commandLine)
+                    .redirectErrorStream(true)
+                    .redirectOutput(output.toFile())
+                    .start();
+            if (!process.waitFor(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                process.destroyForcibly();
+                throw new EmbeddedRedisException("redis-benchmark did not finish within " + timeout);
+            }
+            final List<String> lines = Files.readAllLines(output, StandardCharsets.UTF_8);
+            if (process.exitValue() != 0) {
+                throw new EmbeddedRedisException("redis-benchmark exited with " + process.exitValue() + ": "
+                        + String.join(System.lineSeparator(), lines));
+            }
+            final List<BenchmarkResult> results = BenchmarkCsvParser.parse(lines);
+            if (results.isEmpty()) {
+                throw new EmbeddedRedisException("redis-benchmark reported no results: "
+                        + String.join(System.lineSeparator(), lines));
+            }
+            return new BenchmarkReport(results);
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Failed to run redis-benchmark", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddedRedisException("Interrupted while running redis-benchmark", e);
+        } finally {
+            if (output != null) {
+                output.toFile().delete();
+            }
+        }
+    }
+    
+    private List<String> commandLine(Redis target) {
+        Redis server = target;
+        boolean clusterMode = cluster;
+        if (target instanceof RedisCluster) {
+            final RedisCluster redisCluster = (RedisCluster) target;
+            clusterMode |= redisCluster.isSharded();
+            server = clusterMode || redisCluster.replicationGroups().isEmpty()
+                    ? redisCluster.servers().getFirst()
+                    : redisCluster.replicationGroups().getFirst().master();
+        }
+        if (server.ports().isEmpty()) {
+            throw new EmbeddedRedisException("redis-benchmark needs a plain text port to connect to");
+        }
+        final List<String> commandLine = new ArrayList<>();
+        commandLine.add(executable().getAbsolutePath());
+        commandLine.add("-h");
+        commandLine.add(HOST);
+        commandLine.add("-p");
+        commandLine.add(Integer.toString(server.ports().getFirst()));
+        commandLine.addAll(args);
+        if (clusterMode) {
+            commandLine.add("--cluster");
+        }
+        commandLine.add("--csv");
+        commandLine.addAll(command);
+        return commandLine;
+    }
+    
+    private synchronized File executable() {
+        if (executable == null) {
+            try {
+                executable = execProvider.get();
+            } catch (IOException e) {
+                throw new EmbeddedRedisException("Failed to resolve the redis-benchmark executable", e);
+            }
+        }
+        return executable;
+    }
+}
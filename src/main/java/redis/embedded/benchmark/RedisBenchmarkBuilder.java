@@ -0,0 +1,143 @@
+package redis.embedded.benchmark;
+
+import redis.embedded.RedisExecProvider;
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class RedisBenchmarkBuilder {
+    private RedisExecProvider execProvider = RedisExecProvider.benchmarkProvider();
+    private int clients = 50;
+    private int requests = 100000;
+    private int pipeline = 1;
+    private int dataSize = 3;
+    private int keyspace = 0;
+    private int threads = 0;
+    private boolean cluster = false;
+    private final List<String> tests = new ArrayList<>();
+    private final List<String> command = new ArrayList<>();
+    private Duration timeout = Duration.ofMinutes(5);
+    
+    RedisBenchmarkBuilder() {
+    }
+    
+    public RedisBenchmarkBuilder execProvider(RedisExecProvider execProvider) {
+        this.execProvider = execProvider;
+        return this;
+    }
+    
+    /**
+     * Sets the number of parallel connections, {@code -c}.
+     */
+    public RedisBenchmarkBuilder clients(int clients) {
+        this.clients = clients;
+        return this;
+    }
+    
+    /**
+     * Sets the number of requests per test, {@code -n}.
+     */
+    public RedisBenchmarkBuilder requests(int requests) {
+        this.requests = requests;
+        return this;
+    }
+    
+    /**
+     * Sets the number of requests each connection pipelines, {@code -P}.
+     */
+    public RedisBenchmarkBuilder pipeline(int pipeline) {
+        this.pipeline = pipeline;
+        return this;
+    }
+    
+    /**
+     * Sets the value size in bytes for SET, GET and the other tests writing values, {@code -d}.
+     */
+    public RedisBenchmarkBuilder dataSize(int dataSize) {
+        this.dataSize = dataSize;
+        return this;
+    }
+    
+    /**
+     * Spreads the keys of the tests over {@code keyspace} random keys instead of a single one, {@code -r}.
+     */
+    public RedisBenchmarkBuilder keyspace(int keyspace) {
+        this.keyspace = keyspace;
+        return this;
+    }
+    
+    /**
+     * Runs the benchmark on several threads, {@code --threads}. A single client thread usually saturates before an
+     * io-threaded server does.
+     */
+    public RedisBenchmarkBuilder threads(int threads) {
+        this.threads = threads;
+        return this;
+    }
+    
+    /**
+     * Benchmarks a cluster mode server or sharded cluster, {@code --cluster}. Sharded {@code RedisCluster}s are
+     * benchmarked in cluster mode anyway.
+     */
+    public RedisBenchmarkBuilder cluster(boolean cluster) {
+        this.cluster = cluster;
+        return this;
+    }
+    
+    /**
+     * Restricts the run to the given tests, {@code -t}, e.g. {@code set}, {@code get} or {@code lrange}. All tests
+     * run by default.
+     */
+    public RedisBenchmarkBuilder tests(String... tests) {
+        this.tests.addAll(Arrays.asList(tests));
+        return this;
+    }
+    
+    /**
+     * Benchmarks a single custom command instead of the predefined tests. {@code __rand_int__} in the arguments is
+     * replaced with a random number below the {@link #keyspace(int) keyspace}.
+     */
+    public RedisBenchmarkBuilder command(String... command) {
+        this.command.clear();
+        this.command.addAll(Arrays.asList(command));
+        return this;
+    }
+    
+    public RedisBenchmarkBuilder timeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+    
+    public RedisBenchmark build() {
+        if (clients < 1 || requests < 1 || pipeline < 1 || dataSize < 1) {
+            throw new RedisBuildingException("Clients, requests, pipeline and data size have to be positive");
+        }
+        if (keyspace < 0 || threads < 0) {
+            throw new RedisBuildingException("Keyspace and threads can not be negative");
+        }
+        if (!tests.isEmpty() && !command.isEmpty()) {
+            throw new RedisBuildingException("Either predefined tests or a custom command can be benchmarked");
+        }
+        final List<String> args = new ArrayList<>(Arrays.asList(
+                "-c", Integer.toString(clients),
+                "-n", Integer.toString(requests),
+                "-P", Integer.toString(pipeline),
+                "-d", Integer.toString(dataSize)));
+        if (keyspace > 0) {
+            args.add("-r");
+            args.add(Integer.toString(keyspace));
+        }
+        if (threads > 0) {
+            args.add("--threads");
+            args.add(Integer.toString(threads));
+        }
+        if (!tests.isEmpty()) {
+            args.add("-t");
+            args.add(String.join(",", tests));
+        }
+        return new RedisBenchmark(execProvider, args, command, cluster, timeout);
+    }
+}
@@ -0,0 +1,8 @@
+package redis.embedded.exceptions;
+
+public class RedisCommandException
+        extends EmbeddedRedisException {
+    public RedisCommandException(String message) {
+        super(message);
+    }
+}
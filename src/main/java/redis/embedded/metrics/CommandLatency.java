@@ -0,0 +1,102 @@
+package redis.embedded.metrics;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * The latency distribution of one command, from the power of two buckets of {@code LATENCY HISTOGRAM}. Each bucket
+ * counts the calls that took at most its bound, so the counts never decrease.
+ */
+public class CommandLatency {
+    private final String command;
+    private final long calls;
+    private final NavigableMap<Long, Long> cumulative;
+    
+    CommandLatency(String command, long calls, NavigableMap<Long, Long> cumulative) {
+        this.command = command;
+        this.calls = calls;
+        this.cumulative = cumulative;
+    }
+    
+    /**
+     * @return the command in lower case, with its subcommand after a {@code |} as in {@code config|set}
+     */
+    public String command() {
+        return command;
+    }
+    
+    public long calls() {
+        return calls;
+    }
+    
+    /**
+     * @return the number of calls up to each bucket bound in microseconds
+     */
+    public NavigableMap<Long, Long> histogram() {
+        return Collections.unmodifiableNavigableMap(cumulative);
+    }
+    
+    /**
+     * @return the bound of the bucket the percentile falls into, so at most twice the actual latency
+     */
+    public Duration percentile(double percentile) {
+        final long rank = (long) Math.ceil(percentile / 100 * calls);
+        for (Map.Entry<Long, Long> bucket : cumulative.entrySet()) {
+            if (bucket.getValue() >= rank) {
+                return Duration.ofNanos(bucket.getKey() * 1000);
+            }
+        }
+        return cumulative.isEmpty() ? Duration.ZERO : Duration.ofNanos(cumulative.lastKey() * 1000);
+    }
+    
+    public Duration max() {
+        return percentile(100);
+    }
+    
+    /**
+     * @return the calls after {@code earlier}, bucket by bucket
+     */
+    CommandLatency minus(CommandLatency earlier) {
+        if (earlier == null) {
+            return this;
+        }
+        if (earlier.calls > calls) {
+            // the node was restarted in between, everything it reports happened since
+            return this;
+        }
+        final NavigableMap<Long, Long> difference = new TreeMap<>();
+        for (Map.Entry<Long, Long> bucket : cumulative.entrySet()) {
+            final Map.Entry<Long, Long> before = earlier.cumulative.floorEntry(bucket.getKey());
+            final long count = bucket.getValue() - (before == null ? 0 : before.getValue());
+            if (count > 0) {
+                difference.put(bucket.getKey(), count);
+            }
+        }
+        return new CommandLatency(command, calls - earlier.calls, difference);
+    }
+    
+    CommandLatency plus(CommandLatency other) {
+        final NavigableMap<Long, Long> sum = new TreeMap<>();
+        for (Long bound : cumulative.keySet()) {
+            sum.put(bound, countUpTo(bound) + other.countUpTo(bound));
+        }
+        for (Long bound : other.cumulative.keySet()) {
+            sum.put(bound, countUpTo(bound) + other.countUpTo(bound));
+        }
+        return new CommandLatency(command, calls + other.calls, sum);
+    }
+    
+    private long countUpTo(long bound) {
+        final Map.Entry<Long, Long> bucket = cumulative.floorEntry(bound);
+        return bucket == null ? 0 : bucket.getValue();
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s: %d calls, p50 %s p99 %s max %s", command, calls, percentile(50), percentile(99),
+                max());
+    }
+}
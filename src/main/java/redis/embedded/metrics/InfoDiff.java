@@ -0,0 +1,91 @@
+package redis.embedded.metrics;
+
+import java.time.Duration;
+
+/**
+ * The change of the counters of one instance between two {@link InfoSnapshot}s of it. Fields missing from the earlier
+ * snapshot, such as the stats of a command first called in between, count from zero.
+ */
+public class InfoDiff {
+    private final InfoSnapshot earlier;
+    private final InfoSnapshot later;
+    
+    InfoDiff(InfoSnapshot earlier, InfoSnapshot later) {
+        this.earlier = earlier;
+        this.later = later;
+    }
+    
+    public InfoSnapshot earlier() {
+        return earlier;
+    }
+    
+    public InfoSnapshot later() {
+        return later;
+    }
+    
+    public Duration elapsed() {
+        return Duration.ofNanos(later.nanoTime() - earlier.nanoTime());
+    }
+    
+    public long delta(String field) {
+        return later.getLong(field, 0) - earlier.getLong(field, 0);
+    }
+    
+    /**
+     * @return the change of the field per second, CPU utilization for {@code used_cpu_sys} and {@code used_cpu_user}
+     */
+    public double rate(String field) {
+        final long nanos = later.nanoTime() - earlier.nanoTime();
+        if (nanos == 0) {
+            return 0;
+        }
+        return (later.getDouble(field, 0) - earlier.getDouble(field, 0)) * 1_000_000_000.0 / nanos;
+    }
+    
+    /**
+     * @return the commands processed per second over the whole interval, unlike the sampled
+     * {@code instantaneous_ops_per_sec}
+     */
+    public double opsPerSecond() {
+        return rate("total_commands_processed");
+    }
+    
+    public double keyspaceHitsPerSecond() {
+        return rate("keyspace_hits");
+    }
+    
+    public double keyspaceMissesPerSecond() {
+        return rate("keyspace_misses");
+    }
+    
+    /**
+     * @return the share of lookups during the interval that found their key
+     */
+    public double hitRatio() {
+        final long hits = delta("keyspace_hits");
+        final long lookups = hits + delta("keyspace_misses");
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+    
+    public long evictedKeys() {
+        return delta("evicted_keys");
+    }
+    
+    public long rejectedConnections() {
+        return delta("rejected_connections");
+    }
+    
+    /**
+     * @return how much {@code used_memory} grew, negative when it shrank
+     */
+    public long usedMemoryGrowth() {
+        return delta("used_memory");
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("InfoDiff{elapsed=%s, opsPerSecond=%.1f, hitRatio=%.3f, evictedKeys=%d, "
+                        + "rejectedConnections=%d, usedMemoryGrowth=%d}", elapsed(), opsPerSecond(), hitRatio(),
+                evictedKeys(), rejectedConnections(), usedMemoryGrowth());
+    }
+}
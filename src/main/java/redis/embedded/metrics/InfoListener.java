@@ -0,0 +1,8 @@
+package redis.embedded.metrics;
+
+public interface InfoListener {
+    /**
+     * @param sinceLast the change since the previous sample, null for the first sample or after a restart
+     */
+    void onSample(InfoSubscription subscription, InfoSnapshot snapshot, InfoDiff sinceLast);
+}
@@ -0,0 +1,168 @@
+package redis.embedded.metrics;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Parses an {@code INFO} reply straight from the chunks {@link redis.embedded.RedisConnection#callBulk} hands out,
+ * without turning the reply into a string first. Numbers are read from the bytes, only field names and the few
+ * textual values become strings. Only a line split between two chunks is copied.
+ */
+class InfoParser
+        implements Consumer<ByteBuffer> {
+    // sections whose values are comma separated key=value pairs, flattened to "db0.keys" and the like
+    private static final Set<String> NESTED_SECTIONS = Set.of(
+            "keyspace", "commandstats", "errorstats", "latencystats", "modules");
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L, 1_000_000_000L,
+            10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L, 10_000_000_000_000L, 100_000_000_000_000L,
+            1_000_000_000_000_000L};
+    // integer and fraction digits that fit a double exactly, so that dividing by a power of ten rounds correctly
+    private static final int MAX_DECIMAL_DIGITS = 15;
+    private static final int MAX_LONG_DIGITS = 18;
+    
+    private final Map<String, Map<String, Object>> sections = new LinkedHashMap<>();
+    private Map<String, Object> section;
+    private boolean nested;
+    private byte[] carry = new byte[256];
+    private int carryLength;
+    
+    @Override
+    public void accept(ByteBuffer chunk) {
+        int start = chunk.position();
+        final int limit = chunk.limit();
+        for (int i = start; i < limit; i++) {
+            if (chunk.get(i) == '\n') {
+                if (carryLength > 0) {
+                    append(chunk, start, i);
+                    parseLine(ByteBuffer.wrap(carry), 0, carryLength);
+                    carryLength = 0;
+                } else {
+                    parseLine(chunk, start, i);
+                }
+                start = i + 1;
+            }
+        }
+        append(chunk, start, limit);
+    }
+    
+    Map<String, Map<String, Object>> finish() {
+        if (carryLength > 0) {
+            parseLine(ByteBuffer.wrap(carry), 0, carryLength);
+            carryLength = 0;
+        }
+        return sections;
+    }
+    
+    private void append(ByteBuffer chunk, int from, int to) {
+        final int length = to - from;
+        if (length == 0) {
+            return;
+        }
+        if (carryLength + length > carry.length) {
+            final byte[] grown = new byte[Math.max(carry.length * 2, carryLength + length)];
+            System.arraycopy(carry, 0, grown, 0, carryLength);
+            carry = grown;
+        }
+        chunk.get(from, carry, carryLength, length);
+        carryLength += length;
+    }
+    
+    private void parseLine(ByteBuffer buffer, int from, int to) {
+        if (to > from && buffer.get(to - 1) == '\r') {
+            to--;
+        }
+        if (to == from) {
+            return;
+        }
+        if (buffer.get(from) == '#') {
+            final String name = string(buffer, from + 1, to).trim().toLowerCase(Locale.ROOT);
+            section = sections.computeIfAbsent(name, ignored -> new LinkedHashMap<>());
+            nested = NESTED_SECTIONS.contains(name);
+            return;
+        }
+        final int colon = indexOf(buffer, from, to, (byte) ':');
+        if (colon < 0) {
+            return;
+        }
+        if (section == null) {
+            section = sections.computeIfAbsent("", ignored -> new LinkedHashMap<>());
+        }
+        final String key = string(buffer, from, colon);
+        if (!nested) {
+            section.put(key, value(buffer, colon + 1, to));
+            return;
+        }
+        int start = colon + 1;
+        while (start < to) {
+            int end = indexOf(buffer, start, to, (byte) ',');
+            if (end < 0) {
+                end = to;
+            }
+            final int equals = indexOf(buffer, start, end, (byte) '=');
+            if (equals > start) {
+                section.put(key + "." + string(buffer, start, equals), value(buffer, equals + 1, end));
+            }
+            start = end + 1;
+        }
+    }
+    
+    static Object value(ByteBuffer buffer, int from, int to) {
+        final boolean negative = to > from && buffer.get(from) == '-';
+        final int start = negative ? from + 1 : from;
+        long integer = 0;
+        long fraction = 0;
+        int fractionDigits = -1;
+        for (int i = start; i < to; i++) {
+            final byte b = buffer.get(i);
+            if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (b >= '0' && b <= '9') {
+                if (fractionDigits < 0) {
+                    integer = integer * 10 + (b - '0');
+                } else {
+                    fraction = fraction * 10 + (b - '0');
+                    fractionDigits++;
+                }
+            } else {
+                return string(buffer, from, to);
+            }
+        }
+        final int digits = to - start - (fractionDigits < 0 ? 0 : 1);
+        if (digits == 0 || fractionDigits == 0) {
+            return string(buffer, from, to);
+        }
+        if (fractionDigits < 0) {
+            if (digits > MAX_LONG_DIGITS) {
+                return string(buffer, from, to);
+            }
+            return negative ? -integer : integer;
+        }
+        if (digits > MAX_DECIMAL_DIGITS) {
+            return Double.parseDouble(string(buffer, from, to));
+        }
+        final double value = (double) (integer * POWERS_OF_TEN[fractionDigits] + fraction)
+                / POWERS_OF_TEN[fractionDigits];
+        return negative ? -value : value;
+    }
+    
+    private static int indexOf(ByteBuffer buffer, int from, int to, byte target) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+    
+    private static String string(ByteBuffer buffer, int from, int to) {
+        final byte[] bytes = new byte[to - from];
+        buffer.get(from, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
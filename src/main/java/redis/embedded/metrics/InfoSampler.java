@@ -0,0 +1,120 @@
+package redis.embedded.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.embedded.Redis;
+import redis.embedded.RedisCluster;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Polls {@code INFO} of every registered instance on a single virtual thread shared by the whole JVM, however many
+ * instances and intervals there are:
+ * <pre>
+ * try (InfoSubscription subscription = InfoSampler.shared().register(server, Duration.ofMillis(100))) {
+ *     ...
+ *     InfoDiff lastInterval = subscription.latestDiff();
+ * }
+ * </pre>
+ * Listeners run on the sampler thread, so a slow one delays every subscription.
+ */
+public final class InfoSampler {
+    private static final Logger LOG = LoggerFactory.getLogger(InfoSampler.class);
+    private static final Duration IDLE = Duration.ofSeconds(1);
+    private static InfoSampler shared;
+    
+    private final List<InfoSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final Thread thread;
+    
+    private InfoSampler() {
+        thread = Thread.ofVirtual().name("info-sampler").start(this::run);
+    }
+    
+    public static synchronized InfoSampler shared() {
+        if (shared == null) {
+            shared = new InfoSampler();
+        }
+        return shared;
+    }
+    
+    /**
+     * Samples every section of the instance once per interval, starting right away.
+     */
+    public InfoSubscription register(Redis instance, Duration interval) throws EmbeddedRedisException {
+        return register(instance, interval, new String[0]);
+    }
+    
+    /**
+     * Samples the given sections of the instance once per interval, starting right away. Of a cluster, register each
+     * of its servers or sentinels.
+     */
+    public InfoSubscription register(Redis instance, Duration interval, String... sections)
+            throws EmbeddedRedisException {
+        if (instance instanceof RedisCluster) {
+            throw new EmbeddedRedisException("Register the servers of a cluster one by one");
+        }
+        if (instance.ports().isEmpty()) {
+            throw new EmbeddedRedisException("Redis instance has no plain text port to sample");
+        }
+        if (interval.isZero() || interval.isNegative()) {
+            throw new EmbeddedRedisException("The sampling interval has to be positive, was " + interval);
+        }
+        final InfoSubscription subscription = new InfoSubscription(this, instance, interval, sections.clone());
+        subscriptions.add(subscription);
+        LockSupport.unpark(thread);
+        return subscription;
+    }
+    
+    void unregister(InfoSubscription subscription) {
+        if (subscriptions.remove(subscription)) {
+            // the sampler thread closes the connection, it may be using it right now
+            LockSupport.unpark(thread);
+        }
+    }
+    
+    /**
+     * @return the subscriptions being sampled
+     */
+    public List<InfoSubscription> subscriptions() {
+        return List.copyOf(subscriptions);
+    }
+    
+    private void run() {
+        final List<InfoSubscription> sampled = new CopyOnWriteArrayList<>();
+        while (true) {
+            for (InfoSubscription subscription : sampled) {
+                if (!subscriptions.contains(subscription)) {
+                    subscription.closeConnection();
+                    sampled.remove(subscription);
+                }
+            }
+            final long now = System.nanoTime();
+            long next = now + IDLE.toNanos();
+            for (InfoSubscription subscription : subscriptions) {
+                if (!sampled.contains(subscription)) {
+                    sampled.add(subscription);
+                    sample(subscription, now);
+                } else if (subscription.nextDue() - now <= 0) {
+                    sample(subscription, now);
+                }
+                if (subscription.nextDue() - next < 0) {
+                    next = subscription.nextDue();
+                }
+            }
+            LockSupport.parkNanos(this, next - System.nanoTime());
+        }
+    }
+    
+    private static void sample(InfoSubscription subscription, long now) {
+        try {
+            subscription.sample(now);
+        } catch (RuntimeException e) {
+            // the thread is shared by the whole JVM and must outlive any one subscription
+            LOG.debug("Failed to sample INFO of redis instance on port {}", subscription.instance().ports(), e);
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package redis.embedded.metrics;
+
+import redis.embedded.RedisConnection;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The {@code INFO} of one instance at one point in time, with numbers already parsed. Fields keep the names
+ * {@code INFO} gives them. The comma separated values of the keyspace, commandstats, errorstats, latencystats and
+ * modules sections are flattened to fields such as {@code db0.keys} or {@code cmdstat_get.calls}.
+ */
+public class InfoSnapshot {
+    private static final String[] EVERYTHING = {"everything"};
+    
+    private final long nanoTime;
+    private final Map<String, Map<String, Object>> sections;
+    private final Map<String, Object> fields = new LinkedHashMap<>();
+    
+    InfoSnapshot(long nanoTime, Map<String, Map<String, Object>> sections) {
+        this.nanoTime = nanoTime;
+        this.sections = sections;
+        for (Map<String, Object> section : sections.values()) {
+            fields.putAll(section);
+        }
+    }
+    
+    /**
+     * Reads the given sections, or every section when none are given.
+     */
+    public static InfoSnapshot read(RedisConnection connection, String... sections) throws EmbeddedRedisException {
+        final String[] requested = sections.length == 0 ? EVERYTHING : sections;
+        final Object[] command = new Object[requested.length + 1];
+        command[0] = "INFO";
+        System.arraycopy(requested, 0, command, 1, requested.length);
+        final InfoParser parser = new InfoParser();
+        final long nanoTime = System.nanoTime();
+        connection.callBulk(parser, command);
+        return new InfoSnapshot(nanoTime, parser.finish());
+    }
+    
+    /**
+     * @return the {@link System#nanoTime()} the command was sent at
+     */
+    public long nanoTime() {
+        return nanoTime;
+    }
+    
+    /**
+     * @return the lower case names of the sections in the reply
+     */
+    public Set<String> sections() {
+        return Collections.unmodifiableSet(sections.keySet());
+    }
+    
+    /**
+     * @return the fields of the section as {@code Long}, {@code Double} or {@code String}, empty when it was not read
+     */
+    public Map<String, Object> section(String name) {
+        return Collections.unmodifiableMap(sections.getOrDefault(name, Collections.emptyMap()));
+    }
+    
+    public Map<String, Object> fields() {
+        return Collections.unmodifiableMap(fields);
+    }
+    
+    public boolean has(String field) {
+        return fields.containsKey(field);
+    }
+    
+    public long getLong(String field) throws EmbeddedRedisException {
+        final Object value = value(field);
+        if (value instanceof Long) {
+            return (Long) value;
+        }
+        if (value instanceof Double) {
+            return (long) (double) (Double) value;
+        }
+        throw new EmbeddedRedisException("INFO field " + field + " is not a number: " + value);
+    }
+    
+    public long getLong(String field, long defaultValue) {
+        return has(field) ? getLong(field) : defaultValue;
+    }
+    
+    public double getDouble(String field) throws EmbeddedRedisException {
+        final Object value = value(field);
+        if (value instanceof Number) {
+            return ((Number) value).doubleValue();
+        }
+        try {
+            return Double.parseDouble((String) value);
+        } catch (NumberFormatException e) {
+            throw new EmbeddedRedisException("INFO field " + field + " is not a number: " + value, e);
+        }
+    }
+    
+    public double getDouble(String field, double defaultValue) {
+        return has(field) ? getDouble(field) : defaultValue;
+    }
+    
+    public String getString(String field) throws EmbeddedRedisException {
+        return String.valueOf(value(field));
+    }
+    
+    public long usedMemory() {
+        return getLong("used_memory");
+    }
+    
+    public long instantaneousOpsPerSec() {
+        return getLong("instantaneous_ops_per_sec");
+    }
+    
+    public long totalCommandsProcessed() {
+        return getLong("total_commands_processed");
+    }
+    
+    public long keyspaceHits() {
+        return getLong("keyspace_hits");
+    }
+    
+    public long keyspaceMisses() {
+        return getLong("keyspace_misses");
+    }
+    
+    public long evictedKeys() {
+        return getLong("evicted_keys");
+    }
+    
+    public long rejectedConnections() {
+        return getLong("rejected_connections");
+    }
+    
+    public long connectedClients() {
+        return getLong("connected_clients");
+    }
+    
+    /**
+     * @return the keys of all databases together, 0 unless the keyspace section was read
+     */
+    public long keys() {
+        long keys = 0;
+        for (Map.Entry<String, Object> field : section("keyspace").entrySet()) {
+            if (field.getKey().endsWith(".keys")) {
+                keys += (Long) field.getValue();
+            }
+        }
+        return keys;
+    }
+    
+    /**
+     * @return what changed between {@code earlier} and this snapshot
+     */
+    public InfoDiff diff(InfoSnapshot earlier) throws EmbeddedRedisException {
+        final Object runId = fields.get("run_id");
+        if (runId != null && earlier.has("run_id") && !runId.equals(earlier.fields.get("run_id"))) {
+            throw new EmbeddedRedisException("Cannot diff INFO across a restart of the instance");
+        }
+        return new InfoDiff(earlier, this);
+    }
+    
+    private Object value(String field) {
+        final Object value = fields.get(field);
+        if (value == null) {
+            throw new EmbeddedRedisException("INFO does not report " + field);
+        }
+        return value;
+    }
+    
+    @Override
+    public String toString() {
+        return "InfoSnapshot" + sections;
+    }
+}
@@ -0,0 +1,151 @@
+package redis.embedded.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.embedded.Redis;
+import redis.embedded.RedisConnection;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * One instance registered with the {@link InfoSampler}, with the snapshots taken of it so far. Closing the
+ * subscription stops the sampling.
+ */
+public class InfoSubscription
+        implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(InfoSubscription.class);
+    private static final int HISTORY_SIZE = 1024;
+    private static final Duration MIN_TIMEOUT = Duration.ofMillis(100);
+    
+    private final InfoSampler sampler;
+    private final Redis instance;
+    private final Duration interval;
+    private final String[] sections;
+    private final List<InfoListener> listeners = new CopyOnWriteArrayList<>();
+    private final Deque<InfoSnapshot> history = new ArrayDeque<>();
+    private volatile InfoDiff latestDiff;
+    private RedisConnection connection;
+    private long nextDue;
+    private boolean started;
+    
+    InfoSubscription(InfoSampler sampler, Redis instance, Duration interval, String[] sections) {
+        this.sampler = sampler;
+        this.instance = instance;
+        this.interval = interval;
+        this.sections = sections;
+    }
+    
+    public Redis instance() {
+        return instance;
+    }
+    
+    public Duration interval() {
+        return interval;
+    }
+    
+    public void addListener(InfoListener listener) {
+        listeners.add(listener);
+    }
+    
+    public void removeListener(InfoListener listener) {
+        listeners.remove(listener);
+    }
+    
+    /**
+     * @return null before the first sample
+     */
+    public synchronized InfoSnapshot latest() {
+        return history.peekLast();
+    }
+    
+    /**
+     * @return the change over the last interval, null until there are two samples of the same run of the instance
+     */
+    public InfoDiff latestDiff() {
+        return latestDiff;
+    }
+    
+    /**
+     * @return the retained snapshots, oldest first
+     */
+    public synchronized List<InfoSnapshot> history() {
+        return new ArrayList<>(history);
+    }
+    
+    @Override
+    public void close() {
+        sampler.unregister(this);
+    }
+    
+    long nextDue() {
+        return nextDue;
+    }
+    
+    /**
+     * Runs on the sampler thread only, which is why the connection needs no lock.
+     */
+    void sample(long now) {
+        final long intervalNanos = interval.toNanos();
+        // a late sample does not make the following ones catch up in a burst
+        nextDue = !started || now - nextDue >= intervalNanos ? now + intervalNanos : nextDue + intervalNanos;
+        started = true;
+        if (!instance.isActive()) {
+            closeConnection();
+            return;
+        }
+        final InfoSnapshot snapshot;
+        try {
+            if (connection == null) {
+                // a paused instance holds up the other subscriptions for at most this long
+                final Duration timeout = interval.compareTo(MIN_TIMEOUT) < 0 ? MIN_TIMEOUT : interval;
+                connection = RedisConnection.open(instance.ports().getFirst(), timeout);
+            }
+            snapshot = InfoSnapshot.read(connection, sections);
+        } catch (EmbeddedRedisException e) {
+            LOG.debug("Failed to sample INFO of redis instance on port {}", instance.ports(), e);
+            closeConnection();
+            return;
+        }
+        final InfoDiff diff = record(snapshot);
+        for (InfoListener listener : listeners) {
+            try {
+                listener.onSample(this, snapshot, diff);
+            } catch (RuntimeException e) {
+                // neither the other listeners nor the shared sampler thread depend on a faulty one
+                LOG.debug("Listener failed on INFO sample of redis instance on port {}", instance.ports(), e);
+            }
+        }
+    }
+    
+    private synchronized InfoDiff record(InfoSnapshot snapshot) {
+        final InfoSnapshot previous = history.peekLast();
+        InfoDiff diff = null;
+        if (previous != null) {
+            try {
+                diff = snapshot.diff(previous);
+            } catch (EmbeddedRedisException e) {
+                // the instance was restarted, its counters start over
+                diff = null;
+            }
+        }
+        if (history.size() == HISTORY_SIZE) {
+            history.removeFirst();
+        }
+        history.addLast(snapshot);
+        latestDiff = diff;
+        return diff;
+    }
+    
+    void closeConnection() {
+        if (connection != null) {
+            connection.close();
+            connection = null;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package redis.embedded.metrics;
+
+import redis.embedded.Redis;
+import redis.embedded.RedisCluster;
+import redis.embedded.RedisConnection;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Captures the slow commands and latency a block of work causes on a server, or on every server of a cluster:
+ * <pre>
+ * LatencyReport report = LatencyCapture.builder().build().capture(cluster, () -&gt; service.handle(request));
+ * assertEquals(List.of(), report.slowerThan(Duration.ofMillis(5)));
+ * </pre>
+ * On entry the latency monitor is switched on, {@code SLOWLOG} and {@code LATENCY} are reset and the
+ * {@code LATENCY HISTOGRAM} is remembered. On exit the histogram is diffed against it, so unlike with
+ * {@code CONFIG RESETSTAT} the {@code INFO} counters others may be sampling stay untouched, and the previous
+ * configuration comes back. Sentinels have neither a slowlog nor a latency monitor and are left out.
+ */
+public class LatencyCapture {
+    // the commands of the capture itself, which would otherwise show up in the histograms it reports
+    private static final Set<String> OWN_COMMANDS = Set.of("config|get", "config|set", "slowlog|get",
+            "slowlog|reset", "latency|histogram", "latency|latest", "latency|reset");
+    static final List<String> PARAMETERS = List.of(
+            "latency-monitor-threshold", "slowlog-log-slower-than", "slowlog-max-len");
+    
+    private final long latencyMonitorThresholdMillis;
+    private final long slowlogThresholdMicros;
+    private final int slowlogMaxLength;
+    
+    LatencyCapture(long latencyMonitorThresholdMillis, long slowlogThresholdMicros, int slowlogMaxLength) {
+        this.latencyMonitorThresholdMillis = latencyMonitorThresholdMillis;
+        this.slowlogThresholdMicros = slowlogThresholdMicros;
+        this.slowlogMaxLength = slowlogMaxLength;
+    }
+    
+    public static LatencyCaptureBuilder builder() {
+        return new LatencyCaptureBuilder();
+    }
+    
+    /**
+     * Starts capturing, for blocks that do not fit a {@link Runnable}. Closing the scope without
+     * {@link LatencyScope#stop() stopping} it only restores the configuration.
+     */
+    public LatencyScope start(Redis target) throws EmbeddedRedisException {
+        return new LatencyScope(this, servers(target));
+    }
+    
+    public LatencyReport capture(Redis target, Runnable block) throws EmbeddedRedisException {
+        try (LatencyScope scope = start(target)) {
+            block.run();
+            return scope.stop();
+        }
+    }
+    
+    private static List<Redis> servers(Redis target) {
+        return target instanceof RedisCluster ? ((RedisCluster) target).servers() : List.of(target);
+    }
+    
+    /**
+     * @return the previous values of the parameters the capture changes
+     */
+    Map<String, String> configure(RedisConnection connection) {
+        final Map<String, String> previous = new LinkedHashMap<>();
+        for (String parameter : PARAMETERS) {
+            final Map<String, Object> reply = pairs(connection.call("CONFIG", "GET", parameter));
+            previous.put(parameter, RedisConnection.asString(reply.get(parameter)));
+        }
+        try {
+            connection.call("CONFIG", "SET", "latency-monitor-threshold", latencyMonitorThresholdMillis);
+            connection.call("CONFIG", "SET", "slowlog-log-slower-than", slowlogThresholdMicros);
+            connection.call("CONFIG", "SET", "slowlog-max-len", slowlogMaxLength);
+            connection.call("SLOWLOG", "RESET");
+            connection.call("LATENCY", "RESET");
+        } catch (RuntimeException e) {
+            restore(connection, previous);
+            throw e;
+        }
+        return previous;
+    }
+    
+    static void restore(RedisConnection connection, Map<String, String> previous) {
+        for (Map.Entry<String, String> parameter : previous.entrySet()) {
+            connection.call("CONFIG", "SET", parameter.getKey(), parameter.getValue());
+        }
+    }
+    
+    static Map<String, CommandLatency> histogram(RedisConnection connection) {
+        final Map<String, CommandLatency> commands = new LinkedHashMap<>();
+        for (Map.Entry<String, Object> command : pairs(connection.call("LATENCY", "HISTOGRAM")).entrySet()) {
+            if (OWN_COMMANDS.contains(command.getKey())) {
+                continue;
+            }
+            final Map<String, Object> details = pairs(command.getValue());
+            final NavigableMap<Long, Long> cumulative = new TreeMap<>();
+            for (Map.Entry<String, Object> bucket : pairs(details.get("histogram_usec")).entrySet()) {
+                cumulative.put(Long.parseLong(bucket.getKey()), (Long) bucket.getValue());
+            }
+            commands.put(command.getKey(), new CommandLatency(command.getKey(), (Long) details.get("calls"),
+                    cumulative));
+        }
+        return commands;
+    }
+    
+    List<SlowlogEntry> slowlog(RedisConnection connection, int port) {
+        final List<SlowlogEntry> entries = new ArrayList<>();
+        for (Object reply : (List<?>) connection.call("SLOWLOG", "GET", slowlogMaxLength)) {
+            final List<?> entry = (List<?>) reply;
+            final List<String> arguments = new ArrayList<>();
+            for (Object argument : (List<?>) entry.get(3)) {
+                arguments.add(RedisConnection.asString(argument));
+            }
+            entries.add(new SlowlogEntry(port, (Long) entry.get(0), Instant.ofEpochSecond((Long) entry.get(1)),
+                    Duration.ofNanos((Long) entry.get(2) * 1000), arguments,
+                    entry.size() > 4 ? RedisConnection.asString(entry.get(4)) : null,
+                    entry.size() > 5 ? RedisConnection.asString(entry.get(5)) : null));
+        }
+        return entries;
+    }
+    
+    static List<LatencyEvent> events(RedisConnection connection, int port) {
+        final List<LatencyEvent> events = new ArrayList<>();
+        for (Object reply : (List<?>) connection.call("LATENCY", "LATEST")) {
+            final List<?> event = (List<?>) reply;
+            events.add(new LatencyEvent(port, RedisConnection.asString(event.get(0)),
+                    Instant.ofEpochSecond((Long) event.get(1)), Duration.ofMillis((Long) event.get(2)),
+                    Duration.ofMillis((Long) event.get(3))));
+        }
+        return events;
+    }
+    
+    /**
+     * Reads a RESP3 map, or the flat key value array RESP2 sends instead.
+     */
+    private static Map<String, Object> pairs(Object reply) {
+        final Map<String, Object> pairs = new LinkedHashMap<>();
+        if (reply instanceof Map) {
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) reply).entrySet()) {
+                pairs.put(RedisConnection.asString(entry.getKey()), entry.getValue());
+            }
+        } else if (reply instanceof List) {
+            final List<?> list = (List<?>) reply;
+            for (int i = 0; i + 1 < list.size(); i += 2) {
+                pairs.put(RedisConnection.asString(list.get(i)), list.get(i + 1));
+            }
+        } else {
+            throw new EmbeddedRedisException("Expected a map reply but got " + reply);
+        }
+        return pairs;
+    }
+}
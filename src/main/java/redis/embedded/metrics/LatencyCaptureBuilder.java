@@ -0,0 +1,52 @@
+package redis.embedded.metrics;
+
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.time.Duration;
+
+public class LatencyCaptureBuilder {
+    private Duration latencyMonitorThreshold = Duration.ofMillis(1);
+    private Duration slowlogThreshold = Duration.ofMillis(1);
+    private int slowlogMaxLength = 1024;
+    
+    LatencyCaptureBuilder() {
+    }
+    
+    /**
+     * Sets the {@code latency-monitor-threshold} during the capture, one millisecond by default.
+     */
+    public LatencyCaptureBuilder latencyMonitorThreshold(Duration threshold) {
+        this.latencyMonitorThreshold = threshold;
+        return this;
+    }
+    
+    /**
+     * Sets the {@code slowlog-log-slower-than} during the capture, one millisecond by default.
+     */
+    public LatencyCaptureBuilder slowlogThreshold(Duration threshold) {
+        this.slowlogThreshold = threshold;
+        return this;
+    }
+    
+    /**
+     * Sets the {@code slowlog-max-len} during the capture, 1024 by default. Older entries are lost beyond it.
+     */
+    public LatencyCaptureBuilder slowlogMaxLength(int slowlogMaxLength) {
+        this.slowlogMaxLength = slowlogMaxLength;
+        return this;
+    }
+    
+    public LatencyCapture build() {
+        if (latencyMonitorThreshold.toMillis() < 1) {
+            throw new RedisBuildingException("The latency monitor counts in whole milliseconds, at least one");
+        }
+        if (slowlogThreshold.isNegative()) {
+            throw new RedisBuildingException("The slowlog threshold can not be negative");
+        }
+        if (slowlogMaxLength < 1) {
+            throw new RedisBuildingException("The slowlog has to hold at least one entry");
+        }
+        return new LatencyCapture(latencyMonitorThreshold.toMillis(), slowlogThreshold.toNanos() / 1000,
+                slowlogMaxLength);
+    }
+}
@@ -0,0 +1,54 @@
+package redis.embedded.metrics;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * A latency spike of one kind, such as {@code command} or {@code fork}, as {@code LATENCY LATEST} reports it.
+ */
+public class LatencyEvent {
+    private final int port;
+    private final String event;
+    private final Instant timestamp;
+    private final Duration latest;
+    private final Duration max;
+    
+    LatencyEvent(int port, String event, Instant timestamp, Duration latest, Duration max) {
+        this.port = port;
+        this.event = event;
+        this.timestamp = timestamp;
+        this.latest = latest;
+        this.max = max;
+    }
+    
+    public int port() {
+        return port;
+    }
+    
+    public String event() {
+        return event;
+    }
+    
+    /**
+     * @return when the latest spike happened
+     */
+    public Instant timestamp() {
+        return timestamp;
+    }
+    
+    public Duration latest() {
+        return latest;
+    }
+    
+    /**
+     * @return the longest spike since the capture started
+     */
+    public Duration max() {
+        return max;
+    }
+    
+    @Override
+    public String toString() {
+        return port + " " + event + " latest " + latest + " max " + max;
+    }
+}
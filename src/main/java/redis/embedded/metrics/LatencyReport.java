@@ -0,0 +1,76 @@
+package redis.embedded.metrics;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The slow commands, latency spikes and per command latency distributions of the nodes during a captured block.
+ */
+public class LatencyReport {
+    private final List<SlowlogEntry> slowlog;
+    private final List<LatencyEvent> events;
+    private final Map<Integer, Map<String, CommandLatency>> commands;
+    
+    LatencyReport(List<SlowlogEntry> slowlog, List<LatencyEvent> events,
+            Map<Integer, Map<String, CommandLatency>> commands) {
+        final List<SlowlogEntry> sorted = new ArrayList<>(slowlog);
+        sorted.sort(Comparator.comparing(SlowlogEntry::duration).reversed());
+        this.slowlog = Collections.unmodifiableList(sorted);
+        this.events = Collections.unmodifiableList(events);
+        this.commands = commands;
+    }
+    
+    /**
+     * @return the slow commands of all nodes, slowest first
+     */
+    public List<SlowlogEntry> slowlog() {
+        return slowlog;
+    }
+    
+    public List<SlowlogEntry> slowerThan(Duration duration) {
+        final List<SlowlogEntry> slower = new ArrayList<>();
+        for (SlowlogEntry entry : slowlog) {
+            if (entry.duration().compareTo(duration) > 0) {
+                slower.add(entry);
+            }
+        }
+        return slower;
+    }
+    
+    /**
+     * @return the latency spikes of all nodes above the monitor threshold
+     */
+    public List<LatencyEvent> events() {
+        return events;
+    }
+    
+    /**
+     * @return the latency distribution of every command called during the block, over all nodes
+     */
+    public Map<String, CommandLatency> commands() {
+        final Map<String, CommandLatency> merged = new LinkedHashMap<>();
+        for (Map<String, CommandLatency> node : commands.values()) {
+            for (CommandLatency latency : node.values()) {
+                merged.merge(latency.command(), latency, CommandLatency::plus);
+            }
+        }
+        return merged;
+    }
+    
+    /**
+     * @return the latency distribution of every command the node on the port ran during the block
+     */
+    public Map<String, CommandLatency> commands(int port) {
+        return Collections.unmodifiableMap(commands.getOrDefault(port, Collections.emptyMap()));
+    }
+    
+    @Override
+    public String toString() {
+        return "LatencyReport{slowlog=" + slowlog + ", events=" + events + ", commands=" + commands().values() + "}";
+    }
+}
@@ -0,0 +1,98 @@
+package redis.embedded.metrics;
+
+import redis.embedded.Redis;
+import redis.embedded.RedisConnection;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A running {@link LatencyCapture}. The nodes are only contacted on start and stop, so they may be restarted in
+ * between.
+ */
+public class LatencyScope
+        implements AutoCloseable {
+    private final LatencyCapture capture;
+    private final Map<Redis, Map<String, String>> previousConfig = new LinkedHashMap<>();
+    private final Map<Redis, Map<String, CommandLatency>> histograms = new LinkedHashMap<>();
+    private boolean stopped;
+    
+    LatencyScope(LatencyCapture capture, List<Redis> nodes) {
+        this.capture = capture;
+        try {
+            for (Redis node : nodes) {
+                try (RedisConnection connection = node.connect()) {
+                    previousConfig.put(node, capture.configure(connection));
+                    histograms.put(node, LatencyCapture.histogram(connection));
+                }
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+    
+    /**
+     * Collects what happened since the start and restores the configuration of the nodes.
+     */
+    public synchronized LatencyReport stop() throws EmbeddedRedisException {
+        if (stopped) {
+            throw new EmbeddedRedisException("Latency capture was already stopped");
+        }
+        stopped = true;
+        final List<SlowlogEntry> slowlog = new ArrayList<>();
+        final List<LatencyEvent> events = new ArrayList<>();
+        final Map<Integer, Map<String, CommandLatency>> commands = new LinkedHashMap<>();
+        try {
+            for (Map.Entry<Redis, Map<String, CommandLatency>> node : histograms.entrySet()) {
+                final int port = node.getKey().ports().getFirst();
+                try (RedisConnection connection = node.getKey().connect()) {
+                    final Map<String, CommandLatency> during = new LinkedHashMap<>();
+                    for (CommandLatency latency : LatencyCapture.histogram(connection).values()) {
+                        final CommandLatency difference = latency.minus(node.getValue().get(latency.command()));
+                        if (difference.calls() > 0) {
+                            during.put(difference.command(), difference);
+                        }
+                    }
+                    commands.put(port, during);
+                    slowlog.addAll(capture.slowlog(connection, port));
+                    events.addAll(LatencyCapture.events(connection, port));
+                }
+            }
+        } finally {
+            restore();
+        }
+        return new LatencyReport(slowlog, events, commands);
+    }
+    
+    /**
+     * Restores the configuration of the nodes unless {@link #stop()} already did.
+     */
+    @Override
+    public synchronized void close() {
+        if (!stopped) {
+            stopped = true;
+            restore();
+        }
+    }
+    
+    private void restore() {
+        EmbeddedRedisException failure = null;
+        for (Map.Entry<Redis, Map<String, String>> node : previousConfig.entrySet()) {
+            try (RedisConnection connection = node.getKey().connect()) {
+                LatencyCapture.restore(connection, node.getValue());
+            } catch (EmbeddedRedisException e) {
+                // a stopped node gets its configuration from its config file again when it restarts
+                if (node.getKey().isActive()) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package redis.embedded.metrics;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Parses the files of {@code /proc/<pid>} that {@link ProcessMetrics} is built from, see proc(5).
+ */
+class ProcFs {
+    private static final Path ROOT = Paths.get("/proc");
+    private static final long DEFAULT_CLOCK_TICKS = 100;
+    // field numbers of utime, stime, cutime and cstime in proc(5), counted from 1
+    private static final int[] CPU_FIELDS = {14, 15, 16, 17};
+    
+    private static volatile long clockTicks;
+    
+    private ProcFs() {
+    }
+    
+    static boolean isAvailable() {
+        return Files.isReadable(ROOT.resolve("self").resolve("stat"));
+    }
+    
+    static String read(long pid, String file) throws EmbeddedRedisException {
+        try {
+            return Files.readString(ROOT.resolve(Long.toString(pid)).resolve(file), StandardCharsets.US_ASCII);
+        } catch (NoSuchFileException e) {
+            throw new EmbeddedRedisException("Process " + pid + " does not exist", e);
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Failed to read /proc/" + pid + "/" + file, e);
+        }
+    }
+    
+    /**
+     * @return the contents of the io file, or null when the kernel does not expose it or does not let us read it
+     */
+    static String readIo(long pid) {
+        try {
+            return Files.readString(ROOT.resolve(Long.toString(pid)).resolve("io"), StandardCharsets.US_ASCII);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * @return -1 when the descriptors of the process may not be listed
+     */
+    static int countFileDescriptors(long pid) {
+        int count = 0;
+        try (DirectoryStream<Path> fds = Files.newDirectoryStream(ROOT.resolve(Long.toString(pid)).resolve("fd"))) {
+            for (Path ignored : fds) {
+                count++;
+            }
+            return count;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+    
+    /**
+     * @return utime, stime, cutime and cstime in nanoseconds
+     */
+    static long[] parseCpuTimes(String stat) {
+        // the command name in parentheses may itself contain spaces and parentheses
+        final int end = stat.lastIndexOf(')');
+        if (end < 0) {
+            throw new EmbeddedRedisException("Unexpected format of /proc/<pid>/stat: " + stat);
+        }
+        final String[] fields = stat.substring(end + 1).trim().split("\\s+");
+        final long nanosPerTick = 1_000_000_000L / clockTicks();
+        final long[] times = new long[CPU_FIELDS.length];
+        for (int i = 0; i < CPU_FIELDS.length; i++) {
+            // the fields after the command name start with the third, the state
+            times[i] = Long.parseLong(fields[CPU_FIELDS[i] - 3]) * nanosPerTick;
+        }
+        return times;
+    }
+    
+    /**
+     * Parses the {@code key: value} lines of the status and io files. Sizes given in kB are converted to bytes.
+     */
+    static Map<String, Long> parseFields(String contents) {
+        final Map<String, Long> fields = new HashMap<>();
+        if (contents == null) {
+            return fields;
+        }
+        for (String line : contents.split("\n")) {
+            final int colon = line.indexOf(':');
+            if (colon < 0) {
+                continue;
+            }
+            final String[] value = line.substring(colon + 1).trim().split("\\s+");
+            if (value.length == 0 || value[0].isEmpty() || !isNumber(value[0])) {
+                continue;
+            }
+            final long number = Long.parseLong(value[0]);
+            fields.put(line.substring(0, colon), value.length > 1 && "kB".equals(value[1]) ? number * 1024 : number);
+        }
+        return fields;
+    }
+    
+    private static boolean isNumber(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (!Character.isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    static long clockTicks() {
+        long ticks = clockTicks;
+        if (ticks == 0) {
+            ticks = queryClockTicks();
+            clockTicks = ticks;
+        }
+        return ticks;
+    }
+    
+    private static long queryClockTicks() {
+        try {
+            final Process getconf = new ProcessBuilder("getconf", "CLK_TCK").redirectErrorStream(true).start();
+            try (BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(getconf.getInputStream(), StandardCharsets.US_ASCII))) {
+                final String line = reader.readLine();
+                if (getconf.waitFor() == 0 && line != null) {
+                    return Long.parseLong(line.trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // every Linux architecture the binaries are built for uses 100
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return DEFAULT_CLOCK_TICKS;
+    }
+}
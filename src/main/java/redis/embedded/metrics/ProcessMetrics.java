@@ -0,0 +1,179 @@
+package redis.embedded.metrics;
+
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * What the kernel accounts to one process at one point in time, read from {@code /proc/<pid>}. Unlike
+ * {@code INFO}, this includes the CPU time of forked children such as background saves once they have been reaped,
+ * and the context switches that reveal contention between instances sharing the same cores. Linux only.
+ */
+public class ProcessMetrics {
+    private final long pid;
+    private final long nanoTime;
+    private final long userCpuNanos;
+    private final long systemCpuNanos;
+    private final long childUserCpuNanos;
+    private final long childSystemCpuNanos;
+    private final long rss;
+    private final long peakRss;
+    private final long voluntaryContextSwitches;
+    private final long involuntaryContextSwitches;
+    private final long readBytes;
+    private final long writeBytes;
+    private final int openFileDescriptors;
+    
+    ProcessMetrics(long pid, long nanoTime, long[] cpuNanos, Map<String, Long> status, Map<String, Long> io,
+                   int openFileDescriptors) {
+        this.pid = pid;
+        this.nanoTime = nanoTime;
+        this.userCpuNanos = cpuNanos[0];
+        this.systemCpuNanos = cpuNanos[1];
+        this.childUserCpuNanos = cpuNanos[2];
+        this.childSystemCpuNanos = cpuNanos[3];
+        this.rss = status.getOrDefault("VmRSS", 0L);
+        this.peakRss = status.getOrDefault("VmHWM", 0L);
+        this.voluntaryContextSwitches = status.getOrDefault("voluntary_ctxt_switches", 0L);
+        this.involuntaryContextSwitches = status.getOrDefault("nonvoluntary_ctxt_switches", 0L);
+        this.readBytes = io.getOrDefault("read_bytes", -1L);
+        this.writeBytes = io.getOrDefault("write_bytes", -1L);
+        this.openFileDescriptors = openFileDescriptors;
+    }
+    
+    /**
+     * Reads the metrics of any process, not only of redis instances.
+     */
+    public static ProcessMetrics read(long pid) throws EmbeddedRedisException {
+        if (!ProcFs.isAvailable()) {
+            throw new EmbeddedRedisException("Process metrics need /proc, which only Linux provides");
+        }
+        final long nanoTime = System.nanoTime();
+        final long[] cpuNanos = ProcFs.parseCpuTimes(ProcFs.read(pid, "stat"));
+        final Map<String, Long> status = ProcFs.parseFields(ProcFs.read(pid, "status"));
+        return new ProcessMetrics(pid, nanoTime, cpuNanos, status, ProcFs.parseFields(ProcFs.readIo(pid)),
+                ProcFs.countFileDescriptors(pid));
+    }
+    
+    public long pid() {
+        return pid;
+    }
+    
+    /**
+     * @return the {@link System#nanoTime()} the metrics were read at
+     */
+    public long nanoTime() {
+        return nanoTime;
+    }
+    
+    public Duration userCpu() {
+        return Duration.ofNanos(userCpuNanos);
+    }
+    
+    public Duration systemCpu() {
+        return Duration.ofNanos(systemCpuNanos);
+    }
+    
+    /**
+     * @return the user CPU time of children that have terminated and been waited for, background saves and AOF
+     * rewrites among them
+     */
+    public Duration childUserCpu() {
+        return Duration.ofNanos(childUserCpuNanos);
+    }
+    
+    public Duration childSystemCpu() {
+        return Duration.ofNanos(childSystemCpuNanos);
+    }
+    
+    /**
+     * @return the process's own and its reaped children's CPU time together
+     */
+    public Duration totalCpu() {
+        return Duration.ofNanos(userCpuNanos + systemCpuNanos + childUserCpuNanos + childSystemCpuNanos);
+    }
+    
+    /**
+     * @return the resident set size in bytes
+     */
+    public long rss() {
+        return rss;
+    }
+    
+    /**
+     * @return the highest resident set size in bytes the process has had
+     */
+    public long peakRss() {
+        return peakRss;
+    }
+    
+    public long voluntaryContextSwitches() {
+        return voluntaryContextSwitches;
+    }
+    
+    /**
+     * @return how often the scheduler took the CPU away from the process, which grows with the number of instances
+     * competing for the same cores
+     */
+    public long involuntaryContextSwitches() {
+        return involuntaryContextSwitches;
+    }
+    
+    /**
+     * @return the bytes the process caused to be fetched from storage, -1 when the kernel does not expose them
+     */
+    public long readBytes() {
+        return readBytes;
+    }
+    
+    /**
+     * @return the bytes the process caused to be sent to storage, -1 when the kernel does not expose them
+     */
+    public long writeBytes() {
+        return writeBytes;
+    }
+    
+    /**
+     * @return -1 when the descriptors of the process may not be listed
+     */
+    public int openFileDescriptors() {
+        return openFileDescriptors;
+    }
+    
+    /**
+     * @return what the process consumed between {@code earlier} and these metrics
+     */
+    public ProcessMetricsDiff diff(ProcessMetrics earlier) throws EmbeddedRedisException {
+        if (earlier.pid != pid) {
+            throw new EmbeddedRedisException("Cannot diff metrics of process " + earlier.pid + " against " + pid
+                    + ", the instance was restarted in between");
+        }
+        return new ProcessMetricsDiff(earlier, this);
+    }
+    
+    long userCpuNanos() {
+        return userCpuNanos;
+    }
+    
+    long systemCpuNanos() {
+        return systemCpuNanos;
+    }
+    
+    long childUserCpuNanos() {
+        return childUserCpuNanos;
+    }
+    
+    long childSystemCpuNanos() {
+        return childSystemCpuNanos;
+    }
+    
+    @Override
+    public String toString() {
+        return "ProcessMetrics{pid=" + pid + ", userCpu=" + userCpu() + ", systemCpu=" + systemCpu()
+                + ", childUserCpu=" + childUserCpu() + ", childSystemCpu=" + childSystemCpu() + ", rss=" + rss
+                + ", peakRss=" + peakRss + ", voluntaryContextSwitches=" + voluntaryContextSwitches
+                + ", involuntaryContextSwitches=" + involuntaryContextSwitches + ", readBytes=" + readBytes
+                + ", writeBytes=" + writeBytes + ", openFileDescriptors=" + openFileDescriptors + "}";
+    }
+}
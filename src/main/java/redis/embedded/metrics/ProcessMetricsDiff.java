@@ -0,0 +1,93 @@
+package redis.embedded.metrics;
+
+import java.time.Duration;
+
+/**
+ * What one process consumed between two {@link ProcessMetrics} of it.
+ */
+public class ProcessMetricsDiff {
+    private final ProcessMetrics earlier;
+    private final ProcessMetrics later;
+    
+    ProcessMetricsDiff(ProcessMetrics earlier, ProcessMetrics later) {
+        this.earlier = earlier;
+        this.later = later;
+    }
+    
+    public ProcessMetrics earlier() {
+        return earlier;
+    }
+    
+    public ProcessMetrics later() {
+        return later;
+    }
+    
+    public Duration elapsed() {
+        return Duration.ofNanos(later.nanoTime() - earlier.nanoTime());
+    }
+    
+    public Duration userCpu() {
+        return Duration.ofNanos(later.userCpuNanos() - earlier.userCpuNanos());
+    }
+    
+    public Duration systemCpu() {
+        return Duration.ofNanos(later.systemCpuNanos() - earlier.systemCpuNanos());
+    }
+    
+    /**
+     * @return the CPU time of children reaped in between, a child still running at the end is not included yet
+     */
+    public Duration childCpu() {
+        return Duration.ofNanos(later.childUserCpuNanos() + later.childSystemCpuNanos()
+                - earlier.childUserCpuNanos() - earlier.childSystemCpuNanos());
+    }
+    
+    public Duration totalCpu() {
+        return later.totalCpu().minus(earlier.totalCpu());
+    }
+    
+    /**
+     * @return the CPU time per elapsed time, 1.0 being one core kept busy
+     */
+    public double cpuUtilization() {
+        final long elapsed = later.nanoTime() - earlier.nanoTime();
+        return elapsed == 0 ? 0 : (double) totalCpu().toNanos() / elapsed;
+    }
+    
+    /**
+     * @return how much the resident set grew, negative when it shrank
+     */
+    public long rssGrowth() {
+        return later.rss() - earlier.rss();
+    }
+    
+    public long voluntaryContextSwitches() {
+        return later.voluntaryContextSwitches() - earlier.voluntaryContextSwitches();
+    }
+    
+    public long involuntaryContextSwitches() {
+        return later.involuntaryContextSwitches() - earlier.involuntaryContextSwitches();
+    }
+    
+    /**
+     * @return -1 when the kernel does not expose the process's I/O
+     */
+    public long readBytes() {
+        return later.readBytes() < 0 ? -1 : later.readBytes() - earlier.readBytes();
+    }
+    
+    /**
+     * @return -1 when the kernel does not expose the process's I/O
+     */
+    public long writeBytes() {
+        return later.writeBytes() < 0 ? -1 : later.writeBytes() - earlier.writeBytes();
+    }
+    
+    @Override
+    public String toString() {
+        return "ProcessMetricsDiff{pid=" + later.pid() + ", elapsed=" + elapsed() + ", userCpu=" + userCpu()
+                + ", systemCpu=" + systemCpu() + ", childCpu=" + childCpu() + ", rssGrowth=" + rssGrowth()
+                + ", voluntaryContextSwitches=" + voluntaryContextSwitches() + ", involuntaryContextSwitches="
+                + involuntaryContextSwitches() + ", readBytes=" + readBytes() + ", writeBytes=" + writeBytes() + "}";
+    }
+}
@@ -0,0 +1,147 @@
+package redis.embedded.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.embedded.Redis;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Takes a {@link ProcessMetricsSnapshot} of a server, sentinel or cluster at a fixed interval on a daemon thread,
+ * so a benchmark can attribute CPU, memory and I/O to each node while it runs.
+ */
+public class ProcessMetricsSampler
+        implements AutoCloseable {
+    private static final Logger LOG = LoggerFactory.getLogger(ProcessMetricsSampler.class);
+    private static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(1);
+    private static final int HISTORY_SIZE = 3600;
+    
+    private final Redis target;
+    private final Duration interval;
+    private final Deque<ProcessMetricsSnapshot> history = new ArrayDeque<>();
+    private ProcessMetricsSnapshot first;
+    private ScheduledExecutorService executor;
+    
+    public ProcessMetricsSampler(Redis target) {
+        this(target, DEFAULT_INTERVAL);
+    }
+    
+    public ProcessMetricsSampler(Redis target, Duration interval) {
+        this.target = target;
+        this.interval = interval;
+    }
+    
+    public synchronized ProcessMetricsSampler start() {
+        if (executor != null) {
+            throw new EmbeddedRedisException("Process metrics sampler is already running");
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "process-metrics-sampler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::sample, 0, interval.toNanos(), TimeUnit.NANOSECONDS);
+        return this;
+    }
+    
+    /**
+     * Takes a snapshot right away, in addition to the scheduled ones.
+     */
+    public ProcessMetricsSnapshot sample() {
+        final ProcessMetricsSnapshot snapshot;
+        try {
+            snapshot = ProcessMetricsSnapshot.take(target);
+        } catch (EmbeddedRedisException e) {
+            // an instance stopped between checking it and reading its metrics
+            LOG.debug("Failed to sample process metrics", e);
+            return null;
+        }
+        synchronized (this) {
+            if (first == null) {
+                first = snapshot;
+            }
+            if (history.size() == HISTORY_SIZE) {
+                history.removeFirst();
+            }
+            history.addLast(snapshot);
+        }
+        return snapshot;
+    }
+    
+    /**
+     * @return null before the first sample
+     */
+    public synchronized ProcessMetricsSnapshot latest() {
+        return history.peekLast();
+    }
+    
+    /**
+     * @return the retained snapshots, oldest first
+     */
+    public synchronized List<ProcessMetricsSnapshot> history() {
+        return new ArrayList<>(history);
+    }
+    
+    /**
+     * @return the metrics of one instance over the retained snapshots, oldest first
+     */
+    public synchronized List<ProcessMetrics> history(Redis instance) {
+        final List<ProcessMetrics> metrics = new ArrayList<>();
+        for (ProcessMetricsSnapshot snapshot : history) {
+            final ProcessMetrics processMetrics = snapshot.get(instance);
+            if (processMetrics != null) {
+                metrics.add(processMetrics);
+            }
+        }
+        return metrics;
+    }
+    
+    /**
+     * @return what each instance consumed between the first and the latest sample. An instance restarted in between
+     * is measured from its first sample after the restart still in the history.
+     */
+    public synchronized Map<Redis, ProcessMetricsDiff> sinceStart() {
+        final Map<Redis, ProcessMetricsDiff> diffs = new LinkedHashMap<>();
+        final ProcessMetricsSnapshot last = history.peekLast();
+        if (last == null) {
+            return diffs;
+        }
+        diffs.putAll(last.diff(first));
+        for (Map.Entry<Redis, ProcessMetrics> entry : last.metrics().entrySet()) {
+            if (diffs.containsKey(entry.getKey())) {
+                continue;
+            }
+            for (ProcessMetricsSnapshot snapshot : history) {
+                final ProcessMetrics earliest = snapshot.get(entry.getKey());
+                if (earliest != null && earliest.pid() == entry.getValue().pid()) {
+                    diffs.put(entry.getKey(), entry.getValue().diff(earliest));
+                    break;
+                }
+            }
+        }
+        return diffs;
+    }
+    
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            executor = null;
+        }
+    }
+}
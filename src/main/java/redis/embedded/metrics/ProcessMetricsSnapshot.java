@@ -0,0 +1,83 @@
+package redis.embedded.metrics;
+
+import redis.embedded.Redis;
+import redis.embedded.RedisCluster;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@link ProcessMetrics} of every running instance of a server, sentinel or cluster, read one after another.
+ */
+public class ProcessMetricsSnapshot {
+    private final Map<Redis, ProcessMetrics> metrics;
+    
+    ProcessMetricsSnapshot(Map<Redis, ProcessMetrics> metrics) {
+        this.metrics = Collections.unmodifiableMap(metrics);
+    }
+    
+    /**
+     * Reads the metrics of the target, or of every sentinel and server of a cluster. Instances that are not running
+     * are left out.
+     */
+    public static ProcessMetricsSnapshot take(Redis target) throws EmbeddedRedisException {
+        final Map<Redis, ProcessMetrics> metrics = new LinkedHashMap<>();
+        for (Redis instance : instances(target)) {
+            if (instance.isActive()) {
+                metrics.put(instance, instance.processMetrics());
+            }
+        }
+        return new ProcessMetricsSnapshot(metrics);
+    }
+    
+    static List<Redis> instances(Redis target) {
+        if (!(target instanceof RedisCluster)) {
+            return List.of(target);
+        }
+        final RedisCluster cluster = (RedisCluster) target;
+        final List<Redis> instances = new ArrayList<>(cluster.sentinels());
+        instances.addAll(cluster.servers());
+        return instances;
+    }
+    
+    public Map<Redis, ProcessMetrics> metrics() {
+        return metrics;
+    }
+    
+    /**
+     * @return the metrics of the instance, null when it was not running
+     */
+    public ProcessMetrics get(Redis instance) {
+        return metrics.get(instance);
+    }
+    
+    /**
+     * @return what each instance consumed since the earlier snapshot. Instances missing from either snapshot or
+     * restarted in between are left out.
+     */
+    public Map<Redis, ProcessMetricsDiff> diff(ProcessMetricsSnapshot earlier) {
+        final Map<Redis, ProcessMetricsDiff> diffs = new LinkedHashMap<>();
+        for (Map.Entry<Redis, ProcessMetrics> entry : metrics.entrySet()) {
+            final ProcessMetrics before = earlier.metrics.get(entry.getKey());
+            if (before != null && before.pid() == entry.getValue().pid()) {
+                diffs.put(entry.getKey(), entry.getValue().diff(before));
+            }
+        }
+        return diffs;
+    }
+    
+    /**
+     * @return the resident set size of all instances together
+     */
+    public long rss() {
+        long rss = 0;
+        for (ProcessMetrics processMetrics : metrics.values()) {
+            rss += processMetrics.rss();
+        }
+        return rss;
+    }
+}
@@ -0,0 +1,72 @@
+package redis.embedded.metrics;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * One command {@code SLOWLOG} recorded, with the port of the node that ran it.
+ */
+public class SlowlogEntry {
+    private final int port;
+    private final long id;
+    private final Instant timestamp;
+    private final Duration duration;
+    private final List<String> arguments;
+    private final String clientAddress;
+    private final String clientName;
+    
+    SlowlogEntry(int port, long id, Instant timestamp, Duration duration, List<String> arguments,
+            String clientAddress, String clientName) {
+        this.port = port;
+        this.id = id;
+        this.timestamp = timestamp;
+        this.duration = duration;
+        this.arguments = arguments;
+        this.clientAddress = clientAddress;
+        this.clientName = clientName;
+    }
+    
+    public int port() {
+        return port;
+    }
+    
+    public long id() {
+        return id;
+    }
+    
+    public Instant timestamp() {
+        return timestamp;
+    }
+    
+    /**
+     * @return the time the command took to execute, without I/O
+     */
+    public Duration duration() {
+        return duration;
+    }
+    
+    /**
+     * @return the command and its arguments, which redis truncates beyond 32 arguments or 128 bytes each
+     */
+    public List<String> arguments() {
+        return arguments;
+    }
+    
+    public String command() {
+        return arguments.isEmpty() ? "" : arguments.getFirst();
+    }
+    
+    public String clientAddress() {
+        return clientAddress;
+    }
+    
+    public String clientName() {
+        return clientName;
+    }
+    
+    @Override
+    public String toString() {
+        return port + " " + duration + " " + String.join(" ", arguments);
+    }
+}
@@ -0,0 +1,179 @@
+package redis.embedded.ports;
+
+import redis.embedded.PortProvider;
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Leases ports from a lease table shared by every JVM on the host. The table is a file guarded by an exclusive file
+ * lock; each lease records the pid of its owner and is reclaimed as soon as that process is gone.
+ */
+public class LeasedPortProvider
+        implements PortProvider, Closeable {
+    private static final String DEFAULT_DIRECTORY = "embedded-redis-port-leases";
+    private static final String TABLE_FILENAME = "leases";
+    private static final int MAX_PORT = 65535;
+    // FileChannel.lock() is held per JVM, so threads of the same JVM have to be serialized separately
+    private static final Object JVM_LOCK = new Object();
+    
+    private final Path table;
+    private final int startingPort;
+    private final int lastPort;
+    private final long pid = ProcessHandle.current().pid();
+    private final Set<Integer> leased = new HashSet<>();
+    
+    public LeasedPortProvider(int startingPort) {
+        this(Paths.get(System.getProperty("java.io.tmpdir"), DEFAULT_DIRECTORY), startingPort, MAX_PORT);
+    }
+    
+    public LeasedPortProvider(Path directory, int startingPort, int lastPort) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new RedisBuildingException("Could not create port lease directory " + directory, e);
+        }
+        this.table = directory.resolve(TABLE_FILENAME);
+        this.startingPort = startingPort;
+        this.lastPort = lastPort;
+    }
+    
+    @Override
+    public int next() {
+        return next(1).getFirst();
+    }
+    
+    @Override
+    public List<Integer> next(int count) {
+        synchronized (JVM_LOCK) {
+            try (FileChannel channel = FileChannel.open(table, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+                 FileLock lock = channel.lock()) {
+                // the table is only read and written through the channel holding the lock
+                final TreeMap<Integer, Long> leases = readLiveLeases(lock.channel());
+                final List<Integer> ports = findBlock(leases, count);
+                for (int port : ports) {
+                    leases.put(port, pid);
+                }
+                writeLeases(lock.channel(), leases);
+                leased.addAll(ports);
+                return ports;
+            } catch (IOException e) {
+                throw new RedisBuildingException("Could not lease ports from " + table, e);
+            }
+        }
+    }
+    
+    @Override
+    public void close() {
+        synchronized (JVM_LOCK) {
+            try (FileChannel channel = FileChannel.open(table, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileLock lock = channel.lock()) {
+                final TreeMap<Integer, Long> leases = readLiveLeases(lock.channel());
+                for (int port : leased) {
+                    leases.remove(port, pid);
+                }
+                writeLeases(lock.channel(), leases);
+                leased.clear();
+            } catch (IOException e) {
+                throw new RedisBuildingException("Could not return leased ports to " + table, e);
+            }
+        }
+    }
+    
+    private List<Integer> findBlock(TreeMap<Integer, Long> leases, int count) {
+        int first = startingPort;
+        while (first + count - 1 <= lastPort) {
+            // the table decides which block is taken, only that block is probed
+            final Integer leasedPort = leases.ceilingKey(first);
+            if (leasedPort != null && leasedPort < first + count) {
+                first = leasedPort + 1;
+                continue;
+            }
+            final int takenPort = firstTaken(first, count);
+            if (takenPort < 0) {
+                final List<Integer> block = new ArrayList<>(count);
+                for (int port = first; port < first + count; port++) {
+                    block.add(port);
+                }
+                return block;
+            }
+            first = takenPort + 1;
+        }
+        throw new RedisBuildingException("Could not lease " + count + " contiguous ports between "
+                + startingPort + " and " + lastPort);
+    }
+    
+    private static TreeMap<Integer, Long> readLiveLeases(FileChannel channel) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate((int) channel.size());
+        channel.read(buffer, 0);
+        final TreeMap<Integer, Long> leases = new TreeMap<>();
+        for (String line : new String(buffer.array(), StandardCharsets.UTF_8).split("\n")) {
+            final String[] lease = line.trim().split(" ");
+            if (lease.length != 2) {
+                continue;
+            }
+            final int port;
+            final long owner;
+            try {
+                port = Integer.parseInt(lease[0]);
+                owner = Long.parseLong(lease[1]);
+            } catch (NumberFormatException e) {
+                // a torn line must not keep every provider on the host from leasing, it is dropped on the next write
+                continue;
+            }
+            if (isAlive(owner)) {
+                leases.put(port, owner);
+            }
+        }
+        return leases;
+    }
+    
+    private static void writeLeases(FileChannel channel, TreeMap<Integer, Long> leases) throws IOException {
+        final StringBuilder content = new StringBuilder();
+        leases.forEach((port, owner) -> content.append(port).append(' ').append(owner).append('\n'));
+        channel.truncate(0);
+        channel.write(ByteBuffer.wrap(content.toString().getBytes(StandardCharsets.UTF_8)), 0);
+        channel.force(false);
+    }
+    
+    private static boolean isAlive(long pid) {
+        return ProcessHandle.of(pid).map(ProcessHandle::isAlive).orElse(false);
+    }
+    
+    private static int firstTaken(int first, int count) {
+        for (int port = first; port < first + count; port++) {
+            if (!isFree(port)) {
+                return port;
+            }
+        }
+        return -1;
+    }
+    
+    private static boolean isFree(int port) {
+        // a single bind catches ports held by processes that do not take part in leasing
+        try (ServerSocket socket = new ServerSocket()) {
+            socket.setReuseAddress(false);
+            socket.bind(new InetSocketAddress(port));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,111 @@
+package redis.embedded.ports;
+
+import redis.embedded.PortProvider;
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out ports that are kept bound until {@link #release(int)} is called right before redis is spawned, so no
+ * other process can grab them in between. Ports that are already in use are skipped.
+ */
+public class ReservingPortProvider
+        implements PortProvider, Closeable {
+    private static final int MAX_PORT = 65535;
+    
+    private final Map<Integer, ServerSocket> reserved = new HashMap<>();
+    private final int lastPort;
+    private int currentPort;
+    
+    public ReservingPortProvider(int startingPort) {
+        this(startingPort, MAX_PORT);
+    }
+    
+    public ReservingPortProvider(int startingPort, int lastPort) {
+        this.currentPort = startingPort;
+        this.lastPort = lastPort;
+    }
+    
+    @Override
+    public int next() {
+        return next(1).getFirst();
+    }
+    
+    @Override
+    public synchronized List<Integer> next(int count) {
+        final List<ServerSocket> block = new ArrayList<>(count);
+        while (block.size() < count) {
+            if (currentPort > lastPort) {
+                closeAll(block);
+                throw new RedisBuildingException("Could not reserve " + count + " contiguous ports up to " + lastPort);
+            }
+            final ServerSocket socket = tryBind(currentPort++);
+            if (socket != null) {
+                block.add(socket);
+            } else {
+                // the block has to be contiguous, start over right after the port in use
+                closeAll(block);
+                block.clear();
+            }
+        }
+        final List<Integer> ports = new ArrayList<>(count);
+        for (ServerSocket socket : block) {
+            reserved.put(socket.getLocalPort(), socket);
+            ports.add(socket.getLocalPort());
+        }
+        return ports;
+    }
+    
+    @Override
+    public synchronized void release(int port) {
+        final ServerSocket socket = reserved.remove(port);
+        if (socket != null) {
+            closeQuietly(socket);
+        }
+    }
+    
+    public synchronized boolean isReserved(int port) {
+        return reserved.containsKey(port);
+    }
+    
+    @Override
+    public synchronized void close() {
+        closeAll(reserved.values());
+        reserved.clear();
+    }
+    
+    private static ServerSocket tryBind(int port) {
+        ServerSocket socket = null;
+        try {
+            socket = new ServerSocket();
+            socket.setReuseAddress(false);
+            socket.bind(new InetSocketAddress(port));
+            return socket;
+        } catch (IOException e) {
+            if (socket != null) {
+                closeQuietly(socket);
+            }
+            return null;
+        }
+    }
+    
+    private static void closeAll(Iterable<ServerSocket> sockets) {
+        for (ServerSocket socket : sockets) {
+            closeQuietly(socket);
+        }
+    }
+    
+    private static void closeQuietly(ServerSocket socket) {
+        try {
+            socket.close();
+        } catch (IOException ignored) {
+        }
+    }
+}
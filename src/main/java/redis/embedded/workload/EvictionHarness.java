@@ -0,0 +1,131 @@
+package redis.embedded.workload;
+
+import redis.embedded.Redis;
+import redis.embedded.RedisConnection;
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.metrics.InfoSnapshot;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drives a {@link Workload} past {@code maxmemory} under each of a number of eviction policies in turn and samples
+ * memory, evictions, hit ratio, refused writes and latency once per window, so the policies can be compared side by
+ * side:
+ * <pre>
+ * Map&lt;EvictionPolicy, EvictionReport&gt; reports = EvictionHarness.builder()
+ *         .maxmemory(64 * 1024 * 1024)
+ *         .policies(EvictionPolicy.ALLKEYS_LRU, EvictionPolicy.ALLKEYS_LFU)
+ *         .build()
+ *         .run(server);
+ * </pre>
+ * Every policy starts from an empty dataset. The target is flushed before each policy and after the last one, and
+ * gets its previous {@code maxmemory} and policy back. Of a cluster, every server gets the limit and the masters
+ * are sampled.
+ */
+public class EvictionHarness {
+    private final long maxmemory;
+    private final List<EvictionPolicy> policies;
+    private final Workload workload;
+    private final Duration duration;
+    private final Duration window;
+    
+    EvictionHarness(long maxmemory, List<EvictionPolicy> policies, Workload workload, Duration duration,
+            Duration window) {
+        this.maxmemory = maxmemory;
+        this.policies = policies;
+        this.workload = workload;
+        this.duration = duration;
+        this.window = window;
+    }
+    
+    public static EvictionHarnessBuilder builder() {
+        return new EvictionHarnessBuilder();
+    }
+    
+    /**
+     * @return one report per policy, in the order they ran
+     */
+    public Map<EvictionPolicy, EvictionReport> run(Redis target) throws EmbeddedRedisException {
+        final Map<EvictionPolicy, EvictionReport> reports = new LinkedHashMap<>();
+        for (EvictionPolicy policy : policies) {
+            reports.put(policy, run(target, policy));
+        }
+        return reports;
+    }
+    
+    public EvictionReport run(Redis target, EvictionPolicy policy) throws EmbeddedRedisException {
+        final List<Redis> masters = Workload.masters(target);
+        final String previousMaxmemory;
+        final String previousPolicy;
+        try (RedisConnection connection = masters.getFirst().connect()) {
+            previousMaxmemory = config(connection, "maxmemory");
+            previousPolicy = config(connection, "maxmemory-policy");
+        }
+        try {
+            target.flushAll();
+            target.configSet("maxmemory-policy", policy.configValue());
+            target.configSet("maxmemory", Long.toString(maxmemory));
+            return sample(target, policy, masters);
+        } finally {
+            target.configSet("maxmemory", previousMaxmemory);
+            target.configSet("maxmemory-policy", previousPolicy);
+            target.flushAll();
+        }
+    }
+    
+    private EvictionReport sample(Redis target, EvictionPolicy policy, List<Redis> masters) {
+        final long windows = Math.max(1, (duration.toNanos() + window.toNanos() - 1) / window.toNanos());
+        final List<EvictionSample> samples = new ArrayList<>();
+        final long start = System.nanoTime();
+        Stats previous = Stats.read(masters, workload.timeout());
+        WorkloadReport total = WorkloadReport.empty();
+        for (int i = 0; i < windows; i++) {
+            final WorkloadReport report = workload.withDuration(window, workload.seed() + i).run(target);
+            final Stats current = Stats.read(masters, workload.timeout());
+            samples.add(new EvictionSample(Duration.ofNanos(System.nanoTime() - start), current.usedMemory,
+                    current.maxmemory, current.keys, current.evictedKeys - previous.evictedKeys,
+                    current.hits - previous.hits, current.misses - previous.misses, report));
+            // the time spent sampling between windows does not count against throughput
+            total = total.merge(report, total.elapsed().toNanos() + report.elapsed().toNanos());
+            previous = current;
+        }
+        return new EvictionReport(policy, samples, total);
+    }
+    
+    private static String config(RedisConnection connection, String parameter) {
+        final Object reply = connection.call("CONFIG", "GET", parameter);
+        if (!(reply instanceof List) || ((List<?>) reply).size() < 2) {
+            throw new EmbeddedRedisException("Unexpected reply to CONFIG GET " + parameter + ": " + reply);
+        }
+        return RedisConnection.asString(((List<?>) reply).get(1));
+    }
+    
+    private static final class Stats {
+        private long usedMemory;
+        private long maxmemory;
+        private long keys;
+        private long evictedKeys;
+        private long hits;
+        private long misses;
+        
+        static Stats read(List<Redis> masters, Duration timeout) {
+            final Stats stats = new Stats();
+            for (Redis master : masters) {
+                try (RedisConnection connection = RedisConnection.open(master.ports().getFirst(), timeout)) {
+                    final InfoSnapshot info = InfoSnapshot.read(connection, "memory", "stats", "keyspace");
+                    stats.usedMemory += info.usedMemory();
+                    stats.maxmemory += info.getLong("maxmemory");
+                    stats.keys += info.keys();
+                    stats.evictedKeys += info.evictedKeys();
+                    stats.hits += info.keyspaceHits();
+                    stats.misses += info.keyspaceMisses();
+                }
+            }
+            return stats;
+        }
+    }
+}
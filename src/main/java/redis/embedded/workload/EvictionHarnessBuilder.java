@@ -0,0 +1,79 @@
+package redis.embedded.workload;
+
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.time.Duration;
+import java.util.List;
+
+public class EvictionHarnessBuilder {
+    private long maxmemory = 16 * 1024 * 1024;
+    private List<EvictionPolicy> policies = List.of(EvictionPolicy.values());
+    private Workload workload;
+    private Duration duration = Duration.ofSeconds(10);
+    private Duration window = Duration.ofSeconds(1);
+    
+    EvictionHarnessBuilder() {
+    }
+    
+    /**
+     * Sets the memory limit of every server in bytes, 16 MB by default.
+     */
+    public EvictionHarnessBuilder maxmemory(long maxmemory) {
+        this.maxmemory = maxmemory;
+        return this;
+    }
+    
+    /**
+     * Sets the policies to compare, all of them by default.
+     */
+    public EvictionHarnessBuilder policies(EvictionPolicy... policies) {
+        this.policies = List.of(policies);
+        return this;
+    }
+    
+    /**
+     * Sets the workload to drive, whose duration and number of operations are replaced by the harness's windows. By
+     * default half of the operations read and half write 1 kB values with a ten minute expiry, over a million keys.
+     */
+    public EvictionHarnessBuilder workload(Workload workload) {
+        this.workload = workload;
+        return this;
+    }
+    
+    /**
+     * Sets how long each policy runs, ten seconds by default.
+     */
+    public EvictionHarnessBuilder duration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+    
+    /**
+     * Sets how often the masters are sampled, once a second by default.
+     */
+    public EvictionHarnessBuilder window(Duration window) {
+        this.window = window;
+        return this;
+    }
+    
+    public EvictionHarness build() {
+        if (maxmemory < 1) {
+            throw new RedisBuildingException("The memory limit has to be positive, was " + maxmemory);
+        }
+        if (policies.isEmpty()) {
+            throw new RedisBuildingException("An eviction harness needs at least one policy");
+        }
+        if (window.isZero() || window.isNegative() || duration.compareTo(window) < 0) {
+            throw new RedisBuildingException("The window has to be positive and not longer than the duration");
+        }
+        final Workload runWorkload = workload != null
+                ? workload
+                : Workload.builder()
+                        .keys(KeyDistribution.uniform(1_000_000))
+                        .readProportion(0.5)
+                        .valueSize(1024)
+                        .ttl(Duration.ofMinutes(10))
+                        .build();
+        return new EvictionHarness(maxmemory, policies, runWorkload, duration, window);
+    }
+}
@@ -0,0 +1,29 @@
+package redis.embedded.workload;
+
+import java.util.Locale;
+
+/**
+ * The values of {@code maxmemory-policy}. The volatile policies only evict keys with an expiry, see
+ * {@link WorkloadBuilder#ttl(java.time.Duration)}.
+ */
+public enum EvictionPolicy {
+    NOEVICTION,
+    ALLKEYS_LRU,
+    ALLKEYS_LFU,
+    ALLKEYS_RANDOM,
+    VOLATILE_LRU,
+    VOLATILE_LFU,
+    VOLATILE_RANDOM,
+    VOLATILE_TTL;
+    
+    /**
+     * @return the name {@code CONFIG SET maxmemory-policy} takes
+     */
+    public String configValue() {
+        return name().toLowerCase(Locale.ROOT).replace('_', '-');
+    }
+    
+    public static EvictionPolicy fromConfigValue(String value) {
+        return valueOf(value.toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+}
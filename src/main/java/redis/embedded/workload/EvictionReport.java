@@ -0,0 +1,82 @@
+package redis.embedded.workload;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * How one eviction policy held up, window by window and over the whole run.
+ */
+public class EvictionReport {
+    private final EvictionPolicy policy;
+    private final List<EvictionSample> samples;
+    private final WorkloadReport workload;
+    
+    EvictionReport(EvictionPolicy policy, List<EvictionSample> samples, WorkloadReport workload) {
+        this.policy = policy;
+        this.samples = Collections.unmodifiableList(samples);
+        this.workload = workload;
+    }
+    
+    public EvictionPolicy policy() {
+        return policy;
+    }
+    
+    /**
+     * @return one sample per window, oldest first
+     */
+    public List<EvictionSample> samples() {
+        return samples;
+    }
+    
+    /**
+     * @return throughput and latencies over all windows
+     */
+    public WorkloadReport workload() {
+        return workload;
+    }
+    
+    public long evictedKeys() {
+        long evicted = 0;
+        for (EvictionSample sample : samples) {
+            evicted += sample.evictedKeys();
+        }
+        return evicted;
+    }
+    
+    public double peakEvictionsPerSecond() {
+        double peak = 0;
+        for (EvictionSample sample : samples) {
+            peak = Math.max(peak, sample.evictionsPerSecond());
+        }
+        return peak;
+    }
+    
+    public long peakUsedMemory() {
+        long peak = 0;
+        for (EvictionSample sample : samples) {
+            peak = Math.max(peak, sample.usedMemory());
+        }
+        return peak;
+    }
+    
+    public long oomErrors() {
+        return workload.errors(WorkloadOperation.UPDATE);
+    }
+    
+    public double hitRatio() {
+        long hits = 0;
+        long misses = 0;
+        for (EvictionSample sample : samples) {
+            hits += sample.hits();
+            misses += sample.misses();
+        }
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s: %d evicted (peak %.0f/s), %d OOM errors, peak used memory %d, hit ratio %.3f, %s",
+                policy.configValue(), evictedKeys(), peakEvictionsPerSecond(), oomErrors(), peakUsedMemory(),
+                hitRatio(), workload);
+    }
+}
@@ -0,0 +1,109 @@
+package redis.embedded.workload;
+
+import java.time.Duration;
+
+/**
+ * The state of the masters at the end of one window of an eviction run, together with what the workload saw during
+ * the window.
+ */
+public class EvictionSample {
+    private final Duration elapsed;
+    private final long usedMemory;
+    private final long maxmemory;
+    private final long keys;
+    private final long evictedKeys;
+    private final long hits;
+    private final long misses;
+    private final WorkloadReport workload;
+    
+    EvictionSample(Duration elapsed, long usedMemory, long maxmemory, long keys, long evictedKeys, long hits,
+            long misses, WorkloadReport workload) {
+        this.elapsed = elapsed;
+        this.usedMemory = usedMemory;
+        this.maxmemory = maxmemory;
+        this.keys = keys;
+        this.evictedKeys = evictedKeys;
+        this.hits = hits;
+        this.misses = misses;
+        this.workload = workload;
+    }
+    
+    /**
+     * @return the time since the run of the policy started
+     */
+    public Duration elapsed() {
+        return elapsed;
+    }
+    
+    /**
+     * @return {@code used_memory} summed over the masters
+     */
+    public long usedMemory() {
+        return usedMemory;
+    }
+    
+    /**
+     * @return {@code maxmemory} summed over the masters
+     */
+    public long maxmemory() {
+        return maxmemory;
+    }
+    
+    public double memoryUtilization() {
+        return maxmemory == 0 ? 0 : (double) usedMemory / maxmemory;
+    }
+    
+    public long keys() {
+        return keys;
+    }
+    
+    /**
+     * @return the keys evicted during the window
+     */
+    public long evictedKeys() {
+        return evictedKeys;
+    }
+    
+    public double evictionsPerSecond() {
+        final long nanos = workload.elapsed().toNanos();
+        return nanos == 0 ? 0 : evictedKeys * 1_000_000_000.0 / nanos;
+    }
+    
+    /**
+     * @return the lookups during the window that found their key
+     */
+    public long hits() {
+        return hits;
+    }
+    
+    public long misses() {
+        return misses;
+    }
+    
+    /**
+     * @return the share of reads during the window that found their key
+     */
+    public double hitRatio() {
+        return hits + misses == 0 ? 0 : (double) hits / (hits + misses);
+    }
+    
+    /**
+     * @return the writes of the window the server refused, with {@code OOM command not allowed} once it can not evict
+     */
+    public long oomErrors() {
+        return workload.errors(WorkloadOperation.UPDATE);
+    }
+    
+    /**
+     * @return throughput and latencies of the window
+     */
+    public WorkloadReport workload() {
+        return workload;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s: used %d of %d bytes, %d keys, %.0f evictions/s, %d OOM errors, hit ratio %.3f, %s",
+                elapsed, usedMemory, maxmemory, keys, evictionsPerSecond(), oomErrors(), hitRatio(), workload);
+    }
+}
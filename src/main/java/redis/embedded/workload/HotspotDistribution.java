@@ -0,0 +1,43 @@
+package redis.embedded.workload;
+
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.util.random.RandomGenerator;
+
+class HotspotDistribution
+        implements KeyDistribution {
+    private final long keys;
+    private final long hotKeys;
+    private final double hotOperationFraction;
+    
+    HotspotDistribution(long keys, double hotKeyFraction, double hotOperationFraction) {
+        if (keys < 2) {
+            throw new RedisBuildingException("A hotspot distribution needs at least two keys");
+        }
+        if (hotKeyFraction <= 0 || hotKeyFraction >= 1 || hotOperationFraction < 0 || hotOperationFraction > 1) {
+            throw new RedisBuildingException("The hot key fraction has to be between 0 and 1, the hot operation "
+                    + "fraction between 0 and 1 inclusive");
+        }
+        this.keys = keys;
+        this.hotKeys = Math.min(Math.max(1, Math.round(keys * hotKeyFraction)), keys - 1);
+        this.hotOperationFraction = hotOperationFraction;
+    }
+    
+    @Override
+    public long keys() {
+        return keys;
+    }
+    
+    @Override
+    public long next(RandomGenerator random) {
+        if (random.nextDouble() < hotOperationFraction) {
+            return random.nextLong(hotKeys);
+        }
+        return hotKeys + random.nextLong(keys - hotKeys);
+    }
+    
+    @Override
+    public String toString() {
+        return "hotspot(" + keys + ", " + hotKeys + " hot keys, " + hotOperationFraction + " of operations)";
+    }
+}
@@ -0,0 +1,38 @@
+package redis.embedded.workload;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Picks the index of the key an operation works on, from 0 up to {@link #keys()} - 1.
+ */
+public interface KeyDistribution {
+    long keys();
+    
+    long next(RandomGenerator random);
+    
+    static KeyDistribution uniform(long keys) {
+        return new UniformDistribution(keys);
+    }
+    
+    /**
+     * Zipfian distribution with the skew YCSB uses by default, where key 0 is the most popular.
+     */
+    static KeyDistribution zipfian(long keys) {
+        return zipfian(keys, ZipfianDistribution.DEFAULT_THETA);
+    }
+    
+    /**
+     * @param theta the skew, between 0 (uniform) and 1 (exclusive)
+     */
+    static KeyDistribution zipfian(long keys, double theta) {
+        return new ZipfianDistribution(keys, theta);
+    }
+    
+    /**
+     * Sends {@code hotOperationFraction} of the operations to the first {@code hotKeyFraction} of the keys and the
+     * rest to the remaining keys, uniformly within each set.
+     */
+    static KeyDistribution hotspot(long keys, double hotKeyFraction, double hotOperationFraction) {
+        return new HotspotDistribution(keys, hotKeyFraction, hotOperationFraction);
+    }
+}
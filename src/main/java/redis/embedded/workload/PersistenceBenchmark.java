@@ -0,0 +1,197 @@
+package redis.embedded.workload;
+
+import org.apache.commons.io.FileUtils;
+import redis.embedded.RedisConnection;
+import redis.embedded.RedisExecProvider;
+import redis.embedded.RedisServer;
+import redis.embedded.RedisServerBuilder;
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.metrics.InfoDiff;
+import redis.embedded.metrics.InfoSnapshot;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs the same write workload against a fresh {@link RedisServer} for each of a number of
+ * {@link PersistenceMode persistence modes} and forks one background save or rewrite halfway through, so that the
+ * latency the clients see during the fork is part of the result:
+ * <pre>
+ * Map&lt;PersistenceMode, PersistenceReport&gt; reports = PersistenceBenchmark.builder()
+ *         .execProvider(RedisExecProvider.defaultProvider().setDataDirectory("/mnt/ssd/redis"))
+ *         .build()
+ *         .run();
+ * </pre>
+ * Each mode writes to a directory of its own below the data directory of the exec provider, so pointing that at a
+ * tmpfs or a real disk decides what the fsyncs cost. The directories are deleted after each mode. Without a data
+ * directory the modes write below a temporary directory, which is deleted after the run.
+ */
+public class PersistenceBenchmark {
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(10);
+    
+    private final RedisExecProvider execProvider;
+    private final int port;
+    private final List<PersistenceMode> modes;
+    private final Workload workload;
+    private final boolean preload;
+    private final Duration duration;
+    private final Duration forkAfter;
+    private final Duration backgroundJobTimeout;
+    
+    PersistenceBenchmark(RedisExecProvider execProvider, int port, List<PersistenceMode> modes, Workload workload,
+            boolean preload, Duration duration, Duration forkAfter, Duration backgroundJobTimeout) {
+        this.execProvider = execProvider;
+        this.port = port;
+        this.modes = modes;
+        this.workload = workload;
+        this.preload = preload;
+        this.duration = duration;
+        this.forkAfter = forkAfter;
+        this.backgroundJobTimeout = backgroundJobTimeout;
+    }
+    
+    public static PersistenceBenchmarkBuilder builder() {
+        return new PersistenceBenchmarkBuilder();
+    }
+    
+    /**
+     * @return one report per mode, in the order they ran
+     */
+    public Map<PersistenceMode, PersistenceReport> run() throws EmbeddedRedisException {
+        return inDataDirectory(root -> {
+            final Map<PersistenceMode, PersistenceReport> reports = new LinkedHashMap<>();
+            for (PersistenceMode mode : modes) {
+                reports.put(mode, run(mode, root));
+            }
+            return reports;
+        });
+    }
+    
+    public PersistenceReport run(PersistenceMode mode) throws EmbeddedRedisException {
+        return inDataDirectory(root -> run(mode, root));
+    }
+    
+    private PersistenceReport run(PersistenceMode mode, File root) {
+        final File directory = new File(root, "persistence-" + port + "-" + mode.name().toLowerCase(Locale.ROOT));
+        RedisServer server = null;
+        try {
+            FileUtils.forceMkdir(directory);
+            FileUtils.cleanDirectory(directory);
+            server = server(mode, directory);
+            server.start();
+            return measure(server, mode);
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Could not prepare data directory " + directory, e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof EmbeddedRedisException
+                    ? (EmbeddedRedisException) e.getCause()
+                    : new EmbeddedRedisException("Persistence benchmark workload failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddedRedisException("Interrupted while running persistence benchmark", e);
+        } finally {
+            if (server != null) {
+                server.stop();
+            }
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+    
+    private PersistenceReport measure(RedisServer server, PersistenceMode mode)
+            throws ExecutionException, InterruptedException {
+        try (RedisConnection connection = RedisConnection.open(port, workload.timeout())) {
+            if (preload) {
+                workload.load(server);
+            }
+            awaitBackgroundJobs(connection);
+            final InfoSnapshot before = InfoSnapshot.read(connection, "persistence", "stats");
+            final Workload run = workload.withDuration(duration, workload.seed());
+            try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+                final Future<WorkloadReport> report = executor.submit(() -> run.run(server));
+                TimeUnit.NANOSECONDS.sleep(forkAfter.toNanos());
+                final Duration backgroundJob = backgroundJob(connection, mode);
+                final WorkloadReport workloadReport = report.get();
+                final InfoSnapshot after = InfoSnapshot.read(connection, "persistence", "stats");
+                final InfoDiff diff = after.diff(before);
+                return new PersistenceReport(mode, workloadReport,
+                        Duration.ofNanos(TimeUnit.MICROSECONDS.toNanos(after.getLong("latest_fork_usec"))),
+                        diff.delta("total_forks"),
+                        diff.delta("aof_delayed_fsync"),
+                        backgroundJob,
+                        after.getLong(mode.isAppendOnly() ? "aof_last_cow_size" : "rdb_last_cow_size"));
+            }
+        }
+    }
+    
+    /**
+     * Runs below the data directory of the exec provider, or else below a temporary directory deleted afterwards.
+     */
+    private <T> T inDataDirectory(Function<File, T> body) throws EmbeddedRedisException {
+        // read before anything is built, building a server sets a data directory on a provider without one
+        final String dataPath = execProvider.getDataPath();
+        final File root;
+        try {
+            root = dataPath != null ? new File(dataPath) : Files.createTempDirectory("embedded-redis").toFile();
+        } catch (IOException e) {
+            throw new EmbeddedRedisException("Could not create a data directory", e);
+        }
+        try {
+            return body.apply(root);
+        } finally {
+            if (dataPath == null) {
+                FileUtils.deleteQuietly(root);
+            }
+        }
+    }
+    
+    private RedisServer server(PersistenceMode mode, File directory) {
+        final RedisServerBuilder builder = RedisServer.builder()
+                .redisExecProvider(execProvider)
+                .port(port)
+                .setting("save \"\"")
+                .setting("dir \"" + directory.getAbsolutePath() + "\"");
+        for (String setting : mode.settings()) {
+            builder.setting(setting);
+        }
+        return builder.build();
+    }
+    
+    private Duration backgroundJob(RedisConnection connection, PersistenceMode mode) throws InterruptedException {
+        if (mode.backgroundCommand() == null) {
+            return Duration.ZERO;
+        }
+        final long start = System.nanoTime();
+        connection.call(mode.backgroundCommand());
+        awaitBackgroundJobs(connection);
+        return Duration.ofNanos(System.nanoTime() - start);
+    }
+    
+    private void awaitBackgroundJobs(RedisConnection connection) throws InterruptedException {
+        final long deadline = System.nanoTime() + backgroundJobTimeout.toNanos();
+        while (true) {
+            final InfoSnapshot persistence = InfoSnapshot.read(connection, "persistence");
+            if (persistence.getLong("rdb_bgsave_in_progress") == 0
+                    && persistence.getLong("aof_rewrite_in_progress") == 0
+                    && persistence.getLong("aof_rewrite_scheduled") == 0) {
+                return;
+            }
+            if (System.nanoTime() - deadline > 0) {
+                throw new EmbeddedRedisException("Background save or rewrite of redis instance on port " + port
+                        + " did not finish within " + backgroundJobTimeout);
+            }
+            TimeUnit.NANOSECONDS.sleep(POLL_INTERVAL.toNanos());
+        }
+    }
+}
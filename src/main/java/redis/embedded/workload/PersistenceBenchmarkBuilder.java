@@ -0,0 +1,110 @@
+package redis.embedded.workload;
+
+import redis.embedded.RedisExecProvider;
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.time.Duration;
+import java.util.List;
+
+public class PersistenceBenchmarkBuilder {
+    private RedisExecProvider execProvider = RedisExecProvider.defaultProvider();
+    private int port = 6379;
+    private List<PersistenceMode> modes = List.of(PersistenceMode.values());
+    private Workload workload;
+    private boolean preload = true;
+    private Duration duration = Duration.ofSeconds(10);
+    private Duration forkAfter;
+    private Duration backgroundJobTimeout = Duration.ofMinutes(1);
+    
+    PersistenceBenchmarkBuilder() {
+    }
+    
+    /**
+     * Sets the provider of the server executable, whose data directory the servers write to.
+     */
+    public PersistenceBenchmarkBuilder execProvider(RedisExecProvider execProvider) {
+        this.execProvider = execProvider;
+        return this;
+    }
+    
+    public PersistenceBenchmarkBuilder port(int port) {
+        this.port = port;
+        return this;
+    }
+    
+    /**
+     * Sets the modes to compare, all of them by default.
+     */
+    public PersistenceBenchmarkBuilder modes(PersistenceMode... modes) {
+        this.modes = List.of(modes);
+        return this;
+    }
+    
+    /**
+     * Sets the workload to run, whose duration and number of operations are replaced by {@link #duration(Duration)}.
+     * By default 16 clients write 256 byte values to 100 000 keys.
+     */
+    public PersistenceBenchmarkBuilder workload(Workload workload) {
+        this.workload = workload;
+        return this;
+    }
+    
+    /**
+     * Writes every key of the workload before each run, so the fork copies a dataset of the workload's size. On by
+     * default.
+     */
+    public PersistenceBenchmarkBuilder preload(boolean preload) {
+        this.preload = preload;
+        return this;
+    }
+    
+    /**
+     * Sets how long the workload runs per mode, ten seconds by default.
+     */
+    public PersistenceBenchmarkBuilder duration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+    
+    /**
+     * Sets when the background save or rewrite starts, halfway through the run by default.
+     */
+    public PersistenceBenchmarkBuilder forkAfter(Duration forkAfter) {
+        this.forkAfter = forkAfter;
+        return this;
+    }
+    
+    /**
+     * Sets how long a background save or rewrite may take before the run fails, one minute by default.
+     */
+    public PersistenceBenchmarkBuilder backgroundJobTimeout(Duration backgroundJobTimeout) {
+        this.backgroundJobTimeout = backgroundJobTimeout;
+        return this;
+    }
+    
+    public PersistenceBenchmark build() {
+        if (modes.isEmpty()) {
+            throw new RedisBuildingException("A persistence benchmark needs at least one mode");
+        }
+        if (duration.isZero() || duration.isNegative()) {
+            throw new RedisBuildingException("The duration has to be positive, was " + duration);
+        }
+        final Duration fork = forkAfter == null ? duration.dividedBy(2) : forkAfter;
+        if (fork.isNegative() || fork.compareTo(duration) >= 0) {
+            throw new RedisBuildingException("The fork has to start within the run, not after " + fork);
+        }
+        if (backgroundJobTimeout.isZero() || backgroundJobTimeout.isNegative()) {
+            throw new RedisBuildingException("The background job timeout has to be positive, was "
+                    + backgroundJobTimeout);
+        }
+        final Workload runWorkload = workload != null
+                ? workload
+                : Workload.builder()
+                        .keys(KeyDistribution.uniform(100_000))
+                        .readProportion(0)
+                        .valueSize(256)
+                        .build();
+        return new PersistenceBenchmark(execProvider, port, modes, runWorkload, preload, duration, fork,
+                backgroundJobTimeout);
+    }
+}
@@ -0,0 +1,51 @@
+package redis.embedded.workload;
+
+import java.util.List;
+
+/**
+ * The persistence configurations a {@link PersistenceBenchmark} compares. Automatic snapshots are off in all of
+ * them, the benchmark starts the one background save or rewrite of a run itself.
+ */
+public enum PersistenceMode {
+    /**
+     * Neither snapshots nor an append only file, the baseline the others cost extra against.
+     */
+    NONE(false, "appendonly no"),
+    RDB(false, "appendonly no"),
+    APPENDFSYNC_ALWAYS(true, "appendonly yes", "appendfsync always", "aof-use-rdb-preamble no"),
+    APPENDFSYNC_EVERYSEC(true, "appendonly yes", "appendfsync everysec", "aof-use-rdb-preamble no"),
+    APPENDFSYNC_NO(true, "appendonly yes", "appendfsync no", "aof-use-rdb-preamble no"),
+    /**
+     * An append only file synced every second, rewritten with an RDB snapshot as its base.
+     */
+    AOF_RDB_PREAMBLE(true, "appendonly yes", "appendfsync everysec", "aof-use-rdb-preamble yes");
+    
+    private final boolean appendOnly;
+    private final List<String> settings;
+    
+    PersistenceMode(boolean appendOnly, String... settings) {
+        this.appendOnly = appendOnly;
+        this.settings = List.of(settings);
+    }
+    
+    public boolean isAppendOnly() {
+        return appendOnly;
+    }
+    
+    /**
+     * @return the configuration lines of the mode, in addition to {@code save ""}
+     */
+    public List<String> settings() {
+        return settings;
+    }
+    
+    /**
+     * @return the command of the background job the benchmark forks for, null for {@link #NONE}
+     */
+    String backgroundCommand() {
+        if (this == NONE) {
+            return null;
+        }
+        return appendOnly ? "BGREWRITEAOF" : "BGSAVE";
+    }
+}
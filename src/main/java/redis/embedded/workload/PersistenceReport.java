@@ -0,0 +1,79 @@
+package redis.embedded.workload;
+
+import java.time.Duration;
+
+/**
+ * What one persistence configuration cost the clients and the server during a run.
+ */
+public class PersistenceReport {
+    private final PersistenceMode mode;
+    private final WorkloadReport workload;
+    private final Duration latestFork;
+    private final long forks;
+    private final long delayedFsyncs;
+    private final Duration backgroundJob;
+    private final long copyOnWriteBytes;
+    
+    PersistenceReport(PersistenceMode mode, WorkloadReport workload, Duration latestFork, long forks,
+            long delayedFsyncs, Duration backgroundJob, long copyOnWriteBytes) {
+        this.mode = mode;
+        this.workload = workload;
+        this.latestFork = latestFork;
+        this.forks = forks;
+        this.delayedFsyncs = delayedFsyncs;
+        this.backgroundJob = backgroundJob;
+        this.copyOnWriteBytes = copyOnWriteBytes;
+    }
+    
+    public PersistenceMode mode() {
+        return mode;
+    }
+    
+    /**
+     * @return throughput and latency percentiles of the clients, including the time the background job ran
+     */
+    public WorkloadReport workload() {
+        return workload;
+    }
+    
+    /**
+     * @return how long the main thread was blocked by the last fork, {@code latest_fork_usec}
+     */
+    public Duration latestFork() {
+        return latestFork;
+    }
+    
+    /**
+     * @return the forks during the run
+     */
+    public long forks() {
+        return forks;
+    }
+    
+    /**
+     * @return how often a write had to wait for a slow fsync during the run, {@code aof_delayed_fsync}
+     */
+    public long delayedFsyncs() {
+        return delayedFsyncs;
+    }
+    
+    /**
+     * @return how long the background save or rewrite took from its command to its completion, zero without one
+     */
+    public Duration backgroundJob() {
+        return backgroundJob;
+    }
+    
+    /**
+     * @return the memory the background job's child had to copy because the parent wrote to it
+     */
+    public long copyOnWriteBytes() {
+        return copyOnWriteBytes;
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("%s: fork %s, %d forks, %d delayed fsyncs, background job %s, copy on write %d, %s",
+                mode, latestFork, forks, delayedFsyncs, backgroundJob, copyOnWriteBytes, workload);
+    }
+}
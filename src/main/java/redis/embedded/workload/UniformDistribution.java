@@ -0,0 +1,32 @@
+package redis.embedded.workload;
+
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.util.random.RandomGenerator;
+
+class UniformDistribution
+        implements KeyDistribution {
+    private final long keys;
+    
+    UniformDistribution(long keys) {
+        if (keys < 1) {
+            throw new RedisBuildingException("A key distribution needs at least one key");
+        }
+        this.keys = keys;
+    }
+    
+    @Override
+    public long keys() {
+        return keys;
+    }
+    
+    @Override
+    public long next(RandomGenerator random) {
+        return random.nextLong(keys);
+    }
+    
+    @Override
+    public String toString() {
+        return "uniform(" + keys + ")";
+    }
+}
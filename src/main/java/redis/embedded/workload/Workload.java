@@ -0,0 +1,202 @@
+package redis.embedded.workload;
+
+import redis.embedded.BulkLoadReport;
+import redis.embedded.BulkLoader;
+import redis.embedded.Redis;
+import redis.embedded.RedisCluster;
+import redis.embedded.ReplicationGroup;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A YCSB style mix of reads and updates over a skewed set of keys, driven by clients on virtual threads:
+ * <pre>
+ * Workload workload = Workload.builder().keys(KeyDistribution.zipfian(1_000_000)).readProportion(0.9).build();
+ * workload.load(cluster);
+ * WorkloadReport report = workload.run(cluster);
+ * </pre>
+ * Without a {@link WorkloadBuilder#targetRate(double) target rate} every client sends its next operation as soon as
+ * the previous one was answered. With one, operations are started on a fixed schedule and their latency is measured
+ * from the scheduled start, so a stalled server does not hide the operations it held up.
+ * <p>
+ * A sharded {@link RedisCluster} gets each operation from the master owning the slot of its key, any other cluster
+ * through the master of its first replication group.
+ */
+public class Workload {
+    private final KeyDistribution keys;
+    private final String keyPrefix;
+    private final double readProportion;
+    private final int minValueSize;
+    private final int maxValueSize;
+    private final int clients;
+    private final Duration duration;
+    private final long operations;
+    private final double targetRate;
+    private final long ttlMillis;
+    private final long seed;
+    private final Duration timeout;
+    
+    Workload(KeyDistribution keys, String keyPrefix, double readProportion, int minValueSize, int maxValueSize,
+            int clients, Duration duration, long operations, double targetRate, long ttlMillis, long seed,
+            Duration timeout) {
+        this.keys = keys;
+        this.keyPrefix = keyPrefix;
+        this.readProportion = readProportion;
+        this.minValueSize = minValueSize;
+        this.maxValueSize = maxValueSize;
+        this.clients = clients;
+        this.duration = duration;
+        this.operations = operations;
+        this.targetRate = targetRate;
+        this.ttlMillis = ttlMillis;
+        this.seed = seed;
+        this.timeout = timeout;
+    }
+    
+    public static WorkloadBuilder builder() {
+        return new WorkloadBuilder();
+    }
+    
+    /**
+     * Writes a value to every key of the distribution, so that reads of the run find their keys.
+     */
+    public BulkLoadReport load(Redis target) {
+        final SplittableRandom random = new SplittableRandom(seed);
+        final byte[] value = randomValue(random);
+        return BulkLoader.builder().timeout(timeout).build().load(target, keys.keys(),
+                i -> set(key(i), ByteBuffer.wrap(value, 0, valueSize(random))));
+    }
+    
+    public WorkloadReport run(Redis target) {
+        final List<Redis> masters = masters(target);
+        final int[] ports = new int[masters.size()];
+        for (int i = 0; i < ports.length; i++) {
+            if (masters.get(i).ports().isEmpty()) {
+                throw new EmbeddedRedisException("A workload needs plain text ports to connect to");
+            }
+            ports[i] = masters.get(i).ports().getFirst();
+        }
+        final int[] owners = isSharded(target) ? slotOwners((RedisCluster) target, masters) : null;
+        final SplittableRandom random = new SplittableRandom(seed);
+        final long intervalNanos = targetRate > 0 ? Math.max(1, Math.round(clients * 1_000_000_000.0 / targetRate)) : 0;
+        final AtomicLong remaining = operations > 0 ? new AtomicLong(operations) : null;
+        final long start = System.nanoTime();
+        final long deadline = duration == null ? Long.MAX_VALUE : start + duration.toNanos();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            final List<Future<WorkloadReport>> futures = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                // clients are spread over the interval, so a constant rate does not arrive in bursts
+                futures.add(executor.submit(new WorkloadClient(this, ports, owners, random.split(), start, deadline,
+                        remaining, intervalNanos, intervalNanos * i / clients, timeout)));
+            }
+            WorkloadReport report = WorkloadReport.empty();
+            for (Future<WorkloadReport> future : futures) {
+                report = report.merge(future.get(), System.nanoTime() - start);
+            }
+            return report;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof EmbeddedRedisException
+                    ? (EmbeddedRedisException) e.getCause()
+                    : new EmbeddedRedisException("Workload client failed", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new EmbeddedRedisException("Interrupted while running workload", e);
+        }
+    }
+    
+    /**
+     * @return the same workload running for {@code duration} with another seed
+     */
+    Workload withDuration(Duration duration, long seed) {
+        return new Workload(keys, keyPrefix, readProportion, minValueSize, maxValueSize, clients, duration, 0,
+                targetRate, ttlMillis, seed, timeout);
+    }
+    
+    KeyDistribution keys() {
+        return keys;
+    }
+    
+    double readProportion() {
+        return readProportion;
+    }
+    
+    long seed() {
+        return seed;
+    }
+    
+    Duration timeout() {
+        return timeout;
+    }
+    
+    Object[] set(byte[] key, ByteBuffer value) {
+        return ttlMillis > 0
+                ? new Object[]{"SET", key, value, "PX", ttlMillis}
+                : new Object[]{"SET", key, value};
+    }
+    
+    byte[] key(long index) {
+        return (keyPrefix + index).getBytes(StandardCharsets.UTF_8);
+    }
+    
+    int valueSize(SplittableRandom random) {
+        return minValueSize == maxValueSize ? maxValueSize : random.nextInt(minValueSize, maxValueSize + 1);
+    }
+    
+    byte[] randomValue(SplittableRandom random) {
+        final byte[] value = new byte[maxValueSize];
+        for (int i = 0; i < value.length; i++) {
+            value[i] = (byte) ('a' + random.nextInt(26));
+        }
+        return value;
+    }
+    
+    private static boolean isSharded(Redis target) {
+        return target instanceof RedisCluster && ((RedisCluster) target).isSharded();
+    }
+    
+    static List<Redis> masters(Redis target) {
+        if (!(target instanceof RedisCluster)) {
+            return List.of(target);
+        }
+        final RedisCluster cluster = (RedisCluster) target;
+        if (cluster.isSharded()) {
+            final List<Redis> masters = new ArrayList<>();
+            for (Redis server : cluster.servers()) {
+                if (!cluster.slots(server).isEmpty()) {
+                    masters.add(server);
+                }
+            }
+            return masters;
+        }
+        final List<ReplicationGroup> groups = cluster.replicationGroups();
+        return List.of(groups.isEmpty() ? cluster.servers().getFirst() : groups.getFirst().master());
+    }
+    
+    private static int[] slotOwners(RedisCluster cluster, List<Redis> masters) {
+        final int[] owners = new int[16384];
+        Arrays.fill(owners, -1);
+        for (int i = 0; i < masters.size(); i++) {
+            for (int slot : cluster.slots(masters.get(i))) {
+                owners[slot] = i;
+            }
+        }
+        for (int slot = 0; slot < owners.length; slot++) {
+            if (owners[slot] < 0) {
+                throw new EmbeddedRedisException("Slot " + slot + " is not served by any master");
+            }
+        }
+        return owners;
+    }
+}
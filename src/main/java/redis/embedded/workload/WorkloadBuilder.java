@@ -0,0 +1,135 @@
+package redis.embedded.workload;
+
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.time.Duration;
+
+public class WorkloadBuilder {
+    private static final Duration DEFAULT_DURATION = Duration.ofSeconds(10);
+    
+    private KeyDistribution keys = KeyDistribution.uniform(100_000);
+    private String keyPrefix = "user";
+    private double readProportion = 0.95;
+    private int minValueSize = 100;
+    private int maxValueSize = 100;
+    private int clients = 16;
+    private Duration duration;
+    private long operations = 0;
+    private double targetRate = 0;
+    private Duration ttl;
+    private long seed = System.nanoTime();
+    private Duration timeout = Duration.ofSeconds(5);
+    
+    WorkloadBuilder() {
+    }
+    
+    public WorkloadBuilder keys(KeyDistribution keys) {
+        this.keys = keys;
+        return this;
+    }
+    
+    public WorkloadBuilder keyPrefix(String keyPrefix) {
+        this.keyPrefix = keyPrefix;
+        return this;
+    }
+    
+    /**
+     * Sets the fraction of operations that are reads, the rest are updates.
+     */
+    public WorkloadBuilder readProportion(double readProportion) {
+        this.readProportion = readProportion;
+        return this;
+    }
+    
+    public WorkloadBuilder valueSize(int valueSize) {
+        return valueSize(valueSize, valueSize);
+    }
+    
+    /**
+     * Draws the size of every written value uniformly from {@code min} up to {@code max} bytes.
+     */
+    public WorkloadBuilder valueSize(int min, int max) {
+        this.minValueSize = min;
+        this.maxValueSize = max;
+        return this;
+    }
+    
+    /**
+     * Sets the number of clients, each with its own virtual thread and connection.
+     */
+    public WorkloadBuilder clients(int clients) {
+        this.clients = clients;
+        return this;
+    }
+    
+    /**
+     * Stops the run after {@code duration}, ten seconds unless a number of {@link #operations(long) operations} is
+     * given.
+     */
+    public WorkloadBuilder duration(Duration duration) {
+        this.duration = duration;
+        return this;
+    }
+    
+    /**
+     * Stops the run after {@code operations} operations over all clients.
+     */
+    public WorkloadBuilder operations(long operations) {
+        this.operations = operations;
+        return this;
+    }
+    
+    /**
+     * Starts operations at a constant rate over all clients instead of as fast as the server answers. Clients only
+     * send one operation at a time, so there have to be enough of them to keep up with the rate.
+     */
+    public WorkloadBuilder targetRate(double operationsPerSecond) {
+        this.targetRate = operationsPerSecond;
+        return this;
+    }
+    
+    /**
+     * Writes every value with an expiry, which the volatile eviction policies need to find keys they may evict.
+     */
+    public WorkloadBuilder ttl(Duration ttl) {
+        this.ttl = ttl;
+        return this;
+    }
+    
+    /**
+     * Seeds the choice of keys, operations and values, so that a run can be repeated.
+     */
+    public WorkloadBuilder seed(long seed) {
+        this.seed = seed;
+        return this;
+    }
+    
+    public WorkloadBuilder timeout(Duration timeout) {
+        this.timeout = timeout;
+        return this;
+    }
+    
+    public Workload build() {
+        if (keys == null) {
+            throw new RedisBuildingException("A workload needs a key distribution");
+        }
+        if (readProportion < 0 || readProportion > 1) {
+            throw new RedisBuildingException("The read proportion has to be between 0 and 1, was " + readProportion);
+        }
+        if (minValueSize < 1 || maxValueSize < minValueSize) {
+            throw new RedisBuildingException("Value sizes have to be positive, with the minimum not above the maximum");
+        }
+        if (clients < 1) {
+            throw new RedisBuildingException("A workload needs at least one client");
+        }
+        if (operations < 0 || targetRate < 0 || (duration != null && duration.isNegative())) {
+            throw new RedisBuildingException("Duration, operations and target rate can not be negative");
+        }
+        if (ttl != null && ttl.toMillis() < 1) {
+            throw new RedisBuildingException("A time to live has to be at least a millisecond, was " + ttl);
+        }
+        final Duration runDuration = duration == null && operations == 0 ? DEFAULT_DURATION : duration;
+        return new Workload(keys, keyPrefix, readProportion, minValueSize, maxValueSize, clients, runDuration,
+                operations, targetRate, ttl == null ? 0 : ttl.toMillis(), seed, timeout);
+    }
+}
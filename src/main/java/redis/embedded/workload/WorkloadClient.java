@@ -0,0 +1,106 @@
+package redis.embedded.workload;
+
+import org.HdrHistogram.Histogram;
+import redis.embedded.RedisCluster;
+import redis.embedded.RedisConnection;
+import redis.embedded.exceptions.RedisCommandException;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * One simulated client, running on its own virtual thread with one connection per master it may have to talk to.
+ */
+class WorkloadClient
+        implements Callable<WorkloadReport> {
+    private final Workload workload;
+    private final int[] ports;
+    private final int[] owners;
+    private final SplittableRandom random;
+    private final long start;
+    private final long deadline;
+    private final AtomicLong remaining;
+    private final long intervalNanos;
+    private final long offsetNanos;
+    private final Duration timeout;
+    
+    WorkloadClient(Workload workload, int[] ports, int[] owners, SplittableRandom random, long start, long deadline,
+            AtomicLong remaining, long intervalNanos, long offsetNanos, Duration timeout) {
+        this.workload = workload;
+        this.ports = ports;
+        this.owners = owners;
+        this.random = random;
+        this.start = start;
+        this.deadline = deadline;
+        this.remaining = remaining;
+        this.intervalNanos = intervalNanos;
+        this.offsetNanos = offsetNanos;
+        this.timeout = timeout;
+    }
+    
+    @Override
+    public WorkloadReport call() {
+        final Map<WorkloadOperation, Histogram> histograms = new EnumMap<>(WorkloadOperation.class);
+        final Map<WorkloadOperation, Long> errors = new EnumMap<>(WorkloadOperation.class);
+        for (WorkloadOperation operation : WorkloadOperation.values()) {
+            histograms.put(operation, new Histogram(3));
+            errors.put(operation, 0L);
+        }
+        final RedisConnection[] connections = new RedisConnection[ports.length];
+        try {
+            for (int i = 0; i < ports.length; i++) {
+                connections[i] = RedisConnection.open(ports[i], timeout);
+            }
+            final byte[] value = workload.randomValue(random);
+            long scheduled = start + offsetNanos;
+            while (remaining == null || remaining.getAndDecrement() > 0) {
+                long now = System.nanoTime();
+                if (intervalNanos > 0) {
+                    // open loop: every operation has a start time of its own, however late the previous one was
+                    while (now < scheduled && scheduled < deadline) {
+                        LockSupport.parkNanos(scheduled - now);
+                        now = System.nanoTime();
+                    }
+                    if (scheduled >= deadline) {
+                        break;
+                    }
+                } else {
+                    if (now >= deadline) {
+                        break;
+                    }
+                    scheduled = now;
+                }
+                final byte[] key = workload.key(workload.keys().next(random));
+                final RedisConnection connection = connections[owners == null ? 0 : owners[RedisCluster.hashSlot(key)]];
+                final WorkloadOperation operation = random.nextDouble() < workload.readProportion()
+                        ? WorkloadOperation.READ
+                        : WorkloadOperation.UPDATE;
+                try {
+                    if (operation == WorkloadOperation.READ) {
+                        connection.callBulk(ignored -> {
+                        }, "GET", key);
+                    } else {
+                        connection.call(workload.set(key, ByteBuffer.wrap(value, 0, workload.valueSize(random))));
+                    }
+                    histograms.get(operation).recordValue(System.nanoTime() - scheduled);
+                } catch (RedisCommandException e) {
+                    errors.merge(operation, 1L, Long::sum);
+                }
+                scheduled += intervalNanos;
+            }
+        } finally {
+            for (RedisConnection connection : connections) {
+                if (connection != null) {
+                    connection.close();
+                }
+            }
+        }
+        return new WorkloadReport(histograms, errors, System.nanoTime() - start);
+    }
+}
@@ -0,0 +1,12 @@
+package redis.embedded.workload;
+
+public enum WorkloadOperation {
+    /**
+     * {@code GET} of a key, the value is read without being copied.
+     */
+    READ,
+    /**
+     * {@code SET} of a key to a value of the configured size.
+     */
+    UPDATE
+}
@@ -0,0 +1,98 @@
+package redis.embedded.workload;
+
+import org.HdrHistogram.Histogram;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+public class WorkloadReport {
+    private final Map<WorkloadOperation, Histogram> histograms;
+    private final Map<WorkloadOperation, Long> errors;
+    private final long elapsedNanos;
+    
+    WorkloadReport(Map<WorkloadOperation, Histogram> histograms, Map<WorkloadOperation, Long> errors,
+            long elapsedNanos) {
+        this.histograms = histograms;
+        this.errors = errors;
+        this.elapsedNanos = elapsedNanos;
+    }
+    
+    static WorkloadReport empty() {
+        final Map<WorkloadOperation, Histogram> histograms = new EnumMap<>(WorkloadOperation.class);
+        final Map<WorkloadOperation, Long> errors = new EnumMap<>(WorkloadOperation.class);
+        for (WorkloadOperation operation : WorkloadOperation.values()) {
+            histograms.put(operation, new Histogram(3));
+            errors.put(operation, 0L);
+        }
+        return new WorkloadReport(histograms, errors, 0);
+    }
+    
+    /**
+     * @return the number of operations that were answered without an error
+     */
+    public long operations(WorkloadOperation operation) {
+        return histograms.get(operation).getTotalCount();
+    }
+    
+    public long operations() {
+        long operations = 0;
+        for (WorkloadOperation operation : WorkloadOperation.values()) {
+            operations += operations(operation);
+        }
+        return operations;
+    }
+    
+    /**
+     * @return the number of operations that were answered with an error, they do not stop a run
+     */
+    public long errors(WorkloadOperation operation) {
+        return errors.get(operation);
+    }
+    
+    public Duration elapsed() {
+        return Duration.ofNanos(elapsedNanos);
+    }
+    
+    public double operationsPerSecond() {
+        return elapsedNanos == 0 ? 0 : operations() * 1_000_000_000.0 / elapsedNanos;
+    }
+    
+    /**
+     * Latencies in nanoseconds. In constant rate mode they are measured from the time an operation was scheduled to
+     * start, so time spent waiting behind a slow reply counts.
+     */
+    public Histogram histogram(WorkloadOperation operation) {
+        return histograms.get(operation).copy();
+    }
+    
+    public Duration latency(WorkloadOperation operation, double percentile) {
+        return Duration.ofNanos(histograms.get(operation).getValueAtPercentile(percentile));
+    }
+    
+    WorkloadReport merge(WorkloadReport other, long elapsedNanos) {
+        final Map<WorkloadOperation, Histogram> histograms = new EnumMap<>(WorkloadOperation.class);
+        final Map<WorkloadOperation, Long> errors = new EnumMap<>(WorkloadOperation.class);
+        for (WorkloadOperation operation : WorkloadOperation.values()) {
+            final Histogram histogram = this.histograms.get(operation).copy();
+            histogram.add(other.histograms.get(operation));
+            histograms.put(operation, histogram);
+            errors.put(operation, this.errors.get(operation) + other.errors.get(operation));
+        }
+        return new WorkloadReport(histograms, errors, elapsedNanos);
+    }
+    
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder(String.format("%d operations in %s, %.0f operations/s",
+                operations(), elapsed(), operationsPerSecond()));
+        for (WorkloadOperation operation : WorkloadOperation.values()) {
+            if (operations(operation) > 0 || errors(operation) > 0) {
+                builder.append(String.format("; %s %d (%d errors) p50 %s p99 %s p99.9 %s", operation,
+                        operations(operation), errors(operation), latency(operation, 50), latency(operation, 99),
+                        latency(operation, 99.9)));
+            }
+        }
+        return builder.toString();
+    }
+}
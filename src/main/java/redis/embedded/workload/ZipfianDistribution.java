@@ -0,0 +1,67 @@
+package redis.embedded.workload;
+
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * The generator of Gray et al., "Quickly Generating Billion-Record Synthetic Databases", as YCSB uses it. Only the
+ * zeta constant takes time proportional to the number of keys, once on construction.
+ */
+class ZipfianDistribution
+        implements KeyDistribution {
+    static final double DEFAULT_THETA = 0.99;
+    
+    private final long keys;
+    private final double theta;
+    private final double zetan;
+    private final double alpha;
+    private final double eta;
+    private final double secondKeyThreshold;
+    
+    ZipfianDistribution(long keys, double theta) {
+        if (keys < 1) {
+            throw new RedisBuildingException("A key distribution needs at least one key");
+        }
+        if (theta <= 0 || theta >= 1) {
+            throw new RedisBuildingException("The zipfian skew has to be between 0 and 1, was " + theta);
+        }
+        this.keys = keys;
+        this.theta = theta;
+        this.zetan = zeta(keys, theta);
+        this.alpha = 1.0 / (1.0 - theta);
+        this.eta = (1 - Math.pow(2.0 / keys, 1 - theta)) / (1 - zeta(2, theta) / zetan);
+        this.secondKeyThreshold = 1 + Math.pow(0.5, theta);
+    }
+    
+    private static double zeta(long keys, double theta) {
+        double sum = 0;
+        for (long i = 1; i <= keys; i++) {
+            sum += 1 / Math.pow(i, theta);
+        }
+        return sum;
+    }
+    
+    @Override
+    public long keys() {
+        return keys;
+    }
+    
+    @Override
+    public long next(RandomGenerator random) {
+        final double u = random.nextDouble();
+        final double uz = u * zetan;
+        if (uz < 1.0) {
+            return 0;
+        }
+        if (uz < secondKeyThreshold) {
+            return Math.min(1, keys - 1);
+        }
+        return Math.min((long) (keys * Math.pow(eta * u - eta + 1, alpha)), keys - 1);
+    }
+    
+    @Override
+    public String toString() {
+        return "zipfian(" + keys + ", " + theta + ")";
+    }
+}
@@ -0,0 +1,110 @@
+package redis.embedded;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BulkLoaderTest {
+
+    @Test
+    public void hashSlotsShouldMatchRedisCluster() {
+        assertEquals(12739, HashSlots.of(bytes("123456789")));
+        assertEquals(12182, HashSlots.of(bytes("foo")));
+        assertEquals(0, HashSlots.of(bytes("{06S}key7")));
+        assertEquals(HashSlots.of(bytes("user1000")), HashSlots.of(bytes("{user1000}.following")));
+        // an empty hash tag hashes the whole key
+        assertEquals(HashSlots.crc16(bytes("{}foo"), 0, 5) & 16383, HashSlots.of(bytes("{}foo")));
+    }
+
+    @Test
+    public void readerShouldSplitCommandsLargerThanItsBuffer() throws Exception {
+        final String large = "x".repeat(100);
+        final String resp = "*3\r\n$3\r\nSET\r\n$1\r\na\r\n$100\r\n" + large + "\r\n"
+                + "*1\r\n$4\r\nPING\r\n"
+                + "*2\r\n$3\r\nGET\r\n$10\r\nkey:{1}abc\r\n";
+        final List<String> commands = new ArrayList<>();
+        final List<byte[]> keys = new ArrayList<>();
+
+        try (RespCommandReader reader = new RespCommandReader(
+                Channels.newChannel(new ByteArrayInputStream(bytes(resp))), 16)) {
+            ByteBuffer command;
+            while ((command = reader.next()) != null) {
+                keys.add(RespCommandReader.key(command));
+                final byte[] encoded = new byte[command.remaining()];
+                command.get(encoded);
+                commands.add(new String(encoded, StandardCharsets.UTF_8));
+            }
+        }
+
+        assertEquals(3, commands.size());
+        assertEquals(resp, String.join("", commands));
+        assertArrayEquals(bytes("a"), keys.get(0));
+        assertNull(keys.get(1));
+        assertArrayEquals(bytes("key:{1}abc"), keys.get(2));
+    }
+
+    @Test
+    public void shouldLoadInstanceFromGeneratorAndFile() throws Exception {
+        final RedisServer server = new RedisServer(6398);
+        server.start();
+        try {
+            final BulkLoader loader = BulkLoader.builder().window(100).batchSize(10).build();
+
+            final BulkLoadReport generated = loader.load(server, 1005, i -> new Object[]{"SET", "key:" + i, i});
+            final File file = File.createTempFile("bulk", ".resp");
+            file.deleteOnExit();
+            Files.writeString(file.toPath(), "*3\r\n$3\r\nSET\r\n$4\r\nfile\r\n$1\r\n1\r\n*2\r\n$4\r\nINCR\r\n$5\r\nkey:1\r\n"
+                    + "*2\r\n$4\r\nINCR\r\n$4\r\nfile\r\n*3\r\n$5\r\nLPUSH\r\n$4\r\nfile\r\n$1\r\nx\r\n");
+            final BulkLoadReport loaded = loader.load(server, file.toPath());
+
+            assertEquals(1005, generated.commands());
+            assertEquals(0, generated.errors());
+            assertEquals(4, loaded.commands());
+            assertEquals(1, loaded.errors());
+            try (RedisConnection connection = server.connect()) {
+                assertEquals(1006L, connection.callLong("DBSIZE"));
+                assertEquals("2", connection.callString("GET", "key:1"));
+                assertEquals("2", connection.callString("GET", "file"));
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void shouldRouteCommandsToSlotOwnersOfShardedCluster() throws Exception {
+        final RedisCluster cluster = RedisCluster.builder().serverPorts(List.of(7310, 7311, 7312)).shards(3).build();
+        cluster.start();
+        try {
+            final BulkLoadReport report = BulkLoader.builder().build()
+                    .load(cluster, 3000, i -> new Object[]{"SET", "key:" + i, "value"});
+
+            assertEquals(3000, report.commands());
+            assertEquals(0, report.errors());
+            long keys = 0;
+            for (Redis master : cluster.servers()) {
+                try (RedisConnection connection = master.connect()) {
+                    keys += connection.callLong("DBSIZE");
+                }
+            }
+            assertEquals(3000, keys);
+        } finally {
+            cluster.stop();
+        }
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
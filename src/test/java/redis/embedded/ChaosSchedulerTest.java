@@ -0,0 +1,69 @@
+package redis.embedded;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChaosSchedulerTest {
+    private RedisCluster cluster;
+
+    @After
+    public void tearDown() throws Exception {
+        if (cluster != null) {
+            cluster.stop();
+        }
+    }
+
+    @Test
+    public void closeShouldLeaveClusterConsistent() throws Exception {
+        final RedisSentinelBuilder sentinelBuilder = new RedisSentinelBuilder()
+                .downAfterMilliseconds(1000L)
+                .failoverTimeout(5000L);
+        cluster = RedisCluster.builder().ephemeral().withSentinelBuilder(sentinelBuilder)
+                .sentinelCount(3).quorumSize(2)
+                .replicationGroup("master1", 2)
+                .build();
+        cluster.start();
+        final ChaosScheduler chaos = ChaosScheduler.builder(cluster)
+                .seed(42)
+                .interval(Duration.ofMillis(200), Duration.ofMillis(500))
+                .pauseDuration(Duration.ofMillis(200), Duration.ofMillis(500))
+                .build()
+                .start();
+        Thread.sleep(5000);
+
+        chaos.close();
+
+        final List<ChaosEvent> timeline = chaos.timeline();
+        assertFalse(timeline.isEmpty());
+        assertTrue(cluster.isActive());
+        final ReplicationGroup group = cluster.replicationGroup("master1");
+        for (Redis replica : group.replicas()) {
+            assertTrue(ReplicationReadiness.isInSync(group.master(), replica));
+        }
+    }
+
+    @Test
+    public void shouldNotTakeDownShardMastersServingSlots() throws Exception {
+        cluster = RedisCluster.builder().ephemeral().shards(3).build();
+        cluster.start();
+        final ChaosScheduler chaos = ChaosScheduler.builder(cluster)
+                .seed(42)
+                .interval(Duration.ofMillis(100), Duration.ofMillis(200))
+                .build()
+                .start();
+        Thread.sleep(2000);
+
+        chaos.close();
+
+        assertTrue(chaos.timeline().isEmpty());
+        for (Redis master : cluster.servers()) {
+            assertTrue(master.isActive());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package redis.embedded;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class OffsetHistoryTest {
+
+    @Test
+    public void shouldReportNoLagForCaughtUpReplica() {
+        final OffsetHistory history = new OffsetHistory(8);
+        history.record(100, 10);
+        history.record(200, 20);
+
+        assertEquals(0, history.lagNanos(300, 20));
+    }
+
+    @Test
+    public void shouldMeasureLagFromFirstOffsetPastReplica() {
+        final OffsetHistory history = new OffsetHistory(8);
+        history.record(100, 10);
+        history.record(200, 20);
+        history.record(250, 20);
+        history.record(300, 30);
+
+        assertEquals(200, history.lagNanos(400, 10));
+        assertEquals(100, history.lagNanos(400, 25));
+    }
+
+    @Test
+    public void shouldFallBackToOldestSampleOnceHistoryWraps() {
+        final OffsetHistory history = new OffsetHistory(2);
+        history.record(100, 10);
+        history.record(200, 20);
+        history.record(300, 30);
+
+        assertEquals(200, history.lagNanos(400, 5));
+    }
+}
@@ -0,0 +1,64 @@
+package redis.embedded;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RedisClusterFailoverTest {
+    private RedisCluster cluster;
+
+    @Before
+    public void setUp() throws Exception {
+        final RedisSentinelBuilder sentinelBuilder = new RedisSentinelBuilder()
+                .downAfterMilliseconds(1000L)
+                .failoverTimeout(5000L);
+        cluster = RedisCluster.builder().ephemeral().withSentinelBuilder(sentinelBuilder)
+                .sentinelCount(3).quorumSize(2)
+                .replicationGroup("master1", 2)
+                .build();
+        cluster.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        cluster.stop();
+    }
+
+    @Test
+    public void sentinelFailoverShouldPromoteReplica() throws Exception {
+        final Redis oldMaster = cluster.replicationGroup("master1").master();
+
+        final FailoverReport report = cluster.failover("master1", FailoverMode.SENTINEL, Duration.ofSeconds(30));
+
+        assertTrue(oldMaster != report.newMaster());
+        assertEquals(report.newMaster(), cluster.replicationGroup("master1").master());
+        assertTrue(cluster.replicationGroup("master1").replicas().contains(oldMaster));
+        assertFalse(report.reconnectTime().compareTo(report.electionTime()) < 0);
+        assertTrue(report.acknowledgedWrites() > 0);
+        assertTrue(report.lostWrites() <= report.acknowledgedWrites());
+        try (RedisConnection connection = RedisConnection.open(report.newMaster().ports().get(0))) {
+            assertEquals(0, connection.callLong("EXISTS", "embedded-redis:failover-probe"));
+        }
+    }
+
+    @Test
+    public void killFailoverShouldPromoteReplicaOfDeadMaster() throws Exception {
+        final Redis oldMaster = cluster.replicationGroup("master1").master();
+
+        final FailoverReport report = cluster.failover("master1", FailoverMode.KILL, Duration.ofSeconds(30));
+
+        final ReplicationGroup group = cluster.replicationGroup("master1");
+        assertEquals(report.newMaster(), group.master());
+        assertTrue(report.electionTime().toMillis() >= 1000);
+        // the killed master is back as a replica, so the group can change again
+        assertTrue(oldMaster.isActive());
+        assertTrue(ReplicationReadiness.isInSync(group.master(), oldMaster));
+        cluster.removeReplica(oldMaster);
+    }
+}
@@ -0,0 +1,102 @@
+package redis.embedded;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RedisClusterReplicationTest {
+    private RedisCluster cluster;
+
+    @Before
+    public void setUp() throws Exception {
+        cluster = RedisCluster.builder().ephemeral().sentinelCount(2).quorumSize(2)
+                .replicationGroup("master1", 2)
+                .replicationGroup("master2", 1)
+                .build();
+        cluster.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        cluster.stop();
+    }
+
+    @Test
+    public void startShouldReturnOnlyOnceReplicasAreInSync() throws Exception {
+        assertEquals(2, cluster.replicationGroups().size());
+        for (ReplicationGroup group : cluster.replicationGroups()) {
+            for (Redis replica : group.replicas()) {
+                assertTrue(ReplicationReadiness.isInSync(group.master(), replica));
+            }
+        }
+    }
+
+    @Test
+    public void startShouldReturnOnlyOnceSentinelsDiscoveredReplicas() throws Exception {
+        for (Redis sentinel : cluster.sentinels()) {
+            assertTrue(ReplicationReadiness.hasDiscovered(sentinel, cluster.replicationGroup("master1")));
+            assertTrue(ReplicationReadiness.hasDiscovered(sentinel, cluster.replicationGroup("master2")));
+        }
+    }
+
+    @Test
+    public void replicasShouldServeReadsRightAfterStart() throws Exception {
+        final ReplicationGroup group = cluster.replicationGroup("master1");
+        try (RedisConnection master = RedisConnection.open(group.master().ports().get(0))) {
+            master.call("SET", "key", "value");
+            master.call("WAIT", 2, 1000);
+        }
+        for (Redis replica : group.replicas()) {
+            try (RedisConnection connection = RedisConnection.open(replica.ports().get(0))) {
+                assertEquals("value", connection.callString("GET", "key"));
+            }
+        }
+    }
+
+    @Test
+    public void addReplicaShouldReturnOnceReplicaIsInSyncAndDiscovered() throws Exception {
+        final ReplicationGroup group = cluster.replicationGroup("master2");
+
+        final RedisServer added = cluster.addReplica("master2");
+
+        assertTrue(group.replicas().contains(added));
+        assertTrue(cluster.servers().contains(added));
+        assertTrue(ReplicationReadiness.isInSync(group.master(), added));
+        for (Redis sentinel : cluster.sentinels()) {
+            assertTrue(ReplicationReadiness.hasDiscovered(sentinel, group));
+        }
+    }
+
+    @Test
+    public void removeReplicaShouldStopReplicaAndLeaveGroup() throws Exception {
+        final ReplicationGroup group = cluster.replicationGroup("master1");
+        final Redis removed = group.replicas().get(0);
+
+        cluster.removeReplica(removed);
+
+        assertFalse(removed.isActive());
+        assertEquals(1, group.replicas().size());
+        assertFalse(cluster.servers().contains(removed));
+    }
+
+    @Test
+    public void addAndRemoveSentinelShouldKeepSentinelsAware() throws Exception {
+        final RedisSentinel added = cluster.addSentinel();
+
+        assertEquals(3, cluster.sentinels().size());
+        for (Redis sentinel : cluster.sentinels()) {
+            assertEquals(2, ReplicationReadiness.otherSentinels(sentinel, cluster.replicationGroup("master1")));
+        }
+
+        cluster.removeSentinel(added);
+
+        assertFalse(added.isActive());
+        for (Redis sentinel : cluster.sentinels()) {
+            assertEquals(1, ReplicationReadiness.otherSentinels(sentinel, cluster.replicationGroup("master1")));
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package redis.embedded;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import redis.embedded.exceptions.EmbeddedRedisException;
+import redis.embedded.exceptions.RedisCommandException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs the client against a socket that answers with canned replies, so no redis binary is needed.
+ */
+public class RedisConnectionTest {
+    private ServerSocket server;
+    private Thread responder;
+    private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+
+    @Before
+    public void setUp() throws Exception {
+        server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        server.close();
+        if (responder != null) {
+            responder.join(1000);
+        }
+    }
+
+    @Test
+    public void shouldEncodeCommandsAsArraysOfBulkStrings() throws Exception {
+        reply("+OK\r\n");
+
+        try (RedisConnection connection = RedisConnection.open(server.getLocalPort())) {
+            assertEquals("OK", connection.callString("SET", "ké", -42L));
+        }
+
+        responder.join(1000);
+        assertEquals("*3\r\n$3\r\nSET\r\n$3\r\nké\r\n$3\r\n-42\r\n", received.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void shouldDecodeResp2Replies() throws Exception {
+        reply(":12\r\n$-1\r\n*2\r\n$3\r\nfoo\r\n*-1\r\n-ERR broken\r\n");
+
+        try (RedisConnection connection = RedisConnection.open(server.getLocalPort())) {
+            final List<Object> replies = connection.pipeline(List.of(
+                    new Object[]{"A"}, new Object[]{"B"}, new Object[]{"C"}, new Object[]{"D"}));
+
+            assertEquals(12L, replies.get(0));
+            assertNull(replies.get(1));
+            final List<?> array = (List<?>) replies.get(2);
+            assertEquals("foo", RedisConnection.asString(array.get(0)));
+            assertNull(array.get(1));
+            assertEquals("ERR broken", ((RedisCommandException) replies.get(3)).getMessage());
+        }
+    }
+
+    @Test
+    public void shouldDecodeResp3Replies() throws Exception {
+        reply("%2\r\n$5\r\nproto\r\n:3\r\n+mode\r\n~1\r\n#t\r\n"
+                + "|1\r\n+ttl\r\n:5\r\n,inf\r\n"
+                + "(12345678901234567890\r\n"
+                + "=7\r\ntxt:abc\r\n"
+                + "_\r\n"
+                + "!5\r\nERR x\r\n");
+
+        try (RedisConnection connection = RedisConnection.open(server.getLocalPort())) {
+            @SuppressWarnings("unchecked")
+            final Map<Object, Object> hello = (Map<Object, Object>) connection.hello(3);
+            assertEquals(3L, hello.get("proto"));
+            assertEquals(List.of(true), hello.get("mode"));
+            assertEquals(Double.POSITIVE_INFINITY, connection.read());
+            assertEquals(new BigInteger("12345678901234567890"), connection.read());
+            assertEquals("abc", RedisConnection.asString(connection.read()));
+            assertNull(connection.read());
+            assertEquals("ERR x", ((RedisCommandException) connection.read()).getMessage());
+        }
+    }
+
+    @Test
+    public void shouldReadBulkStringsLargerThanTheReceiveBuffer() throws Exception {
+        final byte[] value = new byte[300 * 1024];
+        Arrays.fill(value, (byte) 'x');
+        final String bulk = "$" + value.length + "\r\n" + new String(value, StandardCharsets.US_ASCII) + "\r\n";
+        reply(bulk + bulk);
+
+        try (RedisConnection connection = RedisConnection.open(server.getLocalPort())) {
+            assertArrayEquals(value, (byte[]) connection.call("GET", "a"));
+            final ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+            final long length = connection.callBulk(view -> {
+                assertTrue(view.isReadOnly());
+                while (view.hasRemaining()) {
+                    streamed.write(view.get());
+                }
+            }, "GET", "a");
+
+            assertEquals(value.length, length);
+            assertArrayEquals(value, streamed.toByteArray());
+        }
+    }
+
+    @Test
+    public void shouldTimeOutWhenNoReplyArrives() throws Exception {
+        reply("");
+
+        try (RedisConnection connection = RedisConnection.open(server.getLocalPort(), Duration.ofMillis(100))) {
+            connection.call("PING");
+            fail("Expected a timeout");
+        } catch (EmbeddedRedisException e) {
+            assertEquals("Failed to read reply", e.getMessage());
+        }
+    }
+
+    private void reply(String replies) {
+        responder = new Thread(() -> {
+            try (Socket socket = server.accept()) {
+                final OutputStream out = socket.getOutputStream();
+                out.write(replies.getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                final InputStream in = socket.getInputStream();
+                socket.setSoTimeout(300);
+                final byte[] buffer = new byte[4096];
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    synchronized (received) {
+                        received.write(buffer, 0, read);
+                    }
+                }
+            } catch (IOException ignored) {
+            }
+        });
+        responder.setDaemon(true);
+        responder.start();
+    }
+}
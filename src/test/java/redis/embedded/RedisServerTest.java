@@ -2,17 +2,27 @@ package redis.embedded;
 
 import com.google.common.io.Resources;
 import org.junit.Test;
+import redis.embedded.exceptions.EmbeddedRedisException;
 import redis.embedded.exceptions.RedisBuildingException;
+import redis.embedded.ports.SequencePortProvider;
 import redis.embedded.util.Architecture;
 import redis.embedded.util.OS;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class RedisServerTest {
 
@@ -94,6 +104,265 @@ public class RedisServerTest {
         assertFalse(redisServer.isActive());
     }
 
+    @Test
+    public void shouldMoveToNextPortWhenPortIsTaken() throws Exception {
+        try (ServerSocket taken = new ServerSocket(6390)) {
+            redisServer = RedisServer.builder()
+                    .port(taken.getLocalPort())
+                    .portProvider(new SequencePortProvider(6391))
+                    .build();
+            redisServer.start();
+            assertTrue(redisServer.isActive());
+            assertEquals(Collections.singletonList(6391), redisServer.ports());
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void shouldFailFastWhenPortIsTakenWithoutPortProvider() throws Exception {
+        try (ServerSocket ignored = new ServerSocket(6392)) {
+            redisServer = new RedisServer(6392);
+            final long start = System.nanoTime();
+            try {
+                redisServer.start();
+                fail("Expected start to fail");
+            } catch (EmbeddedRedisException e) {
+                assertFalse(redisServer.isActive());
+                assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+            }
+        }
+    }
+
+    @Test
+    public void pausedServerShouldNotAnswerUntilResumed() throws Exception {
+        redisServer = new RedisServer(6393);
+        redisServer.start();
+        try (RedisConnection connection = RedisConnection.open(6393, Duration.ofMillis(200))) {
+            redisServer.pause(Duration.ofSeconds(30));
+            assertTrue(redisServer.isPaused());
+            try {
+                connection.call("PING");
+                fail("Expected a paused server not to answer");
+            } catch (EmbeddedRedisException expected) {
+            }
+
+            redisServer.resume();
+
+            assertFalse(redisServer.isPaused());
+            try (RedisConnection fresh = RedisConnection.open(6393)) {
+                assertEquals("PONG", fresh.callString("PING"));
+            }
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void pauseShouldEndByItselfAfterMaxDuration() throws Exception {
+        redisServer = new RedisServer(6394);
+        redisServer.start();
+        try {
+            redisServer.pause(Duration.ofMillis(200));
+            Thread.sleep(1000L);
+
+            assertFalse(redisServer.isPaused());
+            try (RedisConnection connection = RedisConnection.open(6394)) {
+                assertEquals("PONG", connection.callString("PING"));
+            }
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void debugReloadShouldKeepDataAndConnections() throws Exception {
+        redisServer = RedisServer.builder().port(6395).enableDebugCommand().build();
+        redisServer.start();
+        try (RedisConnection connection = RedisConnection.open(6395)) {
+            connection.call("SET", "key", "value");
+
+            redisServer.restart(RestartMode.DEBUG_RELOAD);
+
+            assertEquals("value", connection.callString("GET", "key"));
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void gracefulRestartShouldKeepDataAndPort() throws Exception {
+        redisServer = RedisServer.builder().port(6396).build();
+        redisServer.start();
+        try {
+            try (RedisConnection connection = RedisConnection.open(6396)) {
+                connection.call("SET", "key", "value");
+            }
+
+            redisServer.restart(RestartMode.GRACEFUL);
+            redisServer.restart(RestartMode.GRACEFUL);
+
+            assertEquals(Collections.singletonList(6396), redisServer.ports());
+            try (RedisConnection connection = RedisConnection.open(6396)) {
+                assertEquals("value", connection.callString("GET", "key"));
+            }
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void gracefulRestartShouldKeepAppendOnlyDataAndDiscardTmpfsOnStop() throws Exception {
+        redisServer = RedisServer.builder().port(6415).setting("appendonly yes").build();
+        redisServer.start();
+        final File dataDir;
+        try {
+            try (RedisConnection connection = RedisConnection.open(6415)) {
+                connection.call("SET", "key", "value");
+            }
+
+            redisServer.restart(RestartMode.GRACEFUL);
+
+            try (RedisConnection connection = RedisConnection.open(6415)) {
+                assertEquals("value", connection.callString("GET", "key"));
+                dataDir = new File(RedisConnection.asString(((List<?>) connection.call("CONFIG", "GET", "dir")).get(1)));
+            }
+        } finally {
+            redisServer.stop();
+        }
+        assertFalse(dataDir.exists());
+    }
+
+    @Test
+    public void hardRestartShouldKeepPort() throws Exception {
+        redisServer = new RedisServer(6397);
+        redisServer.start();
+        try {
+            redisServer.restart(RestartMode.HARD);
+
+            assertTrue(redisServer.isActive());
+            try (RedisConnection connection = RedisConnection.open(6397)) {
+                assertEquals("PONG", connection.callString("PING"));
+            }
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void resetShouldRestoreFixtureWithEveryStrategy() throws Exception {
+        redisServer = RedisServer.builder().port(6400).enableDebugCommand().build();
+        redisServer.start();
+        try {
+            try (RedisConnection connection = redisServer.connect()) {
+                connection.call("SET", "fixture", "value");
+            }
+            redisServer.captureFixture();
+
+            for (ResetStrategy strategy : List.of(ResetStrategy.SWAPDB_TEMPLATE, ResetStrategy.SWAPDB_TEMPLATE,
+                    ResetStrategy.DEBUG_RELOAD, ResetStrategy.RESTART, ResetStrategy.ADAPTIVE)) {
+                try (RedisConnection connection = redisServer.connect()) {
+                    connection.call("SET", "dirty", "value");
+                    connection.call("DEL", "fixture");
+                }
+
+                final ResetReport report = redisServer.reset(strategy);
+
+                assertEquals(1, report.keys());
+                try (RedisConnection connection = redisServer.connect()) {
+                    assertEquals("value", connection.callString("GET", "fixture"));
+                    assertEquals(0L, connection.callLong("EXISTS", "dirty"));
+                }
+            }
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void adaptiveResetWithoutFixtureShouldFlushAsynchronously() throws Exception {
+        redisServer = new RedisServer(6401);
+        redisServer.start();
+        try {
+            try (RedisConnection connection = redisServer.connect()) {
+                connection.call("SET", "key", "value");
+                connection.call("EVAL", "return 1", 0);
+            }
+
+            final ResetReport report = redisServer.reset(ResetStrategy.ADAPTIVE);
+
+            assertEquals(ResetStrategy.FLUSHALL_ASYNC, report.strategy());
+            try (RedisConnection connection = redisServer.connect()) {
+                assertEquals(0L, connection.callLong("DBSIZE"));
+                assertEquals(List.of(0L), connection.call("SCRIPT", "EXISTS", "e0e1f9fabfc9d4800c877a703b823ac0578ff8db"));
+            }
+        } finally {
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void cloneShouldStartIndependentServersWithSameDataset() throws Exception {
+        redisServer = RedisServer.builder().port(6402).portProvider(new SequencePortProvider(6403)).build();
+        redisServer.start();
+        List<RedisServer> clones = Collections.emptyList();
+        try {
+            try (RedisConnection connection = redisServer.connect()) {
+                connection.call("SET", "key", "value");
+            }
+
+            clones = redisServer.clone(2);
+
+            assertEquals(List.of(6403), clones.get(0).ports());
+            assertEquals(List.of(6404), clones.get(1).ports());
+            assertFalse(clones.get(0).dataDirectory().equals(clones.get(1).dataDirectory()));
+            assertFalse(clones.get(0).dataDirectory().equals(redisServer.dataDirectory()));
+            for (RedisServer clone : clones) {
+                try (RedisConnection connection = clone.connect()) {
+                    assertEquals("master", connection.info("replication").get("role"));
+                    assertEquals("value", connection.callString("GET", "key"));
+                    connection.call("SET", "key", "changed");
+                }
+            }
+            try (RedisConnection connection = redisServer.connect()) {
+                assertEquals("value", connection.callString("GET", "key"));
+            }
+        } finally {
+            for (RedisServer clone : clones) {
+                clone.stop();
+            }
+            redisServer.stop();
+        }
+    }
+
+    @Test
+    public void highDensityServersShouldShareExecutableButNotDataDirectory() throws Exception {
+        final RedisServer first = RedisServer.builder().port(6406).highDensity().build();
+        final RedisServer second = RedisServer.builder().port(6407).highDensity().setting("hz 5").build();
+        first.start();
+        second.start();
+        try {
+            assertEquals(first.args.getFirst(), second.args.getFirst());
+            assertFalse(first.dataDirectory().equals(second.dataDirectory()));
+            try (RedisConnection connection = first.connect()) {
+                assertEquals("1", RedisConnection.asString(((List<?>) connection.call("CONFIG", "GET", "hz")).get(1)));
+                assertEquals("", RedisConnection.asString(((List<?>) connection.call("CONFIG", "GET", "save")).get(1)));
+            }
+            try (RedisConnection connection = second.connect()) {
+                assertEquals("5", RedisConnection.asString(((List<?>) connection.call("CONFIG", "GET", "hz")).get(1)));
+            }
+            assertTrue(first.usedMemoryRss() > 0);
+        } finally {
+            first.stop();
+            second.stop();
+        }
+    }
+
+    @Test(expected = RedisBuildingException.class)
+    public void highDensityShouldOnlyBindLoopback() {
+        RedisServer.builder().port(6406).bind("0.0.0.0").highDensity().build();
+    }
+
     @Test
     public void shouldOverrideDefaultExecutable() throws Exception {
         RedisExecProvider customProvider = RedisExecProvider.defaultProvider()
@@ -148,6 +417,30 @@ public class RedisServerTest {
 				readyPattern);
 	}
 
+	@Test
+	public void shouldStartServerRequiringPassword() {
+		redisServer = RedisServer.builder().port(6413).setting("requirepass secret").build();
+		try {
+			redisServer.start();
+			assertTrue(redisServer.isActive());
+		} finally {
+			redisServer.stop();
+		}
+	}
+
+	@Test
+	public void builderShouldExtractExecutableOnlyOnce() throws Exception {
+		final RedisServerBuilder builder = RedisServer.builder().port(6416);
+		final File executable = new File(builder.build().args.get(0));
+		assertTrue(executable.setLastModified(0));
+
+		builder.reset();
+		final RedisServer second = builder.port(6417).build();
+
+		assertEquals(executable.getAbsolutePath(), second.args.get(0));
+		assertEquals(0, executable.lastModified());
+	}
+
 	private void assertReadyPattern(BufferedReader reader, String readyPattern) throws IOException {
 		String outputLine;
 		do {
@@ -0,0 +1,86 @@
+package redis.embedded;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RedisShardedClusterTest {
+    private RedisCluster cluster;
+
+    @Before
+    public void setUp() throws Exception {
+        cluster = RedisCluster.builder().serverPorts(List.of(7300, 7301, 7302, 7303)).shards(2).build();
+        cluster.start();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        cluster.stop();
+    }
+
+    @Test
+    public void startShouldAssignEverySlot() throws Exception {
+        final List<Redis> masters = cluster.servers();
+
+        assertEquals(8192, cluster.slots(masters.get(0)).size());
+        assertEquals(8192, cluster.slots(masters.get(1)).size());
+    }
+
+    @Test
+    public void migrateSlotsShouldMoveKeysAndReportProgress() throws Exception {
+        final List<Redis> masters = cluster.servers();
+        try (RedisConnection connection = RedisConnection.open(masters.get(0).ports().get(0))) {
+            // {06S} hashes to slot 0
+            for (int i = 0; i < 50; i++) {
+                connection.call("SET", "{06S}key" + i, "value" + i);
+            }
+        }
+        final AtomicInteger progress = new AtomicInteger();
+
+        final SlotMigrationReport report = cluster.migrateSlots(masters.get(0), masters.get(1), 0, 99, 10,
+                (slot, keys, elapsedNanos, migratedSlots, totalSlots) -> progress.set(migratedSlots));
+
+        assertEquals(100, report.slots());
+        assertEquals(50, report.keys());
+        assertEquals(100, progress.get());
+        assertTrue(cluster.slots(masters.get(1)).contains(0));
+        try (RedisConnection connection = RedisConnection.open(masters.get(1).ports().get(0))) {
+            assertEquals("value7", connection.callString("GET", "{06S}key7"));
+        }
+    }
+
+    @Test
+    public void addMasterAndRebalanceShouldSpreadSlotsEvenly() throws Exception {
+        final RedisServer added = cluster.addMaster();
+
+        final SlotMigrationReport report = cluster.rebalance();
+
+        assertEquals(5461, report.slots());
+        final List<Integer> counts = new ArrayList<>();
+        for (Redis master : cluster.servers()) {
+            counts.add(cluster.slots(master).size());
+        }
+        assertEquals(List.of(5462, 5461, 5461), counts);
+        assertTrue(added.isActive());
+    }
+
+    @Test
+    public void removeNodeShouldDrainSlotsAndStopNode() throws Exception {
+        final Redis removed = cluster.servers().get(1);
+
+        final SlotMigrationReport report = cluster.removeNode(removed);
+
+        assertEquals(8192, report.slots());
+        assertEquals(1, cluster.servers().size());
+        assertEquals(16384, cluster.slots(cluster.servers().get(0)).size());
+        assertFalse(removed.isActive());
+    }
+}
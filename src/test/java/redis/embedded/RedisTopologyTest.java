@@ -0,0 +1,88 @@
+package redis.embedded;
+
+import org.junit.After;
+import org.junit.Test;
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RedisTopologyTest {
+    private RedisCluster cluster;
+
+    @After
+    public void tearDown() throws Exception {
+        if (cluster != null) {
+            cluster.stop();
+        }
+    }
+
+    @Test(expected = RedisBuildingException.class)
+    public void replicaShouldRequireKnownUpstream() throws Exception {
+        new RedisTopology().replica("b", "a");
+    }
+
+    @Test(expected = RedisBuildingException.class)
+    public void sentinelShouldRequireKnownGroup() throws Exception {
+        new RedisTopology().master("orders", "a").sentinel("users").sentinels();
+    }
+
+    @Test
+    public void sentinelWithoutGroupsShouldMonitorEveryGroup() throws Exception {
+        final RedisTopology topology = new RedisTopology()
+                .master("orders", "a")
+                .master("users", "b")
+                .sentinel()
+                .sentinel("users");
+
+        assertEquals(List.of(List.of("orders", "users"), List.of("users")), topology.sentinels());
+    }
+
+    @Test
+    public void overrideShouldOnlyApplyToItsOwnServer() throws Exception {
+        final RedisCluster built = RedisCluster.builder().ephemeral().topology(new RedisTopology()
+                        .master("orders", "a", server -> server.enableDebugCommand().bind("127.0.0.1 ::1"))
+                        .replica("b", "a"))
+                .build();
+
+        final List<String> overridden = ((RedisServer) built.server("a")).args;
+        final List<String> plain = ((RedisServer) built.server("b")).args;
+        assertTrue(overridden.contains("--enable-debug-command"));
+        assertFalse(plain.contains("--enable-debug-command"));
+        assertFalse(Files.readString(Path.of(plain.get(1))).contains("::1"));
+    }
+
+    @Test
+    public void chainedReplicasShouldSyncThroughTheirUpstream() throws Exception {
+        cluster = RedisCluster.builder().ephemeral().topology(new RedisTopology()
+                        .master("orders", "a")
+                        .replica("b", "a")
+                        .replica("c", "b", server -> server.setting("maxmemory 64mb"))
+                        .master("users", "d")
+                        .quorum("orders", 1)
+                        .sentinel("orders")
+                        .sentinel("users"))
+                .build();
+        cluster.start();
+
+        final ReplicationGroup orders = cluster.replicationGroup("orders");
+        assertEquals(cluster.server("b"), orders.upstream(cluster.server("c")));
+        assertEquals(List.of(cluster.server("b")), orders.replicasOf(cluster.server("a")));
+        try (RedisConnection master = RedisConnection.open(cluster.server("a").ports().get(0))) {
+            master.call("SET", "key", "value");
+        }
+        ReplicationReadiness.awaitReplicas(orders, Duration.ofSeconds(10));
+        try (RedisConnection chained = RedisConnection.open(cluster.server("c").ports().get(0))) {
+            assertEquals("value", chained.callString("GET", "key"));
+            assertEquals("67108864", RedisConnection.asString(((List<?>) chained.call("CONFIG", "GET", "maxmemory")).get(1)));
+        }
+        assertTrue(ReplicationReadiness.monitors(cluster.sentinels().get(0), orders));
+        assertFalse(ReplicationReadiness.monitors(cluster.sentinels().get(0), cluster.replicationGroup("users")));
+    }
+}
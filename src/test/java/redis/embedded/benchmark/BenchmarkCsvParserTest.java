@@ -0,0 +1,67 @@
+package redis.embedded.benchmark;
+
+import org.junit.Test;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class BenchmarkCsvParserTest {
+
+    @Test
+    public void shouldParseThroughputAndLatencyPercentiles() throws IOException {
+        final BenchmarkReport report = new BenchmarkReport(BenchmarkCsvParser.parse(
+                resource("redis-benchmark-7.x-csv-output.txt")));
+
+        assertEquals(9, report.results().size());
+        final BenchmarkResult set = report.result("set");
+        assertEquals(144927.55, set.requestsPerSecond(), 0.001);
+        assertEquals(Duration.ofNanos(184_000), set.averageLatency());
+        assertEquals(Duration.ofNanos(64_000), set.minLatency());
+        assertEquals(Duration.ofNanos(175_000), set.p50Latency());
+        assertEquals(Duration.ofNanos(263_000), set.p95Latency());
+        assertEquals(Duration.ofNanos(359_000), set.p99Latency());
+        assertEquals(Duration.ofNanos(1_247_000), set.maxLatency());
+        assertEquals(140845.08, report.requestsPerSecond("LPUSH"), 0.001);
+        assertEquals(116279.07, report.requestsPerSecond("MSET (10 keys)"), 0.001);
+    }
+
+    @Test
+    public void shouldParseThroughputOnlyOutput() {
+        final List<BenchmarkResult> results = BenchmarkCsvParser.parse(Arrays.asList(
+                "WARNING: Could not fetch server CONFIG",
+                "\"test\",\"rps\"",
+                "\"GET\",\"99009.90\""));
+
+        assertEquals(1, results.size());
+        assertEquals(99009.90, results.getFirst().requestsPerSecond(), 0.001);
+        assertNull(results.getFirst().p99Latency());
+    }
+
+    @Test
+    public void shouldSplitQuotedFields() {
+        assertEquals(Arrays.asList("a, \"b\"", "", "c"), BenchmarkCsvParser.split("\"a, \"\"b\"\"\",,c"));
+    }
+
+    @Test(expected = EmbeddedRedisException.class)
+    public void shouldFailForUnknownTest() throws IOException {
+        new BenchmarkReport(BenchmarkCsvParser.parse(resource("redis-benchmark-7.x-csv-output.txt")))
+                .result("HSET");
+    }
+
+    private static List<String> resource(String name) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                BenchmarkCsvParserTest.class.getClassLoader().getResourceAsStream(name), StandardCharsets.UTF_8))) {
+            return reader.lines().collect(Collectors.toList());
+        }
+    }
+}
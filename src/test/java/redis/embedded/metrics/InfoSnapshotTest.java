@@ -0,0 +1,127 @@
+package redis.embedded.metrics;
+
+import org.junit.Test;
+import redis.embedded.RedisServer;
+import redis.embedded.exceptions.EmbeddedRedisException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+public class InfoSnapshotTest {
+    private static final String INFO = "# Server\r\n"
+            + "redis_version:7.0.15\r\n"
+            + "run_id:8d6f4fcbd21d40fd1ae9ff5fbcb8f4b8f3b8c4a1\r\n"
+            + "executable:/tmp/redis-server-7.0.15-linux-amd64\r\n"
+            + "\r\n"
+            + "# Memory\r\n"
+            + "used_memory:1063328\r\n"
+            + "mem_fragmentation_ratio:9.45\r\n"
+            + "\r\n"
+            + "# Stats\r\n"
+            + "total_commands_processed:%d\r\n"
+            + "instantaneous_ops_per_sec:12\r\n"
+            + "rejected_connections:0\r\n"
+            + "keyspace_hits:%d\r\n"
+            + "keyspace_misses:%d\r\n"
+            + "\r\n"
+            + "# CPU\r\n"
+            + "used_cpu_sys:%s\r\n"
+            + "\r\n"
+            + "# Commandstats\r\n"
+            + "cmdstat_get:calls=%d,usec=30,usec_per_call=0.75,rejected_calls=0,failed_calls=0\r\n"
+            + "\r\n"
+            + "# Keyspace\r\n"
+            + "db0:keys=10,expires=2,avg_ttl=1000\r\n"
+            + "db1:keys=5,expires=0,avg_ttl=0\r\n";
+
+    @Test
+    public void shouldParseTypedFieldsAcrossChunkBoundaries() {
+        final byte[] reply = info(100, 30, 10, "0.125", 40).getBytes(StandardCharsets.US_ASCII);
+        for (int chunk = 1; chunk <= reply.length; chunk++) {
+            final InfoParser parser = new InfoParser();
+            for (int offset = 0; offset < reply.length; offset += chunk) {
+                parser.accept(ByteBuffer.wrap(reply, offset, Math.min(chunk, reply.length - offset)).slice());
+            }
+            final InfoSnapshot snapshot = new InfoSnapshot(0, parser.finish());
+
+            assertEquals(1063328L, snapshot.usedMemory());
+            assertEquals(9.45, snapshot.getDouble("mem_fragmentation_ratio"), 0);
+            assertEquals("/tmp/redis-server-7.0.15-linux-amd64", snapshot.getString("executable"));
+            assertEquals("7.0.15", snapshot.getString("redis_version"));
+            assertEquals(0.75, snapshot.getDouble("cmdstat_get.usec_per_call"), 0);
+            assertEquals(15, snapshot.keys());
+            assertEquals(2L, snapshot.section("keyspace").get("db0.expires"));
+        }
+    }
+
+    @Test
+    public void shouldComputeRatesBetweenSnapshots() {
+        final InfoSnapshot earlier = snapshot(0, info(100, 30, 10, "1.5", 40));
+        final InfoSnapshot later = snapshot(2_000_000_000L, info(300, 60, 30, "2.5", 90));
+
+        final InfoDiff diff = later.diff(earlier);
+
+        assertEquals(Duration.ofSeconds(2), diff.elapsed());
+        assertEquals(100.0, diff.opsPerSecond(), 0);
+        assertEquals(0.6, diff.hitRatio(), 1e-9);
+        assertEquals(0.5, diff.rate("used_cpu_sys"), 1e-9);
+        assertEquals(50, diff.delta("cmdstat_get.calls"));
+        assertEquals(0, diff.delta("cmdstat_set.calls"));
+    }
+
+    @Test(expected = EmbeddedRedisException.class)
+    public void shouldRejectMissingField() {
+        snapshot(0, info(1, 1, 1, "0", 1)).getLong("evicted_keys");
+    }
+
+    @Test
+    public void shouldSampleServerPeriodically() throws InterruptedException {
+        final RedisServer server = new RedisServer(6411);
+        server.start();
+        try (InfoSubscription subscription = InfoSampler.shared().register(server, Duration.ofMillis(50), "stats")) {
+            for (int i = 0; i < 100; i++) {
+                server.ping();
+            }
+            Thread.sleep(500);
+
+            assertTrue(subscription.history().size() >= 5);
+            assertNotNull(subscription.latestDiff());
+            assertTrue(subscription.latest().totalCommandsProcessed() >= 100);
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void shouldKeepSamplingWhenListenerFails() throws InterruptedException {
+        final RedisServer server = new RedisServer(6414);
+        server.start();
+        try (InfoSubscription subscription = InfoSampler.shared().register(server, Duration.ofMillis(50), "stats")) {
+            subscription.addListener((s, snapshot, diff) -> {
+                throw new IllegalStateException("listener failure");
+            });
+            Thread.sleep(500);
+
+            assertTrue(subscription.history().size() >= 5);
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static String info(long commands, long hits, long misses, String cpu, long getCalls) {
+        return String.format(INFO, commands, hits, misses, cpu, getCalls);
+    }
+
+    private static InfoSnapshot snapshot(long nanoTime, String info) {
+        final InfoParser parser = new InfoParser();
+        parser.accept(ByteBuffer.wrap(info.getBytes(StandardCharsets.US_ASCII)));
+        final Map<String, Map<String, Object>> sections = parser.finish();
+        return new InfoSnapshot(nanoTime, sections);
+    }
+}
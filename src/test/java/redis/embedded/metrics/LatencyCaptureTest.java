@@ -0,0 +1,74 @@
+package redis.embedded.metrics;
+
+import org.junit.Test;
+import redis.embedded.RedisConnection;
+import redis.embedded.RedisServer;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyCaptureTest {
+
+    @Test
+    public void shouldSubtractCumulativeBuckets() {
+        final CommandLatency before = latency(10, Map.of(1L, 5L, 2L, 10L));
+        final CommandLatency after = latency(50, Map.of(1L, 25L, 2L, 45L, 16L, 50L));
+
+        final CommandLatency during = after.minus(before);
+
+        assertEquals(40, during.calls());
+        assertEquals(Map.of(1L, 20L, 2L, 35L, 16L, 40L), during.histogram());
+        assertEquals(Duration.ofNanos(1000), during.percentile(50));
+        assertEquals(Duration.ofNanos(2000), during.percentile(75));
+        assertEquals(Duration.ofNanos(16000), during.max());
+    }
+
+    @Test
+    public void shouldMergeNodes() {
+        final CommandLatency merged = latency(10, Map.of(1L, 10L)).plus(latency(10, Map.of(4L, 10L)));
+
+        assertEquals(20, merged.calls());
+        assertEquals(Map.of(1L, 10L, 4L, 20L), merged.histogram());
+        assertEquals(Duration.ofNanos(1000), merged.percentile(50));
+        assertEquals(Duration.ofNanos(4000), merged.percentile(51));
+    }
+
+    @Test
+    public void shouldCaptureSlowCommandsOfBlock() {
+        final RedisServer server = RedisServer.builder().port(6412).enableDebugCommand().build();
+        server.start();
+        try {
+            final LatencyReport report = LatencyCapture.builder().build().capture(server, () -> {
+                try (RedisConnection connection = server.connect()) {
+                    for (int i = 0; i < 100; i++) {
+                        connection.call("SET", "key" + i, "value");
+                    }
+                    connection.call("DEBUG", "SLEEP", "0.02");
+                }
+            });
+
+            assertEquals("DEBUG", report.slowlog().getFirst().command());
+            assertTrue(report.slowlog().getFirst().duration().compareTo(Duration.ofMillis(20)) >= 0);
+            assertEquals(1, report.slowerThan(Duration.ofMillis(10)).size());
+            assertEquals(100, report.commands().get("set").calls());
+            assertTrue(report.events().stream().anyMatch(event -> event.event().equals("command")));
+            try (RedisConnection connection = server.connect()) {
+                final List<?> threshold = (List<?>) connection.call("CONFIG", "GET", "slowlog-log-slower-than");
+                assertEquals("10000", RedisConnection.asString(threshold.get(1)));
+            }
+        } finally {
+            server.stop();
+        }
+    }
+
+    private static CommandLatency latency(long calls, Map<Long, Long> buckets) {
+        final NavigableMap<Long, Long> cumulative = new TreeMap<>(buckets);
+        return new CommandLatency("get", calls, cumulative);
+    }
+}
@@ -0,0 +1,85 @@
+package redis.embedded.metrics;
+
+import org.junit.Test;
+import redis.embedded.RedisServer;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ProcessMetricsTest {
+
+    @Test
+    public void shouldParseCpuTimesAfterCommandName() {
+        final String stat = "4242 (redis-server *:6379) S 1 4242 4242 0 -1 4194560 3120 0 0 0 "
+                + "25 13 7 3 20 0 5 0 889 10092544 2431 18446744073709551615";
+        final long nanosPerTick = 1_000_000_000L / ProcFs.clockTicks();
+
+        final long[] times = ProcFs.parseCpuTimes(stat);
+
+        assertEquals(25 * nanosPerTick, times[0]);
+        assertEquals(13 * nanosPerTick, times[1]);
+        assertEquals(7 * nanosPerTick, times[2]);
+        assertEquals(3 * nanosPerTick, times[3]);
+    }
+
+    @Test
+    public void shouldParseStatusSizesAsBytes() {
+        final Map<String, Long> status = ProcFs.parseFields("Name:\tredis-server\nState:\tS (sleeping)\n"
+                + "VmHWM:\t    9840 kB\nVmRSS:\t    9724 kB\nvoluntary_ctxt_switches:\t118\n"
+                + "nonvoluntary_ctxt_switches:\t4\n");
+
+        assertEquals(9724 * 1024L, (long) status.get("VmRSS"));
+        assertEquals(9840 * 1024L, (long) status.get("VmHWM"));
+        assertEquals(118L, (long) status.get("voluntary_ctxt_switches"));
+        assertEquals(4L, (long) status.get("nonvoluntary_ctxt_switches"));
+        assertTrue(!status.containsKey("Name") && !status.containsKey("State"));
+    }
+
+    @Test
+    public void shouldDiffOwnProcess() {
+        if (!ProcFs.isAvailable()) {
+            return;
+        }
+        final long pid = ProcessHandle.current().pid();
+        final ProcessMetrics before = ProcessMetrics.read(pid);
+        long spin = 0;
+        for (int i = 0; i < 50_000_000; i++) {
+            spin += i % 7;
+        }
+        final ProcessMetrics after = ProcessMetrics.read(pid);
+
+        final ProcessMetricsDiff diff = after.diff(before);
+
+        assertTrue(spin > 0);
+        assertTrue(after.rss() > 0 && after.peakRss() >= after.rss());
+        assertTrue(after.openFileDescriptors() > 0);
+        assertTrue(diff.elapsed().toNanos() > 0);
+        assertTrue(diff.voluntaryContextSwitches() >= 0);
+    }
+
+    @Test
+    public void shouldSampleServer() {
+        if (!ProcFs.isAvailable()) {
+            return;
+        }
+        final RedisServer server = new RedisServer(6408);
+        server.start();
+        try (ProcessMetricsSampler sampler = new ProcessMetricsSampler(server)) {
+            sampler.sample();
+            for (int i = 0; i < 1000; i++) {
+                server.ping();
+            }
+            sampler.sample();
+
+            final ProcessMetricsDiff diff = sampler.sinceStart().get(server);
+
+            assertEquals(server.pid(), diff.later().pid());
+            assertTrue(diff.voluntaryContextSwitches() > 0);
+            assertTrue(sampler.latest().get(server).rss() > 0);
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package redis.embedded.ports;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LeasedPortProviderTest {
+    private static final int START_PORT = 43000;
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("embedded-redis-leases");
+    }
+
+    @Test
+    public void providersSharingDirectoryShouldNeverLeaseSamePort() throws Exception {
+        //given
+        final LeasedPortProvider first = new LeasedPortProvider(directory, START_PORT, START_PORT + 100);
+        final LeasedPortProvider second = new LeasedPortProvider(directory, START_PORT, START_PORT + 100);
+
+        //when
+        final Set<Integer> ports = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            ports.add(first.next());
+            ports.add(second.next());
+        }
+
+        //then
+        assertEquals(20, ports.size());
+    }
+
+    @Test
+    public void providersInDifferentProcessesShouldNeverLeaseSamePort() throws Exception {
+        //given
+        final Process other = new ProcessBuilder(ProcessHandle.current().info().command().orElse("java"),
+                "-cp", System.getProperty("java.class.path"), LeaseHolder.class.getName(),
+                directory.toString(), Integer.toString(START_PORT), "5").start();
+        try {
+            final Set<Integer> otherPorts = new HashSet<>();
+            final BufferedReader reader = new BufferedReader(
+                    new InputStreamReader(other.getInputStream(), StandardCharsets.UTF_8));
+            for (String port : reader.readLine().split(" ")) {
+                otherPorts.add(Integer.parseInt(port));
+            }
+            final LeasedPortProvider provider = new LeasedPortProvider(directory, START_PORT, START_PORT + 100);
+
+            //when
+            final List<Integer> ports = provider.next(5);
+
+            //then
+            assertEquals(5, otherPorts.size());
+            for (int port : ports) {
+                assertFalse(otherPorts.contains(port));
+            }
+        } finally {
+            other.destroy();
+            other.waitFor();
+        }
+    }
+
+    @Test
+    public void malformedLeasesShouldBeSkipped() throws Exception {
+        //given
+        Files.write(directory.resolve("leases"), ("garbage\n" + START_PORT + " 12ab\n43\n")
+                .getBytes(StandardCharsets.UTF_8));
+        final LeasedPortProvider provider = new LeasedPortProvider(directory, START_PORT, START_PORT + 100);
+
+        //when
+        final int port = provider.next();
+
+        //then
+        assertEquals(START_PORT, port);
+    }
+
+    @Test
+    public void leasesOfDeadProcessesShouldBeReclaimed() throws Exception {
+        //given
+        Files.write(directory.resolve("leases"), (START_PORT + " " + Long.MAX_VALUE + "\n").getBytes(StandardCharsets.UTF_8));
+        final LeasedPortProvider provider = new LeasedPortProvider(directory, START_PORT, START_PORT + 100);
+
+        //when
+        final int port = provider.next();
+
+        //then
+        assertEquals(START_PORT, port);
+    }
+
+    @Test
+    public void closeShouldReturnLeases() throws Exception {
+        //given
+        final LeasedPortProvider provider = new LeasedPortProvider(directory, START_PORT, START_PORT + 100);
+        final List<Integer> ports = provider.next(3);
+
+        //when
+        provider.close();
+
+        //then
+        final String table = new String(Files.readAllBytes(directory.resolve("leases")), StandardCharsets.UTF_8);
+        for (int port : ports) {
+            assertFalse(table.contains(port + " "));
+        }
+        assertTrue(table.isEmpty());
+    }
+
+    /**
+     * Leases ports from a second JVM and holds them until its standard input is closed.
+     */
+    public static class LeaseHolder {
+        public static void main(String[] args) throws Exception {
+            final int startingPort = Integer.parseInt(args[1]);
+            final LeasedPortProvider provider = new LeasedPortProvider(Paths.get(args[0]), startingPort,
+                    startingPort + 100);
+            final StringBuilder ports = new StringBuilder();
+            for (int port : provider.next(Integer.parseInt(args[2]))) {
+                ports.append(ports.length() == 0 ? "" : " ").append(port);
+            }
+            System.out.println(ports);
+            System.out.flush();
+            System.in.read();
+        }
+    }
+}
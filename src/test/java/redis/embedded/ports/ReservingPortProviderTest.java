@@ -0,0 +1,97 @@
+package redis.embedded.ports;
+
+import org.junit.Test;
+import redis.embedded.RedisCluster;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ReservingPortProviderTest {
+
+    @Test
+    public void nextShouldSkipPortsInUse() throws Exception {
+        //given
+        try (ServerSocket taken = new ServerSocket(0);
+             ReservingPortProvider provider = new ReservingPortProvider(taken.getLocalPort())) {
+
+            //when
+            final int port = provider.next();
+
+            //then
+            assertTrue(port > taken.getLocalPort());
+        }
+    }
+
+    @Test
+    public void reservedPortShouldStayBoundUntilReleased() throws Exception {
+        //given
+        try (ReservingPortProvider provider = new ReservingPortProvider(41000)) {
+            final int port = provider.next();
+
+            //then
+            assertTrue(provider.isReserved(port));
+            assertFalse(canBind(port));
+
+            //when
+            provider.release(port);
+
+            //then
+            assertFalse(provider.isReserved(port));
+            assertTrue(canBind(port));
+        }
+    }
+
+    @Test
+    public void nextShouldReserveContiguousBlock() throws Exception {
+        //given
+        try (ServerSocket taken = new ServerSocket(0);
+             ReservingPortProvider provider = new ReservingPortProvider(taken.getLocalPort())) {
+
+            //when
+            final List<Integer> ports = provider.next(3);
+
+            //then
+            assertEquals(3, ports.size());
+            assertTrue(ports.getFirst() > taken.getLocalPort());
+            for (int i = 0; i < ports.size(); i++) {
+                assertEquals(ports.getFirst() + i, (int) ports.get(i));
+                assertTrue(provider.isReserved(ports.get(i)));
+                assertFalse(canBind(ports.get(i)));
+            }
+        }
+    }
+
+    @Test
+    public void clusterStopShouldReleaseReservedPorts() throws Exception {
+        //given
+        final RedisCluster cluster = RedisCluster.builder().reserving().replicationGroup("master1", 1).build();
+        final List<Integer> ports = cluster.ports();
+        for (int port : ports) {
+            assertFalse(canBind(port));
+        }
+
+        //when
+        cluster.stop();
+
+        //then
+        for (int port : ports) {
+            assertTrue(canBind(port));
+        }
+    }
+
+    private static boolean canBind(int port) {
+        try (ServerSocket socket = new ServerSocket()) {
+            socket.setReuseAddress(false);
+            socket.bind(new InetSocketAddress(port));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package redis.embedded.workload;
+
+import org.junit.Test;
+import redis.embedded.RedisServer;
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EvictionHarnessTest {
+
+    @Test
+    public void shouldMapPoliciesToConfigValues() {
+        assertEquals("allkeys-lru", EvictionPolicy.ALLKEYS_LRU.configValue());
+        assertEquals("noeviction", EvictionPolicy.NOEVICTION.configValue());
+        assertEquals(EvictionPolicy.VOLATILE_TTL, EvictionPolicy.fromConfigValue("volatile-ttl"));
+    }
+
+    @Test(expected = RedisBuildingException.class)
+    public void shouldRejectWindowLongerThanDuration() {
+        EvictionHarness.builder().duration(Duration.ofSeconds(1)).window(Duration.ofSeconds(2)).build();
+    }
+
+    @Test
+    public void shouldCompareEvictionWithRefusedWrites() {
+        final RedisServer server = new RedisServer(6409);
+        server.start();
+        try {
+            final Map<EvictionPolicy, EvictionReport> reports = EvictionHarness.builder()
+                    .maxmemory(4 * 1024 * 1024)
+                    .policies(EvictionPolicy.NOEVICTION, EvictionPolicy.ALLKEYS_LRU)
+                    .duration(Duration.ofSeconds(2))
+                    .build()
+                    .run(server);
+
+            final EvictionReport noeviction = reports.get(EvictionPolicy.NOEVICTION);
+            final EvictionReport lru = reports.get(EvictionPolicy.ALLKEYS_LRU);
+            assertEquals(2, noeviction.samples().size());
+            assertEquals(0, noeviction.evictedKeys());
+            assertTrue(noeviction.oomErrors() > 0);
+            assertTrue(lru.evictedKeys() > 0);
+            assertEquals(0, lru.oomErrors());
+            assertEquals("0", server.info("memory").get("maxmemory"));
+        } finally {
+            server.stop();
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package redis.embedded.workload;
+
+import org.junit.Test;
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PersistenceBenchmarkTest {
+
+    @Test
+    public void shouldForkMatchingBackgroundJob() {
+        assertNull(PersistenceMode.NONE.backgroundCommand());
+        assertEquals("BGSAVE", PersistenceMode.RDB.backgroundCommand());
+        assertEquals("BGREWRITEAOF", PersistenceMode.AOF_RDB_PREAMBLE.backgroundCommand());
+        assertTrue(PersistenceMode.APPENDFSYNC_ALWAYS.settings().contains("appendfsync always"));
+    }
+
+    @Test(expected = RedisBuildingException.class)
+    public void shouldRejectForkAfterRun() {
+        PersistenceBenchmark.builder().duration(Duration.ofSeconds(1)).forkAfter(Duration.ofSeconds(1)).build();
+    }
+
+    @Test(expected = RedisBuildingException.class)
+    public void shouldRejectZeroBackgroundJobTimeout() {
+        PersistenceBenchmark.builder().backgroundJobTimeout(Duration.ZERO).build();
+    }
+
+    @Test
+    public void shouldMeasureForkOfEachMode() {
+        final Map<PersistenceMode, PersistenceReport> reports = PersistenceBenchmark.builder()
+                .port(6410)
+                .modes(PersistenceMode.RDB, PersistenceMode.APPENDFSYNC_EVERYSEC)
+                .workload(Workload.builder().keys(KeyDistribution.uniform(10_000)).readProportion(0).build())
+                .duration(Duration.ofSeconds(2))
+                .build()
+                .run();
+
+        for (PersistenceReport report : reports.values()) {
+            assertEquals(1, report.forks());
+            assertTrue(report.latestFork().toNanos() > 0);
+            assertTrue(report.backgroundJob().toNanos() > 0);
+            assertTrue(report.workload().operations(WorkloadOperation.UPDATE) > 0);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package redis.embedded.workload;
+
+import org.junit.Test;
+import redis.embedded.RedisCluster;
+import redis.embedded.RedisServer;
+import redis.embedded.exceptions.RedisBuildingException;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class WorkloadTest {
+
+    @Test
+    public void zipfianShouldFavourLowKeys() {
+        final KeyDistribution zipfian = KeyDistribution.zipfian(1000);
+        final long[] counts = sample(zipfian, 100_000);
+
+        assertTrue(counts[0] > counts[1]);
+        assertTrue(counts[1] > counts[10]);
+        // with the default skew the first key alone gets more than a tenth of all operations
+        assertTrue(counts[0] > 10_000);
+    }
+
+    @Test
+    public void hotspotShouldSendHotOperationsToHotKeys() {
+        final KeyDistribution hotspot = KeyDistribution.hotspot(1000, 0.1, 0.9);
+        final long[] counts = sample(hotspot, 100_000);
+
+        long hot = 0;
+        for (int i = 0; i < 100; i++) {
+            hot += counts[i];
+        }
+        assertEquals(0.9, hot / 100_000.0, 0.01);
+    }
+
+    @Test
+    public void uniformShouldCoverAllKeys() {
+        final long[] counts = sample(KeyDistribution.uniform(100), 100_000);
+
+        for (long count : counts) {
+            assertTrue(count > 800 && count < 1200);
+        }
+    }
+
+    @Test(expected = RedisBuildingException.class)
+    public void shouldRejectSkewOfOne() {
+        KeyDistribution.zipfian(1000, 1.0);
+    }
+
+    @Test
+    public void shouldRunClosedLoopWorkloadAgainstServer() {
+        final RedisServer server = new RedisServer(6405);
+        server.start();
+        try {
+            final Workload workload = Workload.builder()
+                    .keys(KeyDistribution.zipfian(1000))
+                    .readProportion(0.5)
+                    .valueSize(10, 100)
+                    .clients(8)
+                    .operations(10_000)
+                    .seed(42)
+                    .build();
+            workload.load(server);
+
+            final WorkloadReport report = workload.run(server);
+
+            assertEquals(10_000, report.operations());
+            assertEquals(0, report.errors(WorkloadOperation.READ) + report.errors(WorkloadOperation.UPDATE));
+            assertTrue(report.operations(WorkloadOperation.READ) > 4000);
+            assertTrue(report.operations(WorkloadOperation.UPDATE) > 4000);
+        } finally {
+            server.stop();
+        }
+    }
+
+    @Test
+    public void shouldHoldTargetRateAgainstShardedCluster() {
+        final RedisCluster cluster = RedisCluster.builder().serverPorts(List.of(7320, 7321, 7322)).shards(3).build();
+        cluster.start();
+        try {
+            final WorkloadReport report = Workload.builder()
+                    .keys(KeyDistribution.hotspot(10_000, 0.01, 0.5))
+                    .clients(4)
+                    .targetRate(1000)
+                    .duration(Duration.ofSeconds(2))
+                    .build()
+                    .run(cluster);
+
+            assertEquals(2000, report.operations(), 100);
+            assertEquals(0, report.errors(WorkloadOperation.READ) + report.errors(WorkloadOperation.UPDATE));
+        } finally {
+            cluster.stop();
+        }
+    }
+
+    private static long[] sample(KeyDistribution distribution, int samples) {
+        final SplittableRandom random = new SplittableRandom(7);
+        final long[] counts = new long[(int) distribution.keys()];
+        for (int i = 0; i < samples; i++) {
+            counts[(int) distribution.next(random)]++;
+        }
+        return counts;
+    }
+}